@@ -1,14 +1,23 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.stream.BookingEventStream;
 import ru.practicum.shareit.exception.EndTimeBeforeStartException;
+import ru.practicum.shareit.pagination.CursorResponses;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import java.util.List;
 
@@ -18,12 +27,14 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final BookingEventStream bookingEventStream;
 
     private static final String HEADER_WITH_USER_ID = "X-Sharer-User-Id";
 
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, BookingEventStream bookingEventStream) {
         this.bookingService = bookingService;
+        this.bookingEventStream = bookingEventStream;
     }
 
     @PostMapping
@@ -40,6 +51,17 @@ public class BookingController {
         return bookingService.updateBooking(bookingId, ownerId, approved);
     }
 
+    @PatchMapping("/owner/batch")
+    public List<BookingDecisionDto> decideBookings(@Valid @RequestBody BookingBatchDecisionDto decision,
+                                                   @RequestHeader(HEADER_WITH_USER_ID) Integer ownerId) {
+        return bookingService.decideBookings(ownerId, decision);
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookingStatuses(@RequestHeader(HEADER_WITH_USER_ID) Integer userId) {
+        return bookingEventStream.subscribe(userId);
+    }
+
     @GetMapping("{bookingId}")
     public BookingResponseDto getBookingById(@PathVariable Integer bookingId,
                                              @RequestHeader(HEADER_WITH_USER_ID) Integer userId) {
@@ -47,21 +69,41 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingResponseDto> getBookingByUser(
+    public ResponseEntity<List<BookingResponseDto>> getBookingByUser(
             @RequestParam(value = "from", defaultValue = "0", required = false) @Min(value = 0) Integer from,
-            @RequestParam(value = "size", defaultValue = "10", required = false) @Min(value = 0) Integer size,
+            @RequestParam(value = "size", defaultValue = "10", required = false)
+            @Min(value = 1) @Max(value = 500) Integer size,
             @RequestParam(value = "state", defaultValue = "ALL", required = false) String state,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestHeader(HEADER_WITH_USER_ID) Integer userId) {
-        return bookingService.getBookingByUser(state, userId, from, size);
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getBookingByUser(state, userId, from, size));
+        }
+        return CursorResponses.withNextCursor(bookingService.getBookingPageByUser(state, userId, cursor, size));
     }
 
     @GetMapping("/owner")
-    public List<BookingResponseDto> getBookingByOwner(
+    public ResponseEntity<List<BookingResponseDto>> getBookingByOwner(
             @RequestParam(value = "from", defaultValue = "0", required = false) @Min(value = 0) Integer from,
-            @RequestParam(value = "size", defaultValue = "10", required = false) @Min(value = 0) Integer size,
+            @RequestParam(value = "size", defaultValue = "10", required = false)
+            @Min(value = 1) @Max(value = 500) Integer size,
             @RequestParam(value = "state", defaultValue = "ALL", required = false) String state,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestHeader(HEADER_WITH_USER_ID) Integer ownerId) {
-        return bookingService.getBookingByOwner(state, ownerId, from, size);
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getBookingByOwner(state, ownerId, from, size));
+        }
+        return CursorResponses.withNextCursor(bookingService.getBookingPageByOwner(state, ownerId, cursor, size));
+    }
+
+    @GetMapping("/summary")
+    public BookingSummaryDto getBookingSummaryByUser(@RequestHeader(HEADER_WITH_USER_ID) Integer userId) {
+        return bookingService.getBookingSummaryByUser(userId);
+    }
+
+    @GetMapping("/owner/summary")
+    public BookingSummaryDto getBookingSummaryByOwner(@RequestHeader(HEADER_WITH_USER_ID) Integer ownerId) {
+        return bookingService.getBookingSummaryByOwner(ownerId);
     }
 
     private void checkEndTimeBeforeStart(BookingRequestDto bookingRequestDto) {
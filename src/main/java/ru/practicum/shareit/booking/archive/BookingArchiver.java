@@ -0,0 +1,160 @@
+package ru.practicum.shareit.booking.archive;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Moves bookings that ended before the retention period from {@code bookings} to {@code bookings_archive},
+ * so the hot table only holds recent and upcoming bookings. The ALL, PAST, WAITING and REJECTED listings,
+ * their counters and comment eligibility read both tables; CURRENT and FUTURE never reach the archive.
+ * <p>
+ * On a partitioned Postgres table (schema-postgresql-bookings.sql) whole monthly partitions are detached
+ * and attached to the archive, and partitions for the next months are created ahead.
+ * Rows that are not in a monthly partition, and every row on H2 or an unpartitioned table, are copied and deleted.
+ */
+@Slf4j
+@Component
+public class BookingArchiver {
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("bookings_p(\\d{6})");
+    private static final String COLUMNS = "id, start_date, end_date, item_id, booker_id, status, version";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int retentionMonths;
+    private final int partitionsAhead;
+
+    @Autowired
+    public BookingArchiver(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                           @Value("${shareit.booking.archive.retention-months:12}") int retentionMonths,
+                           @Value("${shareit.booking.archive.partitions-ahead:3}") int partitionsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.retentionMonths = retentionMonths;
+        this.partitionsAhead = partitionsAhead;
+    }
+
+    @Scheduled(cron = "${shareit.booking.archive.cron:0 30 3 * * *}")
+    @Transactional
+    public void archive() {
+        archive(YearMonth.now());
+    }
+
+    /**
+     * Archives bookings that ended before the first day of {@code month} minus the retention period.
+     * Returns the number of monthly partitions and rows moved.
+     */
+    @Transactional
+    public ArchiveResult archive(YearMonth month) {
+        YearMonth firstKept = month.minusMonths(retentionMonths);
+        int partitions = 0;
+        if (isPartitioned()) {
+            Set<YearMonth> existing = monthlyPartitions();
+            for (int ahead = 0; ahead <= partitionsAhead; ahead++) {
+                YearMonth next = month.plusMonths(ahead);
+                if (!existing.contains(next)) {
+                    createPartition(next);
+                }
+            }
+            for (YearMonth partition : existing) {
+                if (partition.isBefore(firstKept)) {
+                    movePartition(partition);
+                    partitions++;
+                }
+            }
+        }
+        Timestamp cutoff = Timestamp.valueOf(firstKept.atDay(1).atStartOfDay());
+        jdbcTemplate.update("INSERT INTO bookings_archive (" + COLUMNS + ") " +
+                "SELECT " + COLUMNS + " FROM bookings WHERE end_date < ?", cutoff);
+        int rows = jdbcTemplate.update("DELETE FROM bookings WHERE end_date < ?", cutoff);
+        if (partitions > 0 || rows > 0) {
+            // Строки ушли мимо Hibernate: закэшированные бронирования из архива больше не должны находиться
+            entityManagerFactory.getCache().evict(Booking.class);
+        }
+        log.info("Archived {} booking partitions and {} rows that ended before {}", partitions, rows, cutoff);
+        return new ArchiveResult(partitions, rows);
+    }
+
+    private boolean isPartitioned() {
+        Boolean postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().startsWith("PostgreSQL"));
+        if (!Boolean.TRUE.equals(postgres)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_partitioned_table t " +
+                "JOIN pg_class c ON c.oid = t.partrelid WHERE c.relname = 'bookings')", Boolean.class));
+    }
+
+    private Set<YearMonth> monthlyPartitions() {
+        List<String> names = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'bookings'", String.class);
+        Set<YearMonth> months = new HashSet<>();
+        for (String name : names) {
+            Matcher matcher = MONTHLY_PARTITION.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.parse(matcher.group(1), PARTITION_SUFFIX));
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Creates the partition of one month. Rows of that month already sitting in the default partition
+     * are moved into it first, otherwise Postgres refuses to attach the new range.
+     */
+    private void createPartition(YearMonth month) {
+        String name = "bookings_p" + month.format(PARTITION_SUFFIX);
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE bookings INCLUDING DEFAULTS)");
+        jdbcTemplate.update("INSERT INTO " + name + " (" + COLUMNS + ") SELECT " + COLUMNS +
+                " FROM bookings_default WHERE end_date >= ? AND end_date < ?", from, to);
+        jdbcTemplate.update("DELETE FROM bookings_default WHERE end_date >= ? AND end_date < ?", from, to);
+        jdbcTemplate.execute("ALTER TABLE bookings ATTACH PARTITION " + name + " FOR VALUES " + bounds(month));
+        log.info("Created booking partition {}", name);
+    }
+
+    private void movePartition(YearMonth month) {
+        String name = "bookings_p" + month.format(PARTITION_SUFFIX);
+        String archiveName = "bookings_archive_p" + month.format(PARTITION_SUFFIX);
+        jdbcTemplate.execute("ALTER TABLE bookings DETACH PARTITION " + name);
+        jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + archiveName);
+        jdbcTemplate.execute("ALTER TABLE bookings_archive ATTACH PARTITION " + archiveName +
+                " FOR VALUES " + bounds(month));
+        log.info("Moved booking partition {} to the archive", name);
+    }
+
+    private static String bounds(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        return "FROM ('" + from + "') TO ('" + to + "')";
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class ArchiveResult {
+        private final int partitions;
+        private final int rows;
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.dto;
+
+/**
+ * Number of archived bookings of a booker or owner, in total and in the statuses that have their own listing.
+ * Every archived booking has ended, so the total counts both towards ALL and PAST.
+ */
+public interface ArchivedBookingCounts {
+
+    Long getAllCount();
+
+    Long getWaitingCount();
+
+    Long getRejectedCount();
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.BookingStatus;
+
+/**
+ * Outcome of a batch decision for one booking. The status is the booking's status after the batch,
+ * absent when another decision won a race for the booking.
+ * Bookings of other owners' items are reported as NOT_FOUND without a status, like the single-booking endpoint does.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDecisionDto {
+    private Integer bookingId;
+    private Outcome outcome;
+    private BookingStatus status;
+
+    public enum Outcome {
+        DECIDED,
+        NOT_FOUND,
+        ALREADY_DECIDED
+    }
+}
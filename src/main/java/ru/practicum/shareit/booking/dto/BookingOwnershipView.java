@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of a booking needed to check and apply an owner's decision, read without loading entities.
+ */
+public interface BookingOwnershipView {
+
+    Integer getId();
+
+    Integer getItemId();
+
+    Integer getOwnerId();
+
+    Integer getBookerId();
+
+    BookingStatus getStatus();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+/**
+ * Number of bookings in each state of a booker or owner, computed by one aggregate query.
+ */
+public interface BookingStateCounts {
+
+    Long getAllCount();
+
+    Long getCurrentCount();
+
+    Long getPastCount();
+
+    Long getFutureCount();
+
+    Long getWaitingCount();
+
+    Long getRejectedCount();
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+/**
+ * Last or next booking of an item, read straight from the bookings table without loading entities.
+ */
+public interface ItemBookingView {
+
+    Integer getItemId();
+
+    Integer getId();
+
+    Integer getBookerId();
+
+    Kind getKind();
+
+    enum Kind {
+        LAST,
+        NEXT
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A WAITING booking as tracked by WaitingBookingExpiry, read without loading entities.
+ */
+public interface WaitingBookingView {
+
+    Integer getId();
+
+    Integer getItemId();
+
+    Integer getBookerId();
+
+    Integer getOwnerId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: {@code wheelSize} buckets of {@code tickMillis} each, and for deadlines beyond
+ * them an overflow wheel whose tick is the whole span of this one, created on demand.
+ * Adding and expiring an entry costs O(1) per level; advancing costs one step per tick of the lowest wheel.
+ * Entries come out in tick order, not in exact deadline order within a tick. Not thread-safe.
+ */
+class TimingWheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long intervalMillis;
+    private final List<List<Entry<T>>> buckets;
+    private long currentTime;
+    private TimingWheel<T> overflow;
+    private int size;
+
+    TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.intervalMillis = tickMillis * wheelSize;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules the value to expire at {@code deadlineMillis}.
+     * Returns {@code false} without keeping it if the deadline falls within the current tick, i.e. it is due now.
+     */
+    boolean add(long deadlineMillis, T value) {
+        return add(new Entry<>(deadlineMillis, value));
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and hands every value whose tick has passed to {@code expired}.
+     */
+    void advance(long nowMillis, Consumer<T> expired) {
+        advanceEntries(nowMillis, entry -> expired.accept(entry.value));
+    }
+
+    /**
+     * Returns the number of values still waiting, on this wheel and its overflow wheels.
+     */
+    int size() {
+        return size + (overflow == null ? 0 : overflow.size());
+    }
+
+    private boolean add(Entry<T> entry) {
+        if (entry.deadline < currentTime + tickMillis) {
+            return false;
+        }
+        if (entry.deadline < currentTime + intervalMillis) {
+            buckets.get(bucketIndex(entry.deadline)).add(entry);
+            size++;
+            return true;
+        }
+        if (overflow == null) {
+            overflow = new TimingWheel<>(intervalMillis, wheelSize, currentTime);
+        }
+        return overflow.add(entry);
+    }
+
+    private void advanceEntries(long nowMillis, Consumer<Entry<T>> expired) {
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+            if (overflow != null) {
+                // Записи старшего колеса, чей тик наступил, опускаются сюда или истекают сразу
+                overflow.advanceEntries(currentTime, entry -> reinsert(entry, expired));
+            }
+            List<Entry<T>> bucket = buckets.get(bucketIndex(currentTime));
+            if (!bucket.isEmpty()) {
+                List<Entry<T>> due = new ArrayList<>(bucket);
+                bucket.clear();
+                size -= due.size();
+                for (Entry<T> entry : due) {
+                    reinsert(entry, expired);
+                }
+            }
+        }
+    }
+
+    private void reinsert(Entry<T> entry, Consumer<Entry<T>> expired) {
+        if (!add(entry)) {
+            expired.accept(entry);
+        }
+    }
+
+    private int bucketIndex(long time) {
+        return (int) Math.floorMod(Math.floorDiv(time, tickMillis), (long) wheelSize);
+    }
+
+    private static final class Entry<T> {
+        private final long deadline;
+        private final T value;
+
+        private Entry(long deadline, T value) {
+            this.deadline = deadline;
+            this.value = value;
+        }
+    }
+}
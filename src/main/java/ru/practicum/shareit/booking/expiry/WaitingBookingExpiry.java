@@ -0,0 +1,188 @@
+package ru.practicum.shareit.booking.expiry;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.WaitingBookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
+import ru.practicum.shareit.booking.stream.BookingStatusChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rejects WAITING bookings the owner has not decided on within {@code hold-ttl-minutes} after their start.
+ * <p>
+ * Every WAITING booking is kept in an in-memory {@link TimingWheel} until its hold runs out: the wheel is seeded
+ * from {@link BookingRepository} at startup and new requests are added by BookingService. Each tick only moves the
+ * wheel, the database is touched when some holds have expired, and those are rejected in batches with the same
+ * conditional update as an owner's batch decision, so bookings decided in the meantime are left alone.
+ * Once a batch commits, a {@link BookingStatusChangedEvent} is published for every booking it rejected, just as
+ * for an owner's decision. A batch that fails is retried on the next tick.
+ */
+@Slf4j
+@Component
+public class WaitingBookingExpiry {
+    private static final int WHEEL_SIZE = 512;
+    private static final int SEED_CHUNK_SIZE = 1_000;
+
+    private final BookingRepository bookingRepository;
+    private final BookingSchedule bookingSchedule;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long holdTtlMillis;
+    private final int batchSize;
+    private final TimingWheel<Hold> wheel;
+    private final List<Hold> overdue = new ArrayList<>();
+
+    @Autowired
+    public WaitingBookingExpiry(BookingRepository bookingRepository, BookingSchedule bookingSchedule,
+                                ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                                @Value("${shareit.booking.expiry.hold-ttl-minutes:60}") long holdTtlMinutes,
+                                @Value("${shareit.booking.expiry.tick-ms:1000}") long tickMillis,
+                                @Value("${shareit.booking.expiry.batch-size:100}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingSchedule = bookingSchedule;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.holdTtlMillis = Duration.ofMinutes(holdTtlMinutes).toMillis();
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SIZE, toMillis(LocalDateTime.now()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        int lastId = 0;
+        int seeded = 0;
+        List<WaitingBookingView> chunk;
+        do {
+            chunk = bookingRepository.findWaitingBookingsAfter(lastId, PageRequest.of(0, SEED_CHUNK_SIZE));
+            for (WaitingBookingView booking : chunk) {
+                track(new Hold(booking.getId(), booking.getItemId(), booking.getBookerId(), booking.getOwnerId(),
+                        booking.getStart(), booking.getEnd()));
+                lastId = booking.getId();
+            }
+            seeded += chunk.size();
+        } while (chunk.size() == SEED_CHUNK_SIZE);
+        log.info("Tracking {} WAITING bookings for expiry", seeded);
+    }
+
+    /**
+     * Starts tracking a booking just created in WAITING status.
+     */
+    public void track(Booking booking) {
+        track(new Hold(booking.getId(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getItem().getOwner().getId(), booking.getStart(), booking.getEnd()));
+    }
+
+    /**
+     * Returns the number of WAITING bookings whose hold has not run out yet.
+     */
+    public int size() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.tick-ms:1000}")
+    public void expire() {
+        expire(LocalDateTime.now());
+    }
+
+    /**
+     * Rejects the tracked bookings whose hold has run out by {@code now}. Returns the number rejected.
+     */
+    public int expire(LocalDateTime now) {
+        List<Hold> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(toMillis(now), due::add);
+            due.addAll(overdue);
+            overdue.clear();
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+        // Строки обновляются по возрастанию id, как и в пакетном решении владельца
+        due.sort(Comparator.comparingInt(Hold::getId));
+        int rejected = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            rejected += reject(due.subList(from, Math.min(from + batchSize, due.size())));
+        }
+        log.info("Rejected {} WAITING bookings whose hold expired", rejected);
+        return rejected;
+    }
+
+    private int reject(List<Hold> batch) {
+        Map<Integer, Hold> holds = new LinkedHashMap<>();
+        for (Hold hold : batch) {
+            holds.put(hold.getId(), hold);
+        }
+        try {
+            Set<Integer> rejected = transactionTemplate.execute(status -> {
+                Set<Integer> ids = bookingRepository.decideWaitingBookings(holds.keySet(), BookingStatus.REJECTED);
+                for (Integer id : ids) {
+                    Hold hold = holds.get(id);
+                    bookingSchedule.release(hold.getItemId(), id, hold.getStart(), hold.getEnd());
+                }
+                return ids;
+            });
+            // Подписчики узнают об отказе только после фиксации пакета, как и о решении владельца
+            for (Integer id : rejected) {
+                Hold hold = holds.get(id);
+                eventPublisher.publishEvent(new BookingStatusChangedEvent(id, hold.getItemId(), hold.getBookerId(),
+                        hold.getOwnerId(), BookingStatus.REJECTED));
+            }
+            return rejected.size();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reject {} expired WAITING bookings, retrying on the next tick", holds.size(), e);
+            synchronized (wheel) {
+                overdue.addAll(holds.values());
+            }
+            return 0;
+        }
+    }
+
+    private void track(Hold hold) {
+        synchronized (wheel) {
+            if (!wheel.add(toMillis(hold.getStart()) + holdTtlMillis, hold)) {
+                overdue.add(hold);
+            }
+        }
+    }
+
+    // Та же шкала, что у BookingSchedule: LocalDateTime без зоны, прочитанное как UTC
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Hold {
+        private final int id;
+        private final int itemId;
+        private final int bookerId;
+        private final int ownerId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+    }
+}
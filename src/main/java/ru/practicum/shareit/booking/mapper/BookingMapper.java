@@ -3,9 +3,12 @@ package ru.practicum.shareit.booking.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStateCounts;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.ShortBookingDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
@@ -28,6 +31,7 @@ public interface BookingMapper {
     @Mappings({
             @Mapping(target = "bookingStatus", constant = "WAITING"),
             @Mapping(target = "id", ignore = true),
+            @Mapping(target = "version", ignore = true),
             @Mapping(target = "start", source = "bookingRequestDto.start"),
             @Mapping(target = "end", source = "bookingRequestDto.end"),
             @Mapping(target = "booker", source = "booker"),
@@ -37,6 +41,21 @@ public interface BookingMapper {
 
     List<BookingResponseDto> toBookingDtoList(List<Booking> bookings);
 
+    @Mapping(target = "status", source = "bookingStatus")
+    BookingResponseDto toBookingResponseDto(ArchivedBooking booking);
+
+    List<BookingResponseDto> toArchivedBookingDtoList(List<ArchivedBooking> bookings);
+
     @Mapping(target = "bookerId", source = "booker.id")
     ShortBookingDto toShortBookingDto(Booking booking);
+
+    @Mappings({
+            @Mapping(target = "all", source = "allCount"),
+            @Mapping(target = "current", source = "currentCount"),
+            @Mapping(target = "past", source = "pastCount"),
+            @Mapping(target = "future", source = "futureCount"),
+            @Mapping(target = "waiting", source = "waitingCount"),
+            @Mapping(target = "rejected", source = "rejectedCount")
+    })
+    BookingSummaryDto toBookingSummaryDto(BookingStateCounts counts);
 }
\ No newline at end of file
@@ -46,6 +46,10 @@ public class Booking {
     @Column(name = "status")
     private BookingStatus bookingStatus;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
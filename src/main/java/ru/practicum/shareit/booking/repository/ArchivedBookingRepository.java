@@ -0,0 +1,96 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.ArchivedBookingCounts;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+
+import java.time.LocalDateTime;
+
+/**
+ * Archived bookings all ended before the archive cutoff, so they need no {@code now} bound: every one of them
+ * belongs to ALL and PAST, and the status queries serve WAITING and REJECTED.
+ */
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Integer> {
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.booker.id = :userId " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<ArchivedBooking> findBookerBookings(@Param("userId") Integer userId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.item.owner.id = :ownerId " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<ArchivedBooking> findOwnerBookings(@Param("ownerId") Integer ownerId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.booker.id = :userId " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<ArchivedBooking> findBookerBookingsBefore(@Param("userId") Integer userId,
+                                                    @Param("cursorStart") LocalDateTime cursorStart,
+                                                    @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.item.owner.id = :ownerId " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<ArchivedBooking> findOwnerBookingsBefore(@Param("ownerId") Integer ownerId,
+                                                   @Param("cursorStart") LocalDateTime cursorStart,
+                                                   @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.booker.id = :userId AND b.bookingStatus = :status " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<ArchivedBooking> findBookerBookingsByStatus(@Param("userId") Integer userId,
+                                                      @Param("status") BookingStatus status, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.bookingStatus = :status " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<ArchivedBooking> findOwnerBookingsByStatus(@Param("ownerId") Integer ownerId,
+                                                     @Param("status") BookingStatus status, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.booker.id = :userId AND b.bookingStatus = :status " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<ArchivedBooking> findBookerBookingsByStatusBefore(@Param("userId") Integer userId,
+                                                            @Param("status") BookingStatus status,
+                                                            @Param("cursorStart") LocalDateTime cursorStart,
+                                                            @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.bookingStatus = :status " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<ArchivedBooking> findOwnerBookingsByStatusBefore(@Param("ownerId") Integer ownerId,
+                                                           @Param("status") BookingStatus status,
+                                                           @Param("cursorStart") LocalDateTime cursorStart,
+                                                           @Param("cursorId") Integer cursorId, Pageable page);
+
+    String COUNTS = "SELECT COUNT(b) AS allCount, " +
+            "COALESCE(SUM(CASE WHEN b.bookingStatus = 'WAITING' THEN 1 ELSE 0 END), 0) AS waitingCount, " +
+            "COALESCE(SUM(CASE WHEN b.bookingStatus = 'REJECTED' THEN 1 ELSE 0 END), 0) AS rejectedCount ";
+
+    @Query(COUNTS + "FROM ArchivedBooking b WHERE b.booker.id = :userId")
+    ArchivedBookingCounts countBookerBookings(@Param("userId") Integer userId);
+
+    @Query(COUNTS + "FROM ArchivedBooking b WHERE b.item.owner.id = :ownerId")
+    ArchivedBookingCounts countOwnerBookings(@Param("ownerId") Integer ownerId);
+
+    boolean existsByItem_IdAndBooker_Id(Integer itemId, Integer bookerId);
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface BookingDecisionRepository {
+
+    /**
+     * Sets the status of the given bookings that are still WAITING, sending the updates in JDBC batches.
+     * Returns the ids that were updated.
+     */
+    Set<Integer> decideWaitingBookings(Collection<Integer> ids, BookingStatus status);
+}
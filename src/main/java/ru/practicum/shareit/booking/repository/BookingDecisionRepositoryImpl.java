@@ -0,0 +1,52 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class BookingDecisionRepositoryImpl implements BookingDecisionRepository {
+    private static final int BATCH_SIZE = 100;
+    private static final String DECIDE_WAITING = "UPDATE bookings SET status = ?, version = version + 1 " +
+            "WHERE id = ? AND status = 'WAITING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public BookingDecisionRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Set<Integer> decideWaitingBookings(Collection<Integer> ids, BookingStatus status) {
+        List<Integer> bookingIds = new ArrayList<>(ids);
+        int[][] counts = jdbcTemplate.batchUpdate(DECIDE_WAITING, bookingIds, BATCH_SIZE, (statement, id) -> {
+            statement.setString(1, status.name());
+            statement.setInt(2, id);
+        });
+        Set<Integer> decided = new HashSet<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    decided.add(bookingIds.get(index));
+                }
+                index++;
+            }
+        }
+        // Обновление идёт мимо Hibernate, поэтому кэш второго уровня про эти бронирования надо забыть.
+        // Вытеснение ждёт фиксации: иначе параллельное чтение успеет вернуть в кэш ещё не решённую строку
+        AfterCommit.run(() -> decided.forEach(id -> entityManagerFactory.getCache().evict(Booking.class, id)));
+        return decided;
+    }
+}
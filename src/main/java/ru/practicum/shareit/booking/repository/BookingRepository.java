@@ -5,15 +5,22 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingOwnershipView;
+import ru.practicum.shareit.booking.dto.BookingStateCounts;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.booking.dto.WaitingBookingView;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface BookingRepository extends JpaRepository<Booking, Integer> {
+public interface BookingRepository extends JpaRepository<Booking, Integer>, BookingDecisionRepository {
     @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
     @Query("SELECT b FROM Booking b WHERE b.id = :id")
     Booking findBookingByIdWithItemAndBookerEagerly(@Param("id") Integer id);
@@ -24,26 +31,58 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
 
     @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
     @Query("SELECT b FROM Booking b " +
-            "WHERE b.start <= CURRENT_TIMESTAMP AND b.end >= CURRENT_TIMESTAMP " +
-            "ORDER BY b.start DESC")
-    Slice<Booking> findAllCurrentBookingsWithItemAndBooker(Pageable page);
+            "WHERE b.booker.id = :userId AND b.start <= :now AND b.end >= :now " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerCurrentBookings(@Param("userId") Integer userId, @Param("now") LocalDateTime now,
+            Pageable page);
 
     @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
     @Query("SELECT b FROM Booking b " +
-            "WHERE b.end < CURRENT_TIMESTAMP " +
-            "ORDER BY b.start DESC")
-    Slice<Booking> findAllPastBookingsWithItemAndBooker(Pageable page);
+            "WHERE b.booker.id = :userId AND b.end < :now " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerPastBookings(@Param("userId") Integer userId, @Param("now") LocalDateTime now,
+            Pageable page);
 
+    // b.end > :now следует из b.start > :now, но по нему Postgres отбрасывает прошедшие секции bookings
     @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
     @Query("SELECT b FROM Booking b " +
-            "WHERE b.start > CURRENT_TIMESTAMP " +
-            "ORDER BY b.start DESC")
-    Slice<Booking> findAllFutureBookingsWithItemAndBooker(Pageable page);
+            "WHERE b.booker.id = :userId AND b.start > :now AND b.end > :now " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerFutureBookings(@Param("userId") Integer userId, @Param("now") LocalDateTime now,
+            Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :userId AND b.bookingStatus = 'WAITING' " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerWaitingBookings(@Param("userId") Integer userId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.start <= :now AND b.end >= :now " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerCurrentBookings(@Param("ownerId") Integer ownerId, @Param("now") LocalDateTime now,
+            Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.end < :now " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerPastBookings(@Param("ownerId") Integer ownerId, @Param("now") LocalDateTime now,
+            Pageable page);
 
     @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
     @Query("SELECT b FROM Booking b " +
-            "WHERE b.bookingStatus = 'WAITING' ORDER BY b.start DESC")
-    Slice<Booking> findWaitingBookingsSortedByStartDateDesc(Pageable page);
+            "WHERE b.item.owner.id = :ownerId AND b.start > :now AND b.end > :now " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerFutureBookings(@Param("ownerId") Integer ownerId, @Param("now") LocalDateTime now,
+            Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.bookingStatus = 'WAITING' " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerWaitingBookings(@Param("ownerId") Integer ownerId, Pageable page);
 
     @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
     @Query("SELECT b FROM Booking b " +
@@ -60,10 +99,6 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
     @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
     Slice<Booking> findByItem_Owner_IdOrderByStartDesc(Integer ownerId, Pageable page);
 
-    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
-    Slice<Booking> findByItem_Owner_IdAndStartBeforeAndEndAfterOrderByStartDesc(
-            Integer ownerId, LocalDateTime start, LocalDateTime end, Pageable page);
-
     @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
     @Query("SELECT b FROM Booking b WHERE b.item.id = :itemId " +
             "AND b.start < CURRENT_TIMESTAMP " +
@@ -84,12 +119,185 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
             "ORDER BY b.item.id ASC")
     Slice<Booking> findBookingsByUserId(@Param("userId") Integer userId, Pageable page);
 
-    @Query("SELECT COUNT(b) > 0 FROM Booking b " +
-            "WHERE b.item.id = :itemId " +
-            "AND b.booker.id = :userId " +
-            "AND b.end < CURRENT_TIMESTAMP")
-    boolean existsByItemIdAndUserIdAndEnded(@Param("itemId") Integer itemId, @Param("userId") Integer userId);
+    /*
+     * Keyset pages of a booker's or an owner's bookings, newest start first. Each query continues strictly
+     * after the (start, id) of the previous page's last row, so every page costs the same as the first one.
+     */
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :userId " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerBookingsBefore(@Param("userId") Integer userId,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :userId AND b.start <= :now AND b.end >= :now " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerCurrentBookingsBefore(@Param("userId") Integer userId, @Param("now") LocalDateTime now,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
 
     @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
-    List<Booking> findByItem_Owner_IdAndBookingStatusNotOrderByStartDesc(Integer ownerId, BookingStatus bookingStatus);
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :userId AND b.end < :now " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerPastBookingsBefore(@Param("userId") Integer userId, @Param("now") LocalDateTime now,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :userId AND b.start > :now AND b.end > :now " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerFutureBookingsBefore(@Param("userId") Integer userId, @Param("now") LocalDateTime now,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :userId AND b.bookingStatus = 'WAITING' " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerWaitingBookingsBefore(@Param("userId") Integer userId,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :userId AND b.bookingStatus = 'REJECTED' " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findBookerRejectedBookingsBefore(@Param("userId") Integer userId,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerBookingsBefore(@Param("ownerId") Integer ownerId,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.start <= :now AND b.end >= :now " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerCurrentBookingsBefore(@Param("ownerId") Integer ownerId, @Param("now") LocalDateTime now,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.end < :now " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerPastBookingsBefore(@Param("ownerId") Integer ownerId, @Param("now") LocalDateTime now,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.start > :now AND b.end > :now " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerFutureBookingsBefore(@Param("ownerId") Integer ownerId, @Param("now") LocalDateTime now,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.bookingStatus = 'WAITING' " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerWaitingBookingsBefore(@Param("ownerId") Integer ownerId,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker", "item.owner"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.bookingStatus = 'REJECTED' " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Slice<Booking> findOwnerRejectedBookingsBefore(@Param("ownerId") Integer ownerId,
+            @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Integer cursorId, Pageable page);
+
+    /**
+     * Sets the owner's decision on a WAITING booking in one statement.
+     * Returns 0 when the booking does not exist, belongs to another owner's item or has already been decided.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.bookingStatus = :status, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.bookingStatus = 'WAITING' " +
+            "AND b.item.id IN (SELECT i.id FROM Item i WHERE i.owner.id = :ownerId)")
+    int decideWaitingBooking(@Param("id") Integer id, @Param("ownerId") Integer ownerId,
+                             @Param("status") BookingStatus status);
+
+    @Query("SELECT b.id AS id, i.id AS itemId, i.owner.id AS ownerId, b.booker.id AS bookerId, " +
+            "b.bookingStatus AS status, b.start AS start, b.end AS end " +
+            "FROM Booking b JOIN b.item i WHERE b.id IN :ids")
+    List<BookingOwnershipView> findOwnershipByIdIn(@Param("ids") Collection<Integer> ids);
+
+    String STATE_COUNTS = "SELECT COUNT(b) AS allCount, " +
+            "COALESCE(SUM(CASE WHEN b.start <= :now AND b.end >= :now THEN 1 ELSE 0 END), 0) AS currentCount, " +
+            "COALESCE(SUM(CASE WHEN b.end < :now THEN 1 ELSE 0 END), 0) AS pastCount, " +
+            "COALESCE(SUM(CASE WHEN b.start > :now THEN 1 ELSE 0 END), 0) AS futureCount, " +
+            "COALESCE(SUM(CASE WHEN b.bookingStatus = 'WAITING' THEN 1 ELSE 0 END), 0) AS waitingCount, " +
+            "COALESCE(SUM(CASE WHEN b.bookingStatus = 'REJECTED' THEN 1 ELSE 0 END), 0) AS rejectedCount ";
+
+    @Query(STATE_COUNTS + "FROM Booking b WHERE b.booker.id = :userId")
+    BookingStateCounts countBookerBookingsByState(@Param("userId") Integer userId, @Param("now") LocalDateTime now);
+
+    @Query(STATE_COUNTS + "FROM Booking b WHERE b.item.owner.id = :ownerId")
+    BookingStateCounts countOwnerBookingsByState(@Param("ownerId") Integer ownerId, @Param("now") LocalDateTime now);
+
+    // Сортировка по статусу при равенстве ничего не меняет, но совпадает с индексом и избавляет H2 от сортировки
+    @Query("SELECT b.id AS id, i.id AS itemId, b.booker.id AS bookerId, i.owner.id AS ownerId, " +
+            "b.start AS start, b.end AS end FROM Booking b JOIN b.item i " +
+            "WHERE b.bookingStatus = 'WAITING' AND b.id > :afterId " +
+            "ORDER BY b.bookingStatus, b.id")
+    List<WaitingBookingView> findWaitingBookingsAfter(@Param("afterId") Integer afterId, Pageable page);
+
+    // Производный exists выбирает одну строку с LIMIT 1 и не считает все бронирования пары
+    boolean existsByItem_IdAndBooker_IdAndEndBefore(Integer itemId, Integer bookerId, LocalDateTime end);
+
+    List<Booking> findByItem_IdAndBookingStatusInAndEndAfter(Integer itemId, Collection<BookingStatus> statuses,
+                                                             LocalDateTime end);
+
+    List<Booking> findByItem_IdInAndBookingStatusInAndEndAfter(Collection<Integer> itemIds,
+                                                               Collection<BookingStatus> statuses,
+                                                               LocalDateTime end);
+
+    /**
+     * Returns at most two rows per item: among the not rejected bookings that started before {@code now} and
+     * ended before {@code lastEndedBefore}, the one that ends last, and the one that starts first after {@code now}.
+     * The item detail view passes a far future bound, so a booking in progress counts as the last one;
+     * the owner listing passes {@code now} and shows only finished bookings there.
+     * The last booking of an item nobody has booked lately may already be in the archive, so it is looked up there too.
+     */
+    @Query(value = "SELECT ranked.item_id AS itemId, ranked.id AS id, " +
+            "ranked.booker_id AS bookerId, ranked.kind AS kind " +
+            "FROM (" +
+            "SELECT ended.item_id, ended.id, ended.booker_id, 'LAST' AS kind, " +
+            "ROW_NUMBER() OVER (PARTITION BY ended.item_id ORDER BY ended.end_date DESC, ended.id DESC) AS rn " +
+            "FROM (" +
+            "SELECT b.item_id, b.id, b.booker_id, b.end_date " +
+            "FROM bookings b " +
+            "WHERE b.item_id IN (:itemIds) AND b.status <> 'REJECTED' " +
+            "AND b.start_date < :now AND b.end_date < :lastEndedBefore " +
+            "UNION ALL " +
+            "SELECT a.item_id, a.id, a.booker_id, a.end_date " +
+            "FROM bookings_archive a " +
+            "WHERE a.item_id IN (:itemIds) AND a.status <> 'REJECTED' " +
+            "AND a.start_date < :now AND a.end_date < :lastEndedBefore" +
+            ") ended " +
+            "UNION ALL " +
+            "SELECT b.item_id, b.id, b.booker_id, 'NEXT' AS kind, " +
+            "ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date ASC, b.id ASC) AS rn " +
+            "FROM bookings b " +
+            "WHERE b.item_id IN (:itemIds) AND b.status <> 'REJECTED' AND b.start_date > :now" +
+            ") ranked " +
+            "WHERE ranked.rn = 1", nativeQuery = true)
+    List<ItemBookingView> findLastAndNextBookingsByItemIds(@Param("itemIds") Collection<Integer> itemIds,
+                                                           @Param("now") LocalDateTime now,
+                                                           @Param("lastEndedBefore") LocalDateTime lastEndedBefore);
 }
\ No newline at end of file
@@ -0,0 +1,235 @@
+package ru.practicum.shareit.booking.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.BookingOverlapException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory calendar of WAITING and APPROVED bookings per item, used to reject overlapping requests
+ * and to answer availability queries without reading bookings.
+ * The schedule of an item is loaded from {@link BookingRepository} on first use and then kept up to date
+ * by booking writes. Checks and updates of one item are serialized by a per-item lock, so two concurrent
+ * requests for the same period cannot both pass. Changes made inside a transaction are undone if it rolls back.
+ * Bookings are half-open periods, one may start exactly when the previous one ends.
+ * Bookings that have ended are dropped when their item takes a new reservation and by a periodic sweep,
+ * so the schedules only grow with upcoming bookings.
+ */
+@Component
+@Slf4j
+public class BookingSchedule {
+    static final Set<BookingStatus> BLOCKING_STATUSES = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final int NO_BOOKING = 0;
+
+    private final BookingRepository bookingRepository;
+    private final Map<Integer, ItemSchedule> schedules = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingSchedule(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Adds the saved booking to its item schedule.
+     *
+     * @throws BookingOverlapException if it overlaps another WAITING or APPROVED booking of the item
+     */
+    public void reserve(Booking booking) {
+        int itemId = booking.getItem().getId();
+        int bookingId = booking.getId();
+        long start = toMillis(booking.getStart());
+        long end = toMillis(booking.getEnd());
+        ItemSchedule schedule = schedules.computeIfAbsent(itemId, key -> new ItemSchedule());
+        schedule.lock.lock();
+        try {
+            seed(itemId, schedule, bookingId);
+            schedule.pruneEndedBefore(toMillis(LocalDateTime.now()));
+            int conflictId = schedule.findOverlap(start, end, bookingId);
+            if (conflictId != -1) {
+                throw new BookingOverlapException("Item " + itemId + " is already booked for this period by booking "
+                        + conflictId);
+            }
+            if (!schedule.contains(bookingId)) {
+                schedule.add(bookingId, start, end);
+                onRollback(() -> withLock(schedule, () -> schedule.remove(bookingId)));
+            }
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops ended bookings from every loaded schedule, including items that take no new reservations.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.schedule.prune-interval-ms:3600000}")
+    public void pruneEnded() {
+        long now = toMillis(LocalDateTime.now());
+        int pruned = 0;
+        for (ItemSchedule schedule : schedules.values()) {
+            schedule.lock.lock();
+            try {
+                pruned += schedule.pruneEndedBefore(now);
+            } finally {
+                schedule.lock.unlock();
+            }
+        }
+        if (pruned > 0) {
+            log.debug("Dropped {} ended bookings from item schedules", pruned);
+        }
+    }
+
+    /**
+     * Frees the period of a booking that no longer blocks its item.
+     */
+    public void release(Booking booking) {
+        release(booking.getItem().getId(), booking.getId(), booking.getStart(), booking.getEnd());
+    }
+
+    /**
+     * Same as {@link #release(Booking)} for callers that have the booking's columns but not the entity.
+     */
+    public void release(int itemId, int bookingId, LocalDateTime startTime, LocalDateTime endTime) {
+        long start = toMillis(startTime);
+        long end = toMillis(endTime);
+        ItemSchedule schedule = schedules.computeIfAbsent(itemId, key -> new ItemSchedule());
+        withLock(schedule, () -> {
+            seed(itemId, schedule, NO_BOOKING);
+            if (schedule.contains(bookingId)) {
+                schedule.remove(bookingId);
+                onRollback(() -> withLock(schedule, () -> schedule.add(bookingId, start, end)));
+            }
+        });
+    }
+
+    /**
+     * Returns the free periods of each item within {@code [from, to)}, at hour granularity:
+     * an hour touched by any WAITING or APPROVED booking is not free. Periods before now are never free.
+     * Schedules not loaded yet are loaded with one query for all of them.
+     */
+    public Map<Integer, List<FreeSlotDto>> findFreeSlots(Collection<Integer> itemIds,
+                                                         LocalDateTime from, LocalDateTime to) {
+        LocalDateTime now = LocalDateTime.now();
+        long fromMillis = toMillis(from.isAfter(now) ? from : now);
+        long toMillis = toMillis(to);
+
+        List<Integer> notSeeded = new ArrayList<>();
+        for (Integer itemId : itemIds) {
+            ItemSchedule schedule = schedules.get(itemId);
+            if (schedule == null || !schedule.isSeeded()) {
+                notSeeded.add(itemId);
+            }
+        }
+        Map<Integer, List<Booking>> loaded = notSeeded.isEmpty() ? Collections.emptyMap()
+                : bookingRepository.findByItem_IdInAndBookingStatusInAndEndAfter(notSeeded, BLOCKING_STATUSES, now)
+                .stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
+
+        Map<Integer, List<FreeSlotDto>> result = new LinkedHashMap<>();
+        for (Integer itemId : itemIds) {
+            ItemSchedule schedule = schedules.computeIfAbsent(itemId, key -> new ItemSchedule());
+            schedule.lock.lock();
+            try {
+                if (!schedule.isSeeded()) {
+                    load(itemId, schedule, loaded.getOrDefault(itemId, Collections.emptyList()), NO_BOOKING);
+                }
+                result.put(itemId, freeSlots(schedule, fromMillis, toMillis));
+            } finally {
+                schedule.lock.unlock();
+            }
+        }
+        return result;
+    }
+
+    private static List<FreeSlotDto> freeSlots(ItemSchedule schedule, long fromMillis, long toMillis) {
+        List<FreeSlotDto> slots = new ArrayList<>();
+        long freeSince = -1;
+        long lastHour = ItemSchedule.endHour(toMillis);
+        for (long hour = ItemSchedule.firstHour(fromMillis); hour < lastHour; hour++) {
+            boolean occupied = schedule.isOccupied(hour);
+            if (!occupied && freeSince == -1) {
+                freeSince = Math.max(hour * ItemSchedule.HOUR_MILLIS, fromMillis);
+            } else if (occupied && freeSince != -1) {
+                slots.add(new FreeSlotDto(toDateTime(freeSince), toDateTime(hour * ItemSchedule.HOUR_MILLIS)));
+                freeSince = -1;
+            }
+        }
+        if (freeSince != -1 && freeSince < toMillis) {
+            slots.add(new FreeSlotDto(toDateTime(freeSince), toDateTime(toMillis)));
+        }
+        return slots;
+    }
+
+    /**
+     * Loads the item's blocking bookings once. The booking being reserved is skipped, the current
+     * transaction already sees it but it must only enter the schedule through {@link #reserve}.
+     */
+    private void seed(int itemId, ItemSchedule schedule, int reservedBookingId) {
+        if (schedule.isSeeded()) {
+            return;
+        }
+        load(itemId, schedule, bookingRepository.findByItem_IdAndBookingStatusInAndEndAfter(
+                itemId, BLOCKING_STATUSES, LocalDateTime.now()), reservedBookingId);
+    }
+
+    private static void load(int itemId, ItemSchedule schedule, List<Booking> bookings, int reservedBookingId) {
+        for (Booking existing : bookings) {
+            if (existing.getId() != reservedBookingId) {
+                schedule.add(existing.getId(), toMillis(existing.getStart()), toMillis(existing.getEnd()));
+            }
+        }
+        schedule.markSeeded();
+        log.debug("Loaded schedule of item {} with {} bookings", itemId, schedule.size());
+    }
+
+    private static void withLock(ItemSchedule schedule, Runnable action) {
+        schedule.lock.lock();
+        try {
+            action.run();
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    private static void onRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    undo.run();
+                }
+            }
+        });
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
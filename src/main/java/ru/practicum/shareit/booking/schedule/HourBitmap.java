@@ -0,0 +1,178 @@
+package ru.practicum.shareit.booking.schedule;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compressed set of hour numbers, organized like a roaring bitmap: hours are split into chunks
+ * of 65536 by their high bits, and each chunk stores its low 16 bits either as a sorted array
+ * while sparse or as a plain bitset once it holds more than {@value #ARRAY_LIMIT} hours.
+ * Not thread-safe, callers hold the lock of the owning {@link ItemSchedule}.
+ */
+final class HourBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int CHUNK_BITS = 16;
+    private static final int LOW_MASK = (1 << CHUNK_BITS) - 1;
+
+    private final Map<Integer, Container> chunks = new HashMap<>();
+
+    void add(long hour) {
+        int key = chunkKey(hour);
+        Container container = chunks.get(key);
+        if (container == null) {
+            container = new ArrayContainer();
+        }
+        chunks.put(key, container.add(low(hour)));
+    }
+
+    void remove(long hour) {
+        int key = chunkKey(hour);
+        Container container = chunks.get(key);
+        if (container == null) {
+            return;
+        }
+        Container updated = container.remove(low(hour));
+        if (updated.cardinality() == 0) {
+            chunks.remove(key);
+        } else {
+            chunks.put(key, updated);
+        }
+    }
+
+    boolean contains(long hour) {
+        Container container = chunks.get(chunkKey(hour));
+        return container != null && container.contains(low(hour));
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (Container container : chunks.values()) {
+            cardinality += container.cardinality();
+        }
+        return cardinality;
+    }
+
+    private static int chunkKey(long hour) {
+        return (int) (hour >>> CHUNK_BITS);
+    }
+
+    private static int low(long hour) {
+        return (int) (hour & LOW_MASK);
+    }
+
+    /**
+     * Set of 16-bit values. Mutators return the container that holds the result,
+     * which may be a new one of the other kind.
+     */
+    private interface Container {
+        Container add(int value);
+
+        Container remove(int value);
+
+        boolean contains(int value);
+
+        int cardinality();
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        public Container add(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, (char) value);
+            if (pos >= 0) {
+                return this;
+            }
+            if (size == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            pos = -pos - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, size * 2));
+            }
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = (char) value;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Container remove(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, (char) value);
+            if (pos >= 0) {
+                System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, (char) value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[(LOW_MASK + 1) / Long.SIZE];
+        private int cardinality;
+
+        @Override
+        public Container add(int value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if ((words[index] & mask) == 0) {
+                words[index] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(int value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if ((words[index] & mask) != 0) {
+                words[index] &= ~mask;
+                cardinality--;
+            }
+            return cardinality > ARRAY_LIMIT ? this : toArray();
+        }
+
+        @Override
+        public boolean contains(int value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        private ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer();
+            for (int index = 0; index < words.length; index++) {
+                long word = words[index];
+                while (word != 0) {
+                    array.add(index * Long.SIZE + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return array;
+        }
+    }
+}
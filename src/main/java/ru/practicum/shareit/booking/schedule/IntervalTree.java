@@ -0,0 +1,171 @@
+package ru.practicum.shareit.booking.schedule;
+
+/**
+ * AVL tree of half-open intervals {@code [start, end)} ordered by start and id,
+ * where every node also keeps the largest end of its subtree.
+ * That lets an overlap check skip whole subtrees, so it costs O(log n).
+ * Not thread-safe, callers hold the lock of the owning {@link ItemSchedule}.
+ */
+final class IntervalTree {
+    private Node root;
+    private int size;
+
+    void insert(int id, long start, long end) {
+        root = insert(root, id, start, end);
+        size++;
+    }
+
+    void remove(int id, long start) {
+        root = remove(root, id, start);
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of an interval overlapping {@code [start, end)} other than {@code excludedId}, or -1 if none.
+     */
+    int findOverlap(long start, long end, int excludedId) {
+        return findOverlap(root, start, end, excludedId);
+    }
+
+    private static int findOverlap(Node node, long start, long end, int excludedId) {
+        if (node == null || node.maxEnd <= start) {
+            return -1;
+        }
+        int found = findOverlap(node.left, start, end, excludedId);
+        if (found != -1) {
+            return found;
+        }
+        if (node.start >= end) {
+            return -1;
+        }
+        if (start < node.end && node.id != excludedId) {
+            return node.id;
+        }
+        return findOverlap(node.right, start, end, excludedId);
+    }
+
+    private static Node insert(Node node, int id, long start, long end) {
+        if (node == null) {
+            return new Node(id, start, end);
+        }
+        if (compare(start, id, node) < 0) {
+            node.left = insert(node.left, id, start, end);
+        } else {
+            node.right = insert(node.right, id, start, end);
+        }
+        return balance(node);
+    }
+
+    private static Node remove(Node node, int id, long start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, id, start);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, id, start);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private static Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.id);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+        private final int id;
+        private final long start;
+        private final long end;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(int id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
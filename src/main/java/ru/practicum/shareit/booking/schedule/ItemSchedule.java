@@ -0,0 +1,102 @@
+package ru.practicum.shareit.booking.schedule;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocking bookings of one item: an interval tree for exact overlap checks and an hourly
+ * occupancy bitmap for calendars. All access goes through {@link #lock}.
+ */
+final class ItemSchedule {
+    static final long HOUR_MILLIS = 3_600_000L;
+
+    final ReentrantLock lock = new ReentrantLock();
+    private final IntervalTree tree = new IntervalTree();
+    private final HourBitmap occupiedHours = new HourBitmap();
+    private final Map<Integer, long[]> intervals = new HashMap<>();
+    // Пары (end, bookingId) по возрастанию конца; снятые бронирования остаются здесь до своего конца
+    private final PriorityQueue<long[]> ends = new PriorityQueue<>(Comparator.comparingLong(pair -> pair[0]));
+    private volatile boolean seeded;
+
+    boolean isSeeded() {
+        return seeded;
+    }
+
+    void markSeeded() {
+        seeded = true;
+    }
+
+    boolean contains(int bookingId) {
+        return intervals.containsKey(bookingId);
+    }
+
+    int findOverlap(long start, long end, int excludedId) {
+        return tree.findOverlap(start, end, excludedId);
+    }
+
+    /**
+     * Returns whether any booking covers part of the hour.
+     */
+    boolean isOccupied(long hour) {
+        return occupiedHours.contains(hour);
+    }
+
+    void add(int bookingId, long start, long end) {
+        if (intervals.putIfAbsent(bookingId, new long[]{start, end}) != null) {
+            return;
+        }
+        tree.insert(bookingId, start, end);
+        ends.add(new long[]{end, bookingId});
+        for (long hour = firstHour(start); hour < endHour(end); hour++) {
+            occupiedHours.add(hour);
+        }
+    }
+
+    void remove(int bookingId) {
+        long[] interval = intervals.remove(bookingId);
+        if (interval == null) {
+            return;
+        }
+        tree.remove(bookingId, interval[0]);
+        // Соседние бронирования могут делить с удаленным крайние часы, такие часы остаются занятыми
+        for (long hour = firstHour(interval[0]); hour < endHour(interval[1]); hour++) {
+            if (tree.findOverlap(hour * HOUR_MILLIS, (hour + 1) * HOUR_MILLIS, -1) == -1) {
+                occupiedHours.remove(hour);
+            }
+        }
+    }
+
+    /**
+     * Drops the bookings that ended before {@code now}: new bookings cannot start in the past,
+     * so they can no longer overlap anything. Returns the number of bookings dropped.
+     */
+    int pruneEndedBefore(long now) {
+        int pruned = 0;
+        while (!ends.isEmpty() && ends.peek()[0] < now) {
+            long[] ended = ends.poll();
+            int bookingId = (int) ended[1];
+            long[] interval = intervals.get(bookingId);
+            // Запись могла устареть: бронирование сняли или вернули с другим периодом
+            if (interval != null && interval[1] == ended[0]) {
+                remove(bookingId);
+                pruned++;
+            }
+        }
+        return pruned;
+    }
+
+    int size() {
+        return intervals.size();
+    }
+
+    static long firstHour(long millis) {
+        return Math.floorDiv(millis, HOUR_MILLIS);
+    }
+
+    static long endHour(long millis) {
+        return Math.floorDiv(millis + HOUR_MILLIS - 1, HOUR_MILLIS);
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
@@ -9,38 +10,83 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.ArchivedBookingCounts;
+import ru.practicum.shareit.booking.dto.BookingBatchDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingOwnershipView;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.expiry.WaitingBookingExpiry;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
+import ru.practicum.shareit.booking.stream.BookingStatusChangedEvent;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
 import javax.validation.ValidationException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class BookingService {
+    // Позиция перед первой страницей: любое бронирование идёт после неё в порядке (start DESC, id DESC)
+    /**
+     * The deepest {@code from} of the offset listings. Each offset page of ALL, PAST, WAITING and REJECTED reads
+     * {@code from + size} rows from both the hot table and the archive, so deeper pages go through the cursor ones.
+     */
+    public static final int MAX_OFFSET = 10_000;
+    private static final LocalDateTime FIRST_PAGE_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final Comparator<BookingResponseDto> NEWEST_FIRST = Comparator
+            .comparing(BookingResponseDto::getStart)
+            .thenComparing(BookingResponseDto::getId)
+            .reversed();
 
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final UserStorage userStorage;
     private final ItemStorage itemStorage;
     private final BookingMapper bookingMapper;
+    private final BookingSchedule bookingSchedule;
+    private final BookingSummaryCache bookingSummaryCache;
+    private final WaitingBookingExpiry waitingBookingExpiry;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public BookingService(BookingRepository bookingRepository, UserStorage userStorage, ItemStorage itemStorage, BookingMapper bookingMapper) {
+    public BookingService(BookingRepository bookingRepository, ArchivedBookingRepository archivedBookingRepository,
+                          UserStorage userStorage, ItemStorage itemStorage, BookingMapper bookingMapper,
+                          BookingSchedule bookingSchedule, BookingSummaryCache bookingSummaryCache,
+                          WaitingBookingExpiry waitingBookingExpiry, ApplicationEventPublisher eventPublisher) {
         this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
         this.userStorage = userStorage;
         this.itemStorage = itemStorage;
         this.bookingMapper = bookingMapper;
+        this.bookingSchedule = bookingSchedule;
+        this.bookingSummaryCache = bookingSummaryCache;
+        this.waitingBookingExpiry = waitingBookingExpiry;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional()
@@ -54,29 +100,87 @@ public class BookingService {
         if (Objects.equals(bookedItem.getOwner().getId(), bookerId)) {
             throw new IllegalAccessForUserException("Item owner is not be booker");
         }
-        if (!bookedItem.getAvailable()) {
+        // Предмет, снятый с выдачи на время идущего бронирования, можно бронировать на другие даты:
+        // пересечения отсекает расписание
+        if (!bookedItem.getAvailable() && !bookedItem.isBookingHold()) {
             throw new ItemNotAvailableException("Item status is not available");
         }
         Booking bookingAfterMap = bookingMapper.bookingFromDto(bookingDto, booker, bookedItem);
         Booking savedBooking = bookingRepository.save(bookingAfterMap);
+        // Пересечение проверяется после вставки: при отказе транзакция откатит и новую запись
+        bookingSchedule.reserve(savedBooking);
+        waitingBookingExpiry.track(savedBooking);
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(savedBooking.getId(), bookedItem.getId(), bookerId,
+                bookedItem.getOwner().getId(), BookingStatus.WAITING));
         return bookingMapper.toBookingResponseDto(savedBooking);
     }
 
     @Transactional()
     public BookingResponseDto updateBooking(Integer bookingId, Integer ownerId, Boolean approved) {
-        Booking booking = bookingRepository.findBookingByIdWithItemAndBookerEagerly(bookingId);
-        if (!Objects.equals(booking.getItem().getOwner().getId(), ownerId)) {
-            throw new IllegalAccessForUserException("Only the owner can update the booking status");
-        }
         BookingStatus newStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
-        if (booking.getBookingStatus().equals(newStatus)) {
-            throw new ValidationException("Booking status in the request is equal to the status in the database");
+        // Решение принимается одним условным UPDATE: из двух одновременных решений проходит только первое
+        if (bookingRepository.decideWaitingBooking(bookingId, ownerId, newStatus) == 0) {
+            // Граф с предметом и владельцем нужен только для того, чтобы объяснить отказ
+            throw decisionFailure(bookingRepository.findBookingByIdWithItemAndBookerEagerly(bookingId), bookingId,
+                    ownerId, newStatus);
+        }
+        // Бронирование читается по первичному ключу, а предмет и бронирующий приходят из кэша второго уровня
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new BookingNotExistsException("Booking not exist"));
+        if (newStatus == BookingStatus.REJECTED) {
+            bookingSchedule.release(booking);
         }
-        booking.setBookingStatus(newStatus);
-        bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(bookingId, booking.getItem().getId(),
+                booking.getBooker().getId(), ownerId, newStatus));
         return bookingMapper.toBookingResponseDto(booking);
     }
 
+    @Transactional()
+    public List<BookingDecisionDto> decideBookings(Integer ownerId, BookingBatchDecisionDto decision) {
+        log.info("Attempt to decide {} bookings by owner with ID = {}", decision.getBookingIds().size(), ownerId);
+        userStorage.findById(ownerId)
+                .orElseThrow((() -> new UserNotExistsException("User not exists")));
+        BookingStatus newStatus = decision.getApproved() ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        Set<Integer> bookingIds = new LinkedHashSet<>(decision.getBookingIds());
+
+        // Владелец и статус всех бронирований проверяются одним запросом, а не по одному на id
+        Map<Integer, BookingOwnershipView> owned = new HashMap<>();
+        for (BookingOwnershipView view : bookingRepository.findOwnershipByIdIn(bookingIds)) {
+            if (Objects.equals(view.getOwnerId(), ownerId)) {
+                owned.put(view.getId(), view);
+            }
+        }
+        // Строки обновляются по возрастанию id, чтобы встречные пакеты блокировали их в одном порядке
+        List<Integer> waitingIds = owned.values().stream()
+                .filter(view -> view.getStatus() == BookingStatus.WAITING)
+                .map(BookingOwnershipView::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        Set<Integer> decided = waitingIds.isEmpty()
+                ? Set.of()
+                : bookingRepository.decideWaitingBookings(waitingIds, newStatus);
+
+        List<BookingDecisionDto> results = new ArrayList<>(bookingIds.size());
+        for (Integer bookingId : bookingIds) {
+            BookingOwnershipView view = owned.get(bookingId);
+            if (view == null) {
+                results.add(new BookingDecisionDto(bookingId, BookingDecisionDto.Outcome.NOT_FOUND, null));
+            } else if (decided.contains(bookingId)) {
+                if (newStatus == BookingStatus.REJECTED) {
+                    bookingSchedule.release(view.getItemId(), bookingId, view.getStart(), view.getEnd());
+                }
+                eventPublisher.publishEvent(new BookingStatusChangedEvent(bookingId, view.getItemId(),
+                        view.getBookerId(), ownerId, newStatus));
+                results.add(new BookingDecisionDto(bookingId, BookingDecisionDto.Outcome.DECIDED, newStatus));
+            } else {
+                // WAITING здесь значит, что бронирование успело решить другое обращение, и статус неизвестен
+                BookingStatus status = view.getStatus() == BookingStatus.WAITING ? null : view.getStatus();
+                results.add(new BookingDecisionDto(bookingId, BookingDecisionDto.Outcome.ALREADY_DECIDED, status));
+            }
+        }
+        return results;
+    }
+
     @Transactional(readOnly = true)
     public BookingResponseDto getBookingById(Integer bookingId, Integer userId) {
         Booking booking = bookingRepository.findBookingByIdWithItemAndBookerEagerly(bookingId);
@@ -93,8 +197,7 @@ public class BookingService {
 
     @Transactional(readOnly = true)
     public List<BookingResponseDto> getBookingByUser(String state, Integer userId, Integer from, Integer size) {
-        int pageNumber = from / size;
-        Pageable page = PageRequest.of(pageNumber, size);
+        Pageable page = offsetPage(from, size);
 
         BookingState bookingState;
         try {
@@ -105,25 +208,32 @@ public class BookingService {
         userStorage.findById(userId)
                 .orElseThrow((() -> new UserNotExistsException("User not exists with id: " + userId)));
 
+        LocalDateTime now = LocalDateTime.now();
         switch (bookingState) {
             case ALL:
-                Slice<Booking> sortedBookings = bookingRepository.findAllBookingsWithItemAndBookerSortedByStartDateDesc(userId, page);
-                return bookingMapper.toBookingDtoList(sortedBookings.getContent());
+                return withArchive(page,
+                        head -> bookingRepository.findAllBookingsWithItemAndBookerSortedByStartDateDesc(userId, head),
+                        head -> archivedBookingRepository.findBookerBookings(userId, head));
             case CURRENT:
-                Slice<Booking> currentBookings = bookingRepository.findAllCurrentBookingsWithItemAndBooker(page);
+                Slice<Booking> currentBookings = bookingRepository.findBookerCurrentBookings(userId, now, page);
                 return bookingMapper.toBookingDtoList(currentBookings.getContent());
             case PAST:
-                Slice<Booking> pastBookings = bookingRepository.findAllPastBookingsWithItemAndBooker(page);
-                return bookingMapper.toBookingDtoList(pastBookings.getContent());
+                return withArchive(page,
+                        head -> bookingRepository.findBookerPastBookings(userId, now, head),
+                        head -> archivedBookingRepository.findBookerBookings(userId, head));
             case FUTURE:
-                Slice<Booking> futureBookings = bookingRepository.findAllFutureBookingsWithItemAndBooker(page);
+                Slice<Booking> futureBookings = bookingRepository.findBookerFutureBookings(userId, now, page);
                 return bookingMapper.toBookingDtoList(futureBookings.getContent());
             case WAITING:
-                Slice<Booking> waitingBookings = bookingRepository.findWaitingBookingsSortedByStartDateDesc(page);
-                return bookingMapper.toBookingDtoList(waitingBookings.getContent());
+                return withArchive(page,
+                        head -> bookingRepository.findBookerWaitingBookings(userId, head),
+                        head -> archivedBookingRepository.findBookerBookingsByStatus(userId, BookingStatus.WAITING,
+                                head));
             case REJECTED:
-                Slice<Booking> rejectedBookings = bookingRepository.findRejectedBookingsSortedByStartDateDesc(userId, page);
-                return bookingMapper.toBookingDtoList(rejectedBookings.getContent());
+                return withArchive(page,
+                        head -> bookingRepository.findRejectedBookingsSortedByStartDateDesc(userId, head),
+                        head -> archivedBookingRepository.findBookerBookingsByStatus(userId, BookingStatus.REJECTED,
+                                head));
             default:
                 throw new UnsupportedStatusException("Unknown state: " + state);
         }
@@ -131,7 +241,7 @@ public class BookingService {
 
     @Transactional(readOnly = true)
     public List<BookingResponseDto> getBookingByOwner(String state, Integer ownerId, Integer from, Integer size) {
-        Pageable page = PageRequest.of(from, size);
+        Pageable page = offsetPage(from, size);
         BookingState bookingState;
         try {
             bookingState = BookingState.valueOf(state);
@@ -145,25 +255,262 @@ public class BookingService {
         LocalDateTime now = LocalDateTime.now();
         switch (bookingState) {
             case ALL:
-                Slice<Booking> orderedBookings = bookingRepository.findByItem_Owner_IdOrderByStartDesc(ownerId, page);
-                return bookingMapper.toBookingDtoList(orderedBookings.getContent());
+                return withArchive(page,
+                        head -> bookingRepository.findByItem_Owner_IdOrderByStartDesc(ownerId, head),
+                        head -> archivedBookingRepository.findOwnerBookings(ownerId, head));
             case CURRENT:
-                Slice<Booking> bookings = bookingRepository.findByItem_Owner_IdAndStartBeforeAndEndAfterOrderByStartDesc(ownerId, now, now, page);
+                Slice<Booking> bookings = bookingRepository.findOwnerCurrentBookings(ownerId, now, page);
                 return bookingMapper.toBookingDtoList(bookings.getContent());
             case PAST:
-                Slice<Booking> pastBookings = bookingRepository.findAllPastBookingsWithItemAndBooker(page);
-                return bookingMapper.toBookingDtoList(pastBookings.getContent());
+                return withArchive(page,
+                        head -> bookingRepository.findOwnerPastBookings(ownerId, now, head),
+                        head -> archivedBookingRepository.findOwnerBookings(ownerId, head));
             case FUTURE:
-                Slice<Booking> futureBookings = bookingRepository.findAllFutureBookingsWithItemAndBooker(page);
+                Slice<Booking> futureBookings = bookingRepository.findOwnerFutureBookings(ownerId, now, page);
                 return bookingMapper.toBookingDtoList(futureBookings.getContent());
             case WAITING:
-                Slice<Booking> waitingBookings = bookingRepository.findWaitingBookingsSortedByStartDateDesc(page);
-                return bookingMapper.toBookingDtoList(waitingBookings.getContent());
+                return withArchive(page,
+                        head -> bookingRepository.findOwnerWaitingBookings(ownerId, head),
+                        head -> archivedBookingRepository.findOwnerBookingsByStatus(ownerId, BookingStatus.WAITING,
+                                head));
+            case REJECTED:
+                return withArchive(page,
+                        head -> bookingRepository.findRejectedBookingsByOwnerSortedByStartDateDesc(ownerId, head),
+                        head -> archivedBookingRepository.findOwnerBookingsByStatus(ownerId, BookingStatus.REJECTED,
+                                head));
+            default:
+                throw new UnsupportedStatusException("Unknown state: " + state);
+        }
+    }
+
+    /**
+     * Keyset variant of {@link #getBookingByUser}: returns the page after the cursor, or the first page
+     * for an empty cursor, with a cursor to the next page if there is one.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BookingResponseDto> getBookingPageByUser(String state, Integer userId, String cursor,
+                                                               Integer size) {
+        BookingState bookingState = parseState(state);
+        Pageable page = keysetPage(size);
+        userStorage.findById(userId)
+                .orElseThrow((() -> new UserNotExistsException("User not exists with id: " + userId)));
+
+        LocalDateTime cursorStart = FIRST_PAGE_START;
+        Integer cursorId = Integer.MAX_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = Cursors.decode(cursor, 2);
+            cursorStart = parseCursorStart(keys[0], cursor);
+            cursorId = parseCursorId(keys[1], cursor);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Slice<Booking> bookings;
+        switch (bookingState) {
+            case ALL:
+                return toCursorPage(page,
+                        bookingRepository.findBookerBookingsBefore(userId, cursorStart, cursorId, page),
+                        archivedBookingRepository.findBookerBookingsBefore(userId, cursorStart, cursorId, page));
+            case CURRENT:
+                bookings = bookingRepository.findBookerCurrentBookingsBefore(userId, now, cursorStart, cursorId, page);
+                break;
+            case PAST:
+                return toCursorPage(page,
+                        bookingRepository.findBookerPastBookingsBefore(userId, now, cursorStart, cursorId, page),
+                        archivedBookingRepository.findBookerBookingsBefore(userId, cursorStart, cursorId, page));
+            case FUTURE:
+                bookings = bookingRepository.findBookerFutureBookingsBefore(userId, now, cursorStart, cursorId, page);
+                break;
+            case WAITING:
+                return toCursorPage(page,
+                        bookingRepository.findBookerWaitingBookingsBefore(userId, cursorStart, cursorId, page),
+                        archivedBookingRepository.findBookerBookingsByStatusBefore(userId, BookingStatus.WAITING,
+                                cursorStart, cursorId, page));
+            case REJECTED:
+                return toCursorPage(page,
+                        bookingRepository.findBookerRejectedBookingsBefore(userId, cursorStart, cursorId, page),
+                        archivedBookingRepository.findBookerBookingsByStatusBefore(userId, BookingStatus.REJECTED,
+                                cursorStart, cursorId, page));
+            default:
+                throw new UnsupportedStatusException("Unknown state: " + state);
+        }
+        return toCursorPage(bookings);
+    }
+
+    /**
+     * Keyset variant of {@link #getBookingByOwner}, see {@link #getBookingPageByUser}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BookingResponseDto> getBookingPageByOwner(String state, Integer ownerId, String cursor,
+                                                                Integer size) {
+        BookingState bookingState = parseState(state);
+        Pageable page = keysetPage(size);
+        userStorage.findById(ownerId)
+                .orElseThrow((() -> new UserNotExistsException("User not exists with id: " + ownerId)));
+
+        LocalDateTime cursorStart = FIRST_PAGE_START;
+        Integer cursorId = Integer.MAX_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = Cursors.decode(cursor, 2);
+            cursorStart = parseCursorStart(keys[0], cursor);
+            cursorId = parseCursorId(keys[1], cursor);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Slice<Booking> bookings;
+        switch (bookingState) {
+            case ALL:
+                return toCursorPage(page,
+                        bookingRepository.findOwnerBookingsBefore(ownerId, cursorStart, cursorId, page),
+                        archivedBookingRepository.findOwnerBookingsBefore(ownerId, cursorStart, cursorId, page));
+            case CURRENT:
+                bookings = bookingRepository.findOwnerCurrentBookingsBefore(ownerId, now, cursorStart, cursorId, page);
+                break;
+            case PAST:
+                return toCursorPage(page,
+                        bookingRepository.findOwnerPastBookingsBefore(ownerId, now, cursorStart, cursorId, page),
+                        archivedBookingRepository.findOwnerBookingsBefore(ownerId, cursorStart, cursorId, page));
+            case FUTURE:
+                bookings = bookingRepository.findOwnerFutureBookingsBefore(ownerId, now, cursorStart, cursorId, page);
+                break;
+            case WAITING:
+                return toCursorPage(page,
+                        bookingRepository.findOwnerWaitingBookingsBefore(ownerId, cursorStart, cursorId, page),
+                        archivedBookingRepository.findOwnerBookingsByStatusBefore(ownerId, BookingStatus.WAITING,
+                                cursorStart, cursorId, page));
             case REJECTED:
-                Slice<Booking> rejectedBookings = bookingRepository.findRejectedBookingsByOwnerSortedByStartDateDesc(ownerId, page);
-                return bookingMapper.toBookingDtoList(rejectedBookings.getContent());
+                return toCursorPage(page,
+                        bookingRepository.findOwnerRejectedBookingsBefore(ownerId, cursorStart, cursorId, page),
+                        archivedBookingRepository.findOwnerBookingsByStatusBefore(ownerId, BookingStatus.REJECTED,
+                                cursorStart, cursorId, page));
             default:
                 throw new UnsupportedStatusException("Unknown state: " + state);
         }
+        return toCursorPage(bookings);
+    }
+
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getBookingSummaryByUser(Integer userId) {
+        userStorage.findById(userId)
+                .orElseThrow((() -> new UserNotExistsException("User not exists with id: " + userId)));
+        // Все счётчики считаются одним проходом по бронированиям пользователя, а не запросом на каждое состояние
+        return bookingSummaryCache.get(BookingSummaryCache.Role.BOOKER, userId, () -> withArchived(
+                bookingMapper.toBookingSummaryDto(
+                        bookingRepository.countBookerBookingsByState(userId, LocalDateTime.now())),
+                archivedBookingRepository.countBookerBookings(userId)));
+    }
+
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getBookingSummaryByOwner(Integer ownerId) {
+        userStorage.findById(ownerId)
+                .orElseThrow((() -> new UserNotExistsException("User not exists with id: " + ownerId)));
+        return bookingSummaryCache.get(BookingSummaryCache.Role.OWNER, ownerId, () -> withArchived(
+                bookingMapper.toBookingSummaryDto(
+                        bookingRepository.countOwnerBookingsByState(ownerId, LocalDateTime.now())),
+                archivedBookingRepository.countOwnerBookings(ownerId)));
+    }
+
+    private static RuntimeException decisionFailure(Booking booking, Integer bookingId, Integer ownerId,
+                                                    BookingStatus newStatus) {
+        if (booking == null) {
+            return new BookingNotExistsException("Booking not exist");
+        }
+        if (!Objects.equals(booking.getItem().getOwner().getId(), ownerId)) {
+            return new IllegalAccessForUserException("Only the owner can update the booking status");
+        }
+        if (booking.getBookingStatus() == newStatus) {
+            return new ValidationException("Booking status in the request is equal to the status in the database");
+        }
+        return new BookingStatusConflictException("Booking " + bookingId + " is already " + booking.getBookingStatus());
+    }
+
+    private BookingState parseState(String state) {
+        try {
+            return BookingState.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedStatusException("Unknown state: " + state);
+        }
+    }
+
+    private static Pageable offsetPage(Integer from, Integer size) {
+        if (from > MAX_OFFSET) {
+            throw new ValidationException("Parameter from must not exceed " + MAX_OFFSET +
+                    ", use the cursor parameter to page further");
+        }
+        return PageRequest.of(from / size, size);
+    }
+
+    private static Pageable keysetPage(Integer size) {
+        if (size == null || size < 1) {
+            throw new ValidationException("Page size must be positive");
+        }
+        // Смещение всегда нулевое: позицию задаёт курсор, Slice дочитывает одну строку для hasNext
+        return PageRequest.of(0, size);
+    }
+
+    private CursorPage<BookingResponseDto> toCursorPage(Slice<Booking> bookings) {
+        List<Booking> content = bookings.getContent();
+        String nextCursor = null;
+        if (bookings.hasNext() && !content.isEmpty()) {
+            Booking last = content.get(content.size() - 1);
+            nextCursor = Cursors.encode(last.getStart(), last.getId());
+        }
+        return new CursorPage<>(bookingMapper.toBookingDtoList(content), nextCursor);
+    }
+
+    /**
+     * ALL, PAST, WAITING and REJECTED bookings are split between the hot table and the archive, and their start
+     * dates interleave, so the page is cut from the merged heads of both tables.
+     */
+    private List<BookingResponseDto> withArchive(Pageable page, Function<Pageable, Slice<Booking>> recent,
+                                                 Function<Pageable, Slice<ArchivedBooking>> archived) {
+        // Начало каждой таблицы длиной from + size ограничено MAX_OFFSET, поэтому помещается в int
+        Pageable head = PageRequest.of(0, Math.toIntExact(page.getOffset() + page.getPageSize()));
+        return merge(recent.apply(head), archived.apply(head)).stream()
+                .skip(page.getOffset())
+                .limit(page.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    private CursorPage<BookingResponseDto> toCursorPage(Pageable page, Slice<Booking> recent,
+                                                        Slice<ArchivedBooking> archived) {
+        List<BookingResponseDto> merged = merge(recent, archived);
+        List<BookingResponseDto> content = merged.subList(0, Math.min(page.getPageSize(), merged.size()));
+        boolean hasNext = recent.hasNext() || archived.hasNext() || merged.size() > content.size();
+        String nextCursor = null;
+        if (hasNext && !content.isEmpty()) {
+            BookingResponseDto last = content.get(content.size() - 1);
+            nextCursor = Cursors.encode(last.getStart(), last.getId());
+        }
+        return new CursorPage<>(new ArrayList<>(content), nextCursor);
+    }
+
+    private List<BookingResponseDto> merge(Slice<Booking> recent, Slice<ArchivedBooking> archived) {
+        List<BookingResponseDto> merged = new ArrayList<>(bookingMapper.toBookingDtoList(recent.getContent()));
+        merged.addAll(bookingMapper.toArchivedBookingDtoList(archived.getContent()));
+        merged.sort(NEWEST_FIRST);
+        return merged;
+    }
+
+    private static BookingSummaryDto withArchived(BookingSummaryDto summary, ArchivedBookingCounts archived) {
+        // Архивные бронирования закончились, поэтому они входят и в ALL, и в PAST
+        summary.setAll(summary.getAll() + archived.getAllCount());
+        summary.setPast(summary.getPast() + archived.getAllCount());
+        summary.setWaiting(summary.getWaiting() + archived.getWaitingCount());
+        summary.setRejected(summary.getRejected() + archived.getRejectedCount());
+        return summary;
+    }
+
+    private static LocalDateTime parseCursorStart(String key, String cursor) {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
+    }
+
+    private static Integer parseCursorId(String key, String cursor) {
+        try {
+            return Integer.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
     }
-}
\ No newline at end of file
+}
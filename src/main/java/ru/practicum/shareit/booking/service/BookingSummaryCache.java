@@ -0,0 +1,98 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the booking counters of each booker and owner for a few seconds, so a dashboard that polls them
+ * does not run the aggregate query on every refresh. Entries are not invalidated by writes: counters may lag
+ * behind by up to the TTL. A TTL of zero turns the cache off.
+ */
+@Component
+public class BookingSummaryCache {
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingSummaryCache(@Value("${shareit.booking.summary.cache-ttl-seconds:5}") long ttlSeconds) {
+        this(TimeUnit.SECONDS.toNanos(ttlSeconds), System::nanoTime);
+    }
+
+    BookingSummaryCache(long ttlNanos, LongSupplier clock) {
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+    }
+
+    public BookingSummaryDto get(Role role, Integer userId, Supplier<BookingSummaryDto> loader) {
+        if (ttlNanos <= 0) {
+            return loader.get();
+        }
+        Key key = new Key(role, userId);
+        long now = clock.getAsLong();
+        Entry cached = entries.get(key);
+        if (cached != null && now - cached.loadedAt < ttlNanos) {
+            return cached.summary;
+        }
+        BookingSummaryDto summary = loader.get();
+        // Устаревшие записи вычищаются, только когда их накопилось много, чтобы не обходить карту на каждом промахе
+        if (entries.size() >= PURGE_THRESHOLD) {
+            entries.values().removeIf(entry -> now - entry.loadedAt >= ttlNanos);
+        }
+        entries.put(key, new Entry(summary, now));
+        return summary;
+    }
+
+    public enum Role {
+        BOOKER,
+        OWNER
+    }
+
+    private static final class Key {
+        private final Role role;
+        private final Integer userId;
+
+        private Key(Role role, Integer userId) {
+            this.role = role;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return role == key.role && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(role, userId);
+        }
+    }
+
+    private static final class Entry {
+        private final BookingSummaryDto summary;
+        private final long loadedAt;
+
+        private Entry(BookingSummaryDto summary, long loadedAt) {
+            this.summary = summary;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.exception.UserNotExistsException;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Pushes booking status changes to the booker and the item owner over Server-Sent Events.
+ * <p>
+ * A subscription is an {@link SseEmitter}: the servlet request is switched to async mode and its thread goes back
+ * to the pool, so an idle connection costs only the emitter kept here. Events published by BookingService are
+ * delivered once their transaction commits, so the request that changed the booking never waits for a client.
+ * Writes to a client block, so they are spread over {@code senders} threads, each with its own bounded queue,
+ * and all the writes to one user go through the same thread: a slow client delays only the users sharing
+ * its sender, and once that queue fills up their events are dropped rather than queued without bound.
+ * A periodic comment, written by each sender thread to its own users, keeps idle connections from being
+ * closed by proxies and finds the ones the client has already left.
+ * <p>
+ * Metrics: {@code shareit.booking.stream.connections} is the number of open subscriptions,
+ * {@code shareit.booking.stream.events} counts events sent to subscribers and
+ * {@code shareit.booking.stream.dropped} the deliveries lost to a full sender queue.
+ */
+@Slf4j
+@Component
+public class BookingEventStream {
+    static final String EVENT_NAME = "booking-status";
+
+    private final UserStorage userStorage;
+    private final long timeoutMillis;
+    private final List<Executor> senders;
+    private final ConcurrentHashMap<Integer, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter eventsSent;
+    private final Counter eventsDropped;
+
+    @Autowired
+    public BookingEventStream(UserStorage userStorage, MeterRegistry meterRegistry,
+                              @Value("${shareit.booking.stream.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${shareit.booking.stream.senders:4}") int senders,
+                              @Value("${shareit.booking.stream.queue-capacity:10000}") int queueCapacity) {
+        this(userStorage, meterRegistry, timeoutMillis, IntStream.range(0, senders)
+                .mapToObj(index -> sender(index, queueCapacity))
+                .collect(Collectors.toList()));
+    }
+
+    BookingEventStream(UserStorage userStorage, MeterRegistry meterRegistry, long timeoutMillis,
+                       List<Executor> senders) {
+        this.userStorage = userStorage;
+        this.timeoutMillis = timeoutMillis;
+        this.senders = senders;
+        this.eventsSent = Counter.builder("shareit.booking.stream.events")
+                .description("Booking status events sent to subscribers")
+                .register(meterRegistry);
+        this.eventsDropped = Counter.builder("shareit.booking.stream.dropped")
+                .description("Booking status deliveries dropped because the sender queue was full")
+                .register(meterRegistry);
+        Gauge.builder("shareit.booking.stream.connections", connections, AtomicInteger::get)
+                .description("Open booking status subscriptions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a subscription to the status changes of the bookings the user made or received.
+     */
+    public SseEmitter subscribe(Integer userId) {
+        if (!userStorage.existsById(userId)) {
+            throw new UserNotExistsException("User not exists with id: " + userId);
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        // Набор меняется внутри compute, чтобы одновременная отписка не удалила его вместе с новым эмиттером
+        subscribers.compute(userId, (id, emitters) -> {
+            Set<SseEmitter> subscribed = emitters == null ? ConcurrentHashMap.newKeySet() : emitters;
+            subscribed.add(emitter);
+            return subscribed;
+        });
+        connections.incrementAndGet();
+        // Завершение, тайм-аут и ошибка приходят из контейнера, подписка убирается в любом из этих случаев
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(() -> unsubscribe(userId, emitter));
+        emitter.onError(error -> unsubscribe(userId, emitter));
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        deliver(event.getBookerId(), event);
+        if (!Objects.equals(event.getOwnerId(), event.getBookerId())) {
+            deliver(event.getOwnerId(), event);
+        }
+    }
+
+    /**
+     * Queues a heartbeat for every sender thread; the scheduler thread shared with the other jobs never writes
+     * to a client itself. A heartbeat that does not fit a queue is skipped, the next one comes soon enough.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (int index = 0; index < senders.size(); index++) {
+            int shard = index;
+            try {
+                senders.get(shard).execute(() -> sendHeartbeat(shard));
+            } catch (RejectedExecutionException e) {
+                log.debug("Booking stream queue {} is full, heartbeat is skipped", shard);
+            }
+        }
+    }
+
+    int connectionCount() {
+        return connections.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Executor sender : senders) {
+            if (sender instanceof ExecutorService) {
+                ((ExecutorService) sender).shutdownNow();
+            }
+        }
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    private static ThreadPoolExecutor sender(int index, int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "booking-stream-sender-" + index);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Все записи одному пользователю идут через один поток, поэтому его события приходят по порядку
+    private int shardOf(Integer userId) {
+        return Math.floorMod(userId, senders.size());
+    }
+
+    private void deliver(Integer userId, BookingStatusChangedEvent event) {
+        // Пользователю без подписки нечего отправлять, и место в очереди на него не тратится
+        if (userId == null || !subscribers.containsKey(userId)) {
+            return;
+        }
+        try {
+            senders.get(shardOf(userId)).execute(() -> send(userId, event));
+        } catch (RejectedExecutionException e) {
+            eventsDropped.increment();
+            log.debug("Booking stream queue is full, event for booking {} to user {} is dropped",
+                    event.getBookingId(), userId);
+        }
+    }
+
+    private void sendHeartbeat(int shard) {
+        subscribers.forEach((userId, emitters) -> {
+            if (shardOf(userId) != shard) {
+                return;
+            }
+            emitters.forEach(emitter -> {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    drop(userId, emitter);
+                }
+            });
+        });
+    }
+
+    private void send(Integer userId, BookingStatusChangedEvent event) {
+        Set<SseEmitter> emitters = subscribers.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(EVENT_NAME)
+                        .id(String.valueOf(event.getBookingId()))
+                        .data(event));
+                eventsSent.increment();
+            } catch (IOException | IllegalStateException e) {
+                // Клиент ушёл, не закрыв соединение: отправка падает, и подписка закрывается здесь
+                drop(userId, emitter);
+            }
+        }
+    }
+
+    private void drop(Integer userId, SseEmitter emitter) {
+        unsubscribe(userId, emitter);
+        emitter.complete();
+    }
+
+    private void unsubscribe(Integer userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
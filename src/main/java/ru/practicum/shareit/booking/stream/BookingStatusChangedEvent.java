@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.booking.BookingStatus;
+
+/**
+ * Published by BookingService when a booking is requested or decided; delivered to the booker and the item owner.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class BookingStatusChangedEvent {
+    private final Integer bookingId;
+    private final Integer itemId;
+    private final Integer bookerId;
+    private final Integer ownerId;
+    private final BookingStatus status;
+}
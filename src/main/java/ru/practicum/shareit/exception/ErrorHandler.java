@@ -31,6 +31,13 @@ public class ErrorHandler {
         return Map.of("Error: This user is not owner for this item", "try again");
     }
 
+    @ExceptionHandler({BookingOverlapException.class, BookingStatusConflictException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleConflict(final RuntimeException e) {
+        log.error("Invoke exception: " + e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
     @ExceptionHandler({ValidationException.class,
             EndTimeBeforeStartException.class,
             ItemNotAvailableException.class
@@ -41,9 +48,9 @@ public class ErrorHandler {
         return Map.of("Error: Validation exception", "try again");
     }
 
-    @ExceptionHandler(UnsupportedStatusException.class)
+    @ExceptionHandler({UnsupportedStatusException.class, InvalidCursorException.class})
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
-    public Map<String, String> validationException(UnsupportedStatusException exception) {
+    public Map<String, String> validationException(ValidationException exception) {
         log.error(exception.getMessage());
         return Map.of("error", exception.getMessage());
     }
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.exception;
+
+import javax.validation.ValidationException;
+
+public class InvalidCursorException extends ValidationException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -2,20 +2,29 @@ package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.item.dto.CommentInputDto;
 import ru.practicum.shareit.item.dto.CommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoForOwner;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorResponses;
 import ru.practicum.shareit.validation.OnCreate;
 import ru.practicum.shareit.validation.OnUpdate;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
+@Validated
 @RestController
 @RequestMapping("/items")
 @Slf4j
@@ -52,19 +61,68 @@ public class ItemController {
         return itemService.getItemById(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(
+            @PathVariable int itemId,
+            @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Received GET request for availability of item {}", itemId);
+        return itemService.getAvailability(List.of(itemId), from, to).get(0);
+    }
+
+    @GetMapping("/availability")
+    public List<ItemAvailabilityDto> getAvailability(
+            @RequestParam(value = "ids") List<Integer> itemIds,
+            @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Received GET request for availability of items {}", itemIds);
+        return itemService.getAvailability(itemIds, from, to);
+    }
+
     @GetMapping
-    public List<ItemDtoForOwner> getItemsByUserId(@RequestHeader(HEADER_WITH_USER_ID) int userId) {
+    public ResponseEntity<List<ItemDtoForOwner>> getItemsByUserId(
+            @RequestHeader(HEADER_WITH_USER_ID) int userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50", required = false)
+            @Min(value = 1) @Max(value = 500) Integer size) {
         log.info("Received GET request for get items for user by id {}", userId);
-        return itemService.getItemsByUserId(userId);
+        return CursorResponses.withNextCursor(itemService.getItemsByUserId(userId, cursor, size));
     }
 
     @GetMapping("/search")
-    public List<ItemDto> searchItems(@RequestParam(value = "text") String text) {
+    public List<ItemDto> searchItems(
+            @RequestParam(value = "text") String text,
+            @RequestParam(value = "mode", defaultValue = "SUBSTRING", required = false) String mode,
+            @RequestParam(value = "from", defaultValue = "0", required = false) @Min(value = 0) Integer from,
+            @RequestParam(value = "size", defaultValue = "10", required = false)
+            @Min(value = 1) @Max(value = 500) Integer size) {
         if (text.isBlank()) {
             return Collections.emptyList();
         }
         log.info("Received GET request for search items by word - {}", text);
-        return itemService.searchItems(text);
+        return itemService.searchItems(text, mode, from, size);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggestItemNames(
+            @RequestParam(value = "prefix") String prefix,
+            @RequestParam(value = "size", defaultValue = "10", required = false)
+            @Min(value = 1) @Max(value = ItemSearchIndex.MAX_SUGGESTIONS) Integer size) {
+        if (prefix.isBlank()) {
+            return Collections.emptyList();
+        }
+        log.info("Received GET request for suggest item names by prefix - {}", prefix);
+        return itemService.suggestItemNames(prefix, size);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentOutputDto>> getComments(
+            @PathVariable int itemId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20", required = false)
+            @Min(value = 1) @Max(value = 500) Integer size) {
+        log.info("Received GET request for comments of item {}", itemId);
+        return CursorResponses.withNextCursor(itemService.getComments(itemId, cursor, size));
     }
 
     @PostMapping("/{itemId}/comment")
@@ -0,0 +1,182 @@
+package ru.practicum.shareit.item.availability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.HeldItemView;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.matching.RequestMatcher;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Keeps {@code is_available} in step with the approved bookings in progress, replacing the trigger and the
+ * UpdateItemAvailability procedure that schema.sql never creates. An available item is taken out of circulation
+ * while an approved booking of it is in progress and marked with {@code booking_hold}; once no approved booking
+ * is in progress, the held item is brought back. An item the owner withdrew is never held, so it stays withdrawn.
+ * Booking requests for held items are still accepted, overlaps are rejected by BookingSchedule.
+ * <p>
+ * Each run walks the held items and then the bookings in progress by item id, one chunk per short transaction,
+ * and updates the items of a chunk in one JDBC batch. Nothing is remembered between runs: a run after an outage
+ * finds every held item whose bookings have ended since.
+ * Restored items are indexed for search and submitted to RequestMatcher again, as an item update would be.
+ * <p>
+ * Metrics: {@code shareit.item.availability.held} and {@code shareit.item.availability.items} count items taken
+ * out of circulation and made available again, {@code shareit.item.availability.lag} is the time from the end of
+ * an item's last approved booking to the run that restored it and {@code shareit.item.availability.run} the
+ * duration of a run.
+ */
+@Slf4j
+@Component
+public class ItemAvailabilityJob {
+    private final ItemStorage itemStorage;
+    private final ItemSearchIndex searchIndex;
+    private final RequestMatcher requestMatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final Counter itemsHeld;
+    private final Counter itemsRestored;
+    private final Timer lag;
+    private final Timer runTime;
+
+    @Autowired
+    public ItemAvailabilityJob(ItemStorage itemStorage, ItemSearchIndex searchIndex, RequestMatcher requestMatcher,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${shareit.item.availability.enabled:true}") boolean enabled,
+                               @Value("${shareit.item.availability.chunk-size:500}") int chunkSize) {
+        this.itemStorage = itemStorage;
+        this.searchIndex = searchIndex;
+        this.requestMatcher = requestMatcher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.itemsHeld = Counter.builder("shareit.item.availability.held")
+                .description("Items taken out of circulation while an approved booking is in progress")
+                .register(meterRegistry);
+        this.itemsRestored = Counter.builder("shareit.item.availability.items")
+                .description("Items made available again")
+                .register(meterRegistry);
+        this.lag = Timer.builder("shareit.item.availability.lag")
+                .description("Time from the end of an item's last approved booking to the run that restored it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.runTime = Timer.builder("shareit.item.availability.run")
+                .description("Duration of one run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.item.availability.interval-ms:60000}")
+    public void restoreAvailability() {
+        restoreAvailability(LocalDateTime.now());
+    }
+
+    /**
+     * Brings back every held item that no approved booking is using at {@code now}, then holds the available
+     * items that one is. Returns the number of items made available.
+     */
+    public synchronized int restoreAvailability(LocalDateTime now) {
+        if (!enabled) {
+            return 0;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int restored = restore(now);
+        int held = hold(now);
+        sample.stop(runTime);
+        if (restored > 0 || held > 0) {
+            log.info("{} items available again, {} items held for bookings in progress", restored, held);
+        }
+        return restored;
+    }
+
+    private int restore(LocalDateTime now) {
+        int restored = 0;
+        int afterId = 0;
+        Chunk<HeldItemView> chunk;
+        do {
+            int from = afterId;
+            chunk = transactionTemplate.execute(status -> {
+                List<HeldItemView> held = itemStorage.findHeldItemsAfter(now, from, PageRequest.of(0, chunkSize));
+                // Условие в UPDATE проверяется заново: бронирование могли подтвердить между чтением и обновлением
+                return new Chunk<>(held, held.isEmpty() ? Set.of()
+                        : itemStorage.restoreAvailability(ids(held, HeldItemView::getId), now));
+            });
+            if (chunk.read.isEmpty()) {
+                break;
+            }
+            afterId = chunk.read.get(chunk.read.size() - 1).getId();
+            for (HeldItemView item : chunk.read) {
+                if (chunk.changed.contains(item.getId()) && item.getLastEnd() != null) {
+                    lag.record(Duration.between(item.getLastEnd(), now));
+                }
+            }
+            itemsRestored.increment(chunk.changed.size());
+            restored += chunk.changed.size();
+            // Индекс поиска и подбор к запросам обновляются после коммита, чтобы не показать предмет,
+            // доступность которого откатилась
+            itemStorage.findAllById(chunk.changed).forEach(item -> {
+                searchIndex.index(item);
+                requestMatcher.submit(item);
+            });
+        } while (chunk.read.size() == chunkSize);
+        return restored;
+    }
+
+    private int hold(LocalDateTime now) {
+        int held = 0;
+        int afterId = 0;
+        Chunk<Integer> chunk;
+        do {
+            int from = afterId;
+            chunk = transactionTemplate.execute(status -> {
+                List<Integer> inUse = itemStorage.findItemIdsInUseAfter(now, from, PageRequest.of(0, chunkSize));
+                return new Chunk<>(inUse, inUse.isEmpty() ? Set.of()
+                        : itemStorage.holdForBookings(ids(inUse, id -> id), now));
+            });
+            if (chunk.read.isEmpty()) {
+                break;
+            }
+            afterId = chunk.read.get(chunk.read.size() - 1);
+            itemsHeld.increment(chunk.changed.size());
+            held += chunk.changed.size();
+            itemStorage.findAllById(chunk.changed).forEach(searchIndex::index);
+        } while (chunk.read.size() == chunkSize);
+        return held;
+    }
+
+    private static <T> Set<Integer> ids(List<T> rows, Function<T, Integer> id) {
+        // Предметы обновляются по возрастанию id, чтобы параллельные транзакции брали блокировки в одном порядке
+        Set<Integer> ids = new TreeSet<>();
+        for (T row : rows) {
+            ids.add(id.apply(row));
+        }
+        return ids;
+    }
+
+    private static final class Chunk<T> {
+        private final List<T> read;
+        private final Set<Integer> changed;
+
+        private Chunk(List<T> read, Set<Integer> changed) {
+            this.read = read;
+            this.changed = changed;
+        }
+    }
+}
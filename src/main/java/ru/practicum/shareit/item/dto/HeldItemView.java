@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * An item taken out of circulation for a booking that is no longer in progress, with the end of its last
+ * approved booking, read in id order to bring the item back into circulation.
+ */
+public interface HeldItemView {
+
+    Integer getId();
+
+    LocalDateTime getLastEnd();
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.dto;
+
+/**
+ * One of the latest comments of an item together with the item's comment count, read without loading entities.
+ */
+public interface ItemCommentView {
+
+    Integer getId();
+
+    Integer getItemId();
+
+    String getText();
+
+    String getAuthorName();
+
+    Long getTotal();
+}
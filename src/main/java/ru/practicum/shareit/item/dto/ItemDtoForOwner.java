@@ -34,4 +34,5 @@ public class ItemDtoForOwner extends ItemDto {
     private ShortBookingDto lastBooking;
     private ShortBookingDto nextBooking;
     private List<CommentOutputDto> comments;
+    private Long commentCount;
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.mapstruct.Mappings;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import ru.practicum.shareit.item.dto.CommentInputDto;
 import ru.practicum.shareit.item.dto.CommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemCommentView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
@@ -26,4 +27,7 @@ public interface CommentMapper {
             @Mapping(target = "created", expression = "java(java.time.LocalDateTime.now())")
     })
     CommentOutputDto toOutputDtoFromComment(Comment comment);
+
+    @Mapping(target = "created", expression = "java(java.time.LocalDateTime.now())")
+    CommentOutputDto toOutputDtoFromView(ItemCommentView view);
 }
\ No newline at end of file
@@ -41,7 +41,8 @@ public interface ItemMapper {
             @Mapping(target = "available", source = "item.available"),
             @Mapping(target = "lastBooking", source = "lastBooking"),
             @Mapping(target = "nextBooking", source = "nextBooking"),
-            @Mapping(target = "comments", source = "comments")
+            @Mapping(target = "comments", source = "comments"),
+            @Mapping(target = "commentCount", ignore = true)
     })
     ItemDtoForOwner toItemBookingDto(Item item,
                                      ShortBookingDto lastBooking,
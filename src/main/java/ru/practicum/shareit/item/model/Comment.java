@@ -10,7 +10,7 @@ import javax.validation.constraints.NotBlank;
 import java.util.Objects;
 
 @Cacheable
-@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "comments")
 @Entity
 @Table(name = "comments")
 @Getter
@@ -34,6 +34,10 @@ public class Item {
     @Column(name = "is_available")
     private Boolean available;
 
+    // Предмет снят с выдачи на время идущего подтверждённого бронирования, а не владельцем
+    @Column(name = "booking_hold")
+    private boolean bookingHold;
+
     @org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "owner_id")
@@ -0,0 +1,212 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * BM25F term statistics over item names and descriptions.
+ * Term frequencies, document lengths and field totals are updated incrementally,
+ * so scores always reflect the current catalog without a rebuild.
+ */
+final class Bm25Index {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final int NAME = 0;
+    private static final int DESCRIPTION = 1;
+
+    private final Map<String, TermPostings> postings = new HashMap<>();
+    private final Map<Integer, int[]> fieldLengths = new HashMap<>();
+    private long totalNameLength;
+    private long totalDescriptionLength;
+
+    void add(int id, List<String> nameTokens, List<String> descriptionTokens) {
+        Map<String, int[]> frequencies = new HashMap<>();
+        for (String token : nameTokens) {
+            frequencies.computeIfAbsent(token, key -> new int[2])[NAME]++;
+        }
+        for (String token : descriptionTokens) {
+            frequencies.computeIfAbsent(token, key -> new int[2])[DESCRIPTION]++;
+        }
+        for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new TermPostings())
+                    .put(id, entry.getValue()[NAME], entry.getValue()[DESCRIPTION]);
+        }
+        fieldLengths.put(id, new int[]{nameTokens.size(), descriptionTokens.size()});
+        totalNameLength += nameTokens.size();
+        totalDescriptionLength += descriptionTokens.size();
+    }
+
+    void remove(int id, List<String> nameTokens, List<String> descriptionTokens) {
+        int[] lengths = fieldLengths.remove(id);
+        if (lengths == null) {
+            return;
+        }
+        totalNameLength -= lengths[NAME];
+        totalDescriptionLength -= lengths[DESCRIPTION];
+        Set<String> terms = new LinkedHashSet<>(nameTokens);
+        terms.addAll(descriptionTokens);
+        for (String term : terms) {
+            TermPostings termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(id);
+                if (termPostings.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    boolean contains(String term) {
+        return postings.containsKey(term);
+    }
+
+    /**
+     * Returns up to {@code limit} ids accepted by the filter, best score first.
+     */
+    List<Integer> topK(List<String> queryTerms, int limit, IntPredicate filter) {
+        Map<String, Double> weightedTerms = new LinkedHashMap<>();
+        for (String term : queryTerms) {
+            weightedTerms.put(term, 1.0);
+        }
+        return topK(weightedTerms, limit, filter);
+    }
+
+    /**
+     * Same as {@link #topK(List, int, IntPredicate)} with each term's contribution scaled by its weight.
+     * Only a heap of {@code limit} entries is kept, the full match set is never sorted.
+     */
+    List<Integer> topK(Map<String, Double> weightedTerms, int limit, IntPredicate filter) {
+        int documents = fieldLengths.size();
+        if (documents == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        double avgNameLength = Math.max(1.0, (double) totalNameLength / documents);
+        double avgDescriptionLength = Math.max(1.0, (double) totalDescriptionLength / documents);
+
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Double> weightedTerm : weightedTerms.entrySet()) {
+            TermPostings termPostings = postings.get(weightedTerm.getKey());
+            if (termPostings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documents - termPostings.size + 0.5) / (termPostings.size + 0.5));
+            for (int i = 0; i < termPostings.size; i++) {
+                int id = termPostings.ids[i];
+                if (!filter.test(id)) {
+                    continue;
+                }
+                int[] lengths = fieldLengths.get(id);
+                double tf = NAME_WEIGHT * normalize(termPostings.nameFrequency(i), lengths[NAME], avgNameLength)
+                        + DESCRIPTION_WEIGHT * normalize(termPostings.descriptionFrequency(i),
+                        lengths[DESCRIPTION], avgDescriptionLength);
+                double score = weightedTerm.getValue() * idf * tf * (K1 + 1) / (tf + K1);
+                scores.merge(id, score, Double::sum);
+            }
+        }
+
+        PriorityQueue<ScoredItem> heap = new PriorityQueue<>(Math.max(1, Math.min(limit, scores.size())));
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            ScoredItem candidate = new ScoredItem(entry.getKey(), entry.getValue());
+            if (heap.size() < limit) {
+                heap.add(candidate);
+            } else if (candidate.compareTo(heap.peek()) > 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+        List<Integer> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll().id);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static double normalize(int frequency, int length, double avgLength) {
+        if (frequency == 0) {
+            return 0;
+        }
+        return frequency / (1 - B + B * length / avgLength);
+    }
+
+    /**
+     * Sorted item ids of one term with both field frequencies packed into an int,
+     * which keeps millions of postings at eight bytes each.
+     */
+    private static final class TermPostings {
+        private static final int FREQUENCY_BITS = 16;
+        private static final int MAX_FREQUENCY = (1 << FREQUENCY_BITS) - 1;
+
+        private int[] ids = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        private void put(int id, int nameFrequency, int descriptionFrequency) {
+            int packed = Math.min(nameFrequency, MAX_FREQUENCY) << FREQUENCY_BITS
+                    | Math.min(descriptionFrequency, MAX_FREQUENCY);
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                frequencies[pos] = packed;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            System.arraycopy(frequencies, pos, frequencies, pos + 1, size - pos);
+            ids[pos] = id;
+            frequencies[pos] = packed;
+            size++;
+        }
+
+        private void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            System.arraycopy(frequencies, pos + 1, frequencies, pos, size - pos - 1);
+            size--;
+        }
+
+        private int nameFrequency(int index) {
+            return frequencies[index] >>> FREQUENCY_BITS;
+        }
+
+        private int descriptionFrequency(int index) {
+            return frequencies[index] & MAX_FREQUENCY;
+        }
+    }
+
+    /**
+     * Orders by score, ties broken in favour of the lower (older) id.
+     */
+    private static final class ScoredItem implements Comparable<ScoredItem> {
+        private final int id;
+        private final double score;
+
+        private ScoredItem(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(ScoredItem other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(other.id, id);
+        }
+    }
+}
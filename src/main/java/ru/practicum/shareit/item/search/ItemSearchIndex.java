@@ -0,0 +1,296 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search index over item names and descriptions.
+ * It is rebuilt from {@link ItemStorage} on startup and kept up to date by item writes once they commit,
+ * so search only goes to the database to load the matched items. A rebuild loads a fresh index without
+ * blocking writes and swaps it in, replaying the writes committed while it was loading.
+ * With {@code shareit.search.index.enabled=false} the index stays empty and search
+ * is answered by the database alone, which suits deployments with several instances.
+ */
+@Component
+@Slf4j
+public class ItemSearchIndex {
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final ItemStorage itemStorage;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Indexes indexes = new Indexes();
+    // Записи, зафиксированные во время перестроения; не null, пока новый индекс загружается
+    private Map<Integer, IndexedItem> writtenDuringRebuild;
+    private volatile boolean ready;
+
+    @Autowired
+    public ItemSearchIndex(ItemStorage itemStorage,
+                           @Value("${shareit.search.index.enabled:true}") boolean enabled) {
+        this.itemStorage = itemStorage;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            log.info("Item search index is disabled, search is served by the database");
+            return;
+        }
+        log.info("Rebuilding item search index");
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Новый индекс загружается без блокировки, поиск и записи тем временем работают со старым
+        Indexes fresh = new Indexes();
+        try {
+            int lastId = 0;
+            List<Item> chunk;
+            do {
+                chunk = itemStorage.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_CHUNK_SIZE));
+                for (Item item : chunk) {
+                    fresh.put(IndexedItem.of(item));
+                    lastId = item.getId();
+                }
+            } while (chunk.size() == REBUILD_CHUNK_SIZE);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                writtenDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            // Предметы, записанные во время загрузки, могли быть прочитаны до изменения
+            writtenDuringRebuild.values().forEach(fresh::put);
+            writtenDuringRebuild = null;
+            indexes = fresh;
+            ready = true;
+            log.info("Item search index rebuilt with {} items", fresh.items.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Indexes the item as it is now once the current transaction commits; a rolled back write is never indexed.
+     */
+    public void index(Item item) {
+        if (!enabled) {
+            return;
+        }
+        IndexedItem indexed = IndexedItem.of(item);
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                indexes.put(indexed);
+                if (writtenDuringRebuild != null) {
+                    writtenDuringRebuild.put(indexed.id, indexed);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Returns the lowest {@code limit} ascending ids of available items whose name or description contains
+     * the text, ignoring case.
+     */
+    public List<Integer> searchAvailable(String text, int limit) {
+        String query = normalize(text);
+        if (query.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, IndexedItem> items = indexes.items;
+            if (query.length() < TrigramIndex.GRAM_LENGTH) {
+                // Короткий запрос проверяет все предметы; в куче остаются только limit наименьших id
+                PriorityQueue<Integer> lowest = new PriorityQueue<>(Comparator.reverseOrder());
+                for (IndexedItem item : items.values()) {
+                    if (item.available && item.contains(query)) {
+                        lowest.add(item.id);
+                        if (lowest.size() > limit) {
+                            lowest.poll();
+                        }
+                    }
+                }
+                List<Integer> result = new ArrayList<>(lowest);
+                Collections.sort(result);
+                return result;
+            }
+            List<Integer> result = new ArrayList<>();
+            for (int id : indexes.trigrams.candidates(query)) {
+                IndexedItem item = items.get(id);
+                if (item != null && item.available && item.contains(query)) {
+                    result.add(id);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns ids of at most {@code limit} available items ranked by BM25 relevance, best first.
+     */
+    public List<Integer> searchRelevant(String text, int limit) {
+        List<String> terms = Tokenizer.tokenize(text);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Indexes current = indexes;
+            return current.bm25.topK(terms, limit, id -> {
+                IndexedItem item = current.items.get(id);
+                return item != null && item.available;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns ids of at most {@code limit} available items whose words are within a few edits
+     * of the query words. Closer spellings weigh more in the BM25 ranking.
+     */
+    public List<Integer> searchFuzzy(String text, int limit) {
+        List<String> terms = Tokenizer.tokenize(text);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Indexes current = indexes;
+            Map<String, Double> weightedTerms = new HashMap<>();
+            for (String term : terms) {
+                for (Map.Entry<String, Integer> match : current.vocabulary.search(term, maxEdits(term)).entrySet()) {
+                    if (current.bm25.contains(match.getKey())) {
+                        weightedTerms.merge(match.getKey(), 1.0 / (1 + match.getValue()), Math::max);
+                    }
+                }
+            }
+            return current.bm25.topK(weightedTerms, limit, id -> {
+                IndexedItem item = current.items.get(id);
+                return item != null && item.available;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns at most {@code limit} names of available items starting with the prefix, ignoring case.
+     * Names shared by more available items come first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return indexes.names.top(normalize(prefix), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int maxEdits(String term) {
+        if (term.length() < 3) {
+            return 0;
+        }
+        return term.length() < 6 ? 1 : 2;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Indexes {
+        private final Map<Integer, IndexedItem> items = new HashMap<>();
+        private final TrigramIndex trigrams = new TrigramIndex();
+        private final Bm25Index bm25 = new Bm25Index();
+        private final BkTree vocabulary = new BkTree();
+        private final NameTrie names = new NameTrie(MAX_SUGGESTIONS);
+
+        private void put(IndexedItem indexed) {
+            IndexedItem previous = items.get(indexed.id);
+            if (previous != null) {
+                trigrams.remove(previous.id, previous.name, previous.description);
+                bm25.remove(previous.id, Tokenizer.tokenize(previous.name), Tokenizer.tokenize(previous.description));
+                if (previous.available && previous.displayName != null) {
+                    names.remove(previous.name);
+                }
+            }
+            items.put(indexed.id, indexed);
+            trigrams.add(indexed.id, indexed.name, indexed.description);
+            List<String> nameTokens = Tokenizer.tokenize(indexed.name);
+            List<String> descriptionTokens = Tokenizer.tokenize(indexed.description);
+            bm25.add(indexed.id, nameTokens, descriptionTokens);
+            nameTokens.forEach(vocabulary::add);
+            descriptionTokens.forEach(vocabulary::add);
+            if (indexed.available && indexed.displayName != null) {
+                names.add(indexed.name, indexed.displayName);
+            }
+        }
+    }
+
+    private static final class IndexedItem {
+        private final int id;
+        private final String name;
+        private final String displayName;
+        private final String description;
+        private final boolean available;
+
+        private IndexedItem(int id, String name, String displayName, String description, boolean available) {
+            this.id = id;
+            this.name = name;
+            this.displayName = displayName;
+            this.description = description;
+            this.available = available;
+        }
+
+        private static IndexedItem of(Item item) {
+            return new IndexedItem(item.getId(), normalize(item.getName()), item.getName(),
+                    normalize(item.getDescription()), Boolean.TRUE.equals(item.getAvailable()));
+        }
+
+        private boolean contains(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+    }
+}
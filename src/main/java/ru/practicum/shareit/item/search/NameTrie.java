@@ -0,0 +1,115 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix tree over item names counting how many available items carry each name.
+ * Every node keeps the most popular names of its subtree, so a lookup only walks the prefix
+ * and an update only recomputes the nodes on the path of the changed name.
+ */
+final class NameTrie {
+    private static final Comparator<Node> BY_POPULARITY = Comparator
+            .comparingInt((Node node) -> node.count).reversed()
+            .thenComparing(node -> node.key);
+
+    private final int capacity;
+    private final Node root = new Node();
+
+    NameTrie(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(String key, String name) {
+        List<Node> path = path(key, true);
+        Node terminal = path.get(path.size() - 1);
+        terminal.count++;
+        terminal.key = key;
+        terminal.name = name;
+        recompute(path, key);
+    }
+
+    void remove(String key) {
+        List<Node> path = path(key, false);
+        if (path == null) {
+            return;
+        }
+        Node terminal = path.get(path.size() - 1);
+        if (terminal.count == 0) {
+            return;
+        }
+        terminal.count--;
+        recompute(path, key);
+    }
+
+    /**
+     * Returns at most {@code limit} names starting with the prefix, most popular first.
+     * No more than the trie capacity is ever returned.
+     */
+    List<String> top(String prefix, int limit) {
+        List<Node> path = path(prefix, false);
+        if (path == null) {
+            return Collections.emptyList();
+        }
+        Node[] top = path.get(path.size() - 1).top;
+        List<String> result = new ArrayList<>(Math.min(limit, top.length));
+        for (int i = 0; i < top.length && i < limit; i++) {
+            result.add(top[i].name);
+        }
+        return result;
+    }
+
+    private List<Node> path(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            char symbol = key.charAt(i);
+            Node child = node.children.get(symbol);
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Node();
+                node.children.put(symbol, child);
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private void recompute(List<Node> path, String key) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (i > 0 && node.count == 0 && node.children.isEmpty()) {
+                path.get(i - 1).children.remove(key.charAt(i - 1));
+                continue;
+            }
+            List<Node> candidates = new ArrayList<>();
+            if (node.count > 0) {
+                candidates.add(node);
+            }
+            for (Node child : node.children.values()) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(BY_POPULARITY);
+            node.top = candidates.subList(0, Math.min(capacity, candidates.size())).toArray(new Node[0]);
+        }
+    }
+
+    private static final class Node {
+        private static final Node[] EMPTY = new Node[0];
+
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private String key;
+        private String name;
+        private int count;
+        private Node[] top = EMPTY;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, duplicate-free list of item ids backed by a primitive array.
+ * Ids are mostly appended in ascending order, so inserts are usually O(1).
+ */
+final class PostingList {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int size;
+
+    boolean add(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return false;
+        }
+        pos = -pos - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        ids[pos] = id;
+        size++;
+        return true;
+    }
+
+    boolean remove(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Merge-intersects already sorted ids with this list.
+     */
+    int[] retainAll(int[] sorted) {
+        int[] result = new int[Math.min(sorted.length, size)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < sorted.length && j < size) {
+            if (sorted[i] < ids[j]) {
+                i++;
+            } else if (sorted[i] > ids[j]) {
+                j++;
+            } else {
+                result[k++] = sorted[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from character trigrams to the ids of items containing them.
+ * A substring query can only match items holding every trigram of the query,
+ * so intersecting the posting lists gives the candidates to verify.
+ */
+final class TrigramIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    void add(int id, String... texts) {
+        for (String gram : trigrams(texts)) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(id);
+        }
+    }
+
+    void remove(int id, String... texts) {
+        for (String gram : trigrams(texts)) {
+            PostingList list = postings.get(gram);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns ascending ids of items containing every trigram of the query.
+     * The query must be at least {@link #GRAM_LENGTH} characters long.
+     */
+    int[] candidates(String query) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : trigrams(query)) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return NO_IDS;
+            }
+            lists.add(list);
+        }
+        if (lists.isEmpty()) {
+            return NO_IDS;
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retainAll(result);
+        }
+        return result;
+    }
+
+    static Set<String> trigrams(String... texts) {
+        Set<String> grams = new HashSet<>();
+        for (String text : texts) {
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                grams.add(text.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+}
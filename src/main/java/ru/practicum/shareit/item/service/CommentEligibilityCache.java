@@ -0,0 +1,58 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Remembers which (item, booker) pairs have an ended booking, i.e. may comment on the item.
+ * Only positive answers are kept: once a booking has ended it stays ended, while a negative answer
+ * changes as soon as one ends. Pairs are added by reads that had to ask the database.
+ * The least recently used pairs beyond {@code cache-size} are dropped.
+ */
+@Component
+public class CommentEligibilityCache {
+    private final Map<Long, Boolean> eligible;
+
+    @Autowired
+    public CommentEligibilityCache(@Value("${shareit.item.comment-eligibility.cache-size:10000}") int capacity) {
+        this.eligible = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns whether the booker has an ended booking of the item, asking {@code loader} on a miss.
+     */
+    public boolean isEligible(int itemId, int bookerId, BooleanSupplier loader) {
+        long key = key(itemId, bookerId);
+        synchronized (eligible) {
+            // get, а не containsKey: только чтение значения поднимает пару в порядке доступа
+            if (eligible.get(key) != null) {
+                return true;
+            }
+        }
+        boolean ended = loader.getAsBoolean();
+        if (ended) {
+            recordEnded(itemId, bookerId);
+        }
+        return ended;
+    }
+
+    public void recordEnded(int itemId, int bookerId) {
+        synchronized (eligible) {
+            eligible.put(key(itemId, bookerId), Boolean.TRUE);
+        }
+    }
+
+    private static long key(int itemId, int bookerId) {
+        return ((long) itemId << 32) | (bookerId & 0xFFFFFFFFL);
+    }
+}
@@ -3,29 +3,37 @@ package ru.practicum.shareit.item.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.dto.ShortBookingDto;
-import ru.practicum.shareit.booking.mapper.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
 import ru.practicum.shareit.exception.ItemNotExistsException;
 import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.exception.RequestNotExistsException;
+import ru.practicum.shareit.exception.UnsupportedStatusException;
 import ru.practicum.shareit.exception.UserNotExistsException;
+import ru.practicum.shareit.item.SearchMode;
 import ru.practicum.shareit.item.dto.CommentInputDto;
 import ru.practicum.shareit.item.dto.CommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemCommentView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoForOwner;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.pagination.Cursors;
+import ru.practicum.shareit.request.matching.RequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
 import ru.practicum.shareit.user.model.User;
@@ -34,36 +42,53 @@ import ru.practicum.shareit.user.storage.UserStorage;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.validation.ValidationException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ItemService {
+    // Сколько последних комментариев каждого предмета попадает в список предметов владельца
+    public static final int COMMENT_PREVIEW_SIZE = 10;
+    private static final Duration MAX_AVAILABILITY_PERIOD = Duration.ofDays(366);
+    private static final int MAX_AVAILABILITY_ITEMS = 1000;
+    // Карточка предмета, как и раньше, считает последним уже начавшееся бронирование, даже если оно не закончилось
+    private static final LocalDateTime ANY_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final ItemStorage itemStorage;
     private final UserStorage userStorage;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final CommentRepository commentRepository;
     private final ItemMapper itemMapper;
-    private final BookingMapper bookingMapper;
     private final ItemRequestStorage requestStorage;
+    private final ItemSearchIndex searchIndex;
+    private final BookingSchedule bookingSchedule;
 
     @PersistenceContext
     private EntityManager entityManager;
     private final CommentMapper commentMapper;
+    private final CommentEligibilityCache commentEligibility;
+    private final RequestMatcher requestMatcher;
 
     @Autowired
-    public ItemService(ItemStorage itemStorage, UserStorage userStorage, BookingRepository bookingRepository, CommentRepository commentRepository, ItemMapper itemMapper, BookingMapper bookingMapper, ItemRequestStorage requestStorage, EntityManager entityManager, CommentMapper commentMapper) {
+    public ItemService(ItemStorage itemStorage, UserStorage userStorage, BookingRepository bookingRepository, ArchivedBookingRepository archivedBookingRepository, CommentRepository commentRepository, ItemMapper itemMapper, ItemRequestStorage requestStorage, ItemSearchIndex searchIndex, BookingSchedule bookingSchedule, EntityManager entityManager, CommentMapper commentMapper, CommentEligibilityCache commentEligibility, RequestMatcher requestMatcher) {
         this.itemStorage = itemStorage;
         this.userStorage = userStorage;
         this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
         this.commentRepository = commentRepository;
         this.itemMapper = itemMapper;
-        this.bookingMapper = bookingMapper;
         this.requestStorage = requestStorage;
+        this.searchIndex = searchIndex;
+        this.bookingSchedule = bookingSchedule;
         this.entityManager = entityManager;
         this.commentMapper = commentMapper;
+        this.commentEligibility = commentEligibility;
+        this.requestMatcher = requestMatcher;
     }
 
     @Transactional()
@@ -79,7 +104,10 @@ public class ItemService {
                     .orElseThrow(() -> new RequestNotExistsException("Request with id " + requestId + " does not exist."));
             mappedItem.setRequest(request);
         }
-        return itemMapper.toItemDto(itemStorage.save(mappedItem));
+        Item savedItem = itemStorage.save(mappedItem);
+        searchIndex.index(savedItem);
+        requestMatcher.submit(savedItem);
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Transactional()
@@ -93,112 +121,178 @@ public class ItemService {
         }
 
         Item updatedItem = itemMapper.updateItemFromDto(itemById, itemDto);
+        if (itemDto.getAvailable() != null) {
+            // Доступность, заданная владельцем, важнее снятия по бронированию: задача её больше не тронет
+            updatedItem.setBookingHold(false);
+        }
         itemStorage.save(updatedItem);
+        searchIndex.index(updatedItem);
+        requestMatcher.submit(updatedItem);
         return itemMapper.toItemDto(updatedItem);
     }
 
     @Transactional(readOnly = true)
     public ItemDto getItemById(int itemId, Integer userId) {
         log.info("Attempt to received item by id {}", itemId);
-        Item itemById = itemStorage.findItemById(itemId)
+        // Предмет читается через кэш второго уровня
+        Item itemById = Optional.ofNullable(entityManager.find(Item.class, itemId))
                 .orElseThrow(() -> new ItemNotExistsException("Item not exists"));
-        entityManager.refresh(itemById);
-        List<CommentOutputDto> comments = commentRepository.findCommentsByItem_Id(itemId).stream()
-                .map(commentMapper::toOutputDtoFromComment)
-                .collect(Collectors.toList());
+        // Как и в списке предметов, только последние комментарии и их общее число, остальные листаются отдельно
+        List<CommentOutputDto> comments = new ArrayList<>();
+        long commentCount = 0;
+        for (ItemCommentView view : commentRepository.findLatestByItemIds(List.of(itemId), COMMENT_PREVIEW_SIZE)) {
+            comments.add(commentMapper.toOutputDtoFromView(view));
+            commentCount = view.getTotal();
+        }
 
         if (Objects.equals(itemById.getOwner().getId(), userId)) {
-            Pageable limitOne = PageRequest.of(0, 1);
-            Booking last = bookingRepository.findLastBookingByItemIdExcludingRejected(itemId, limitOne)
-                    .stream().findFirst().orElse(null);
-            Booking next = bookingRepository.findNextBookingByItemIdExcludingRejected(itemId, limitOne)
-                    .stream().findFirst().orElse(null);
             ShortBookingDto lastDto = null;
             ShortBookingDto nextDto = null;
-            if (Optional.ofNullable(last).isPresent()) {
-                lastDto = bookingMapper.toShortBookingDto(last);
+            for (ItemBookingView view : bookingRepository.findLastAndNextBookingsByItemIds(List.of(itemId),
+                    LocalDateTime.now(), ANY_END)) {
+                ShortBookingDto shortBooking = new ShortBookingDto(view.getId(), view.getBookerId());
+                if (view.getKind() == ItemBookingView.Kind.LAST) {
+                    lastDto = shortBooking;
+                } else {
+                    nextDto = shortBooking;
+                }
             }
-            if (Optional.ofNullable(next).isPresent()) {
-                nextDto = bookingMapper.toShortBookingDto(next);
-            }
-            return itemMapper.toItemBookingDto(itemById, lastDto, nextDto, comments);
+            return withCommentCount(itemMapper.toItemBookingDto(itemById, lastDto, nextDto, comments), commentCount);
         }
-        return itemMapper.toItemBookingDto(itemById, null, null, comments);
+        return withCommentCount(itemMapper.toItemBookingDto(itemById, null, null, comments), commentCount);
     }
 
     @Transactional(readOnly = true)
-    public List<ItemDtoForOwner> getItemsByUserId(int userId) {
+    public CursorPage<ItemDtoForOwner> getItemsByUserId(int userId, String cursor, int size) {
         log.info("Attempt to received items by user id {}", userId);
         if (!userStorage.existsById(userId)) {
             throw new UserNotExistsException("User with id " + userId + " does not exist.");
         }
 
-        List<Item> items = itemStorage.findItemsByOwnerId(userId);
+        // Читаем на один предмет больше страницы, чтобы узнать, есть ли следующая
+        int afterId = cursor == null || cursor.isEmpty() ? 0 : Cursors.decodeInt(cursor);
+        List<Item> items = itemStorage.findByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, afterId,
+                PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            nextCursor = Cursors.encode(items.get(size - 1).getId());
+        }
+        if (items.isEmpty()) {
+            return new CursorPage<>(Collections.emptyList(), null);
+        }
+        List<Integer> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
 
         // Создаем Map для быстрого доступа к последнему и следующему бронированию для каждого предмета
         Map<Integer, ShortBookingDto> lastBookingsMap = new HashMap<>();
         Map<Integer, ShortBookingDto> nextBookingsMap = new HashMap<>();
 
-        List<Booking> orderedBookings = bookingRepository.findByItem_Owner_IdAndBookingStatusNotOrderByStartDesc(userId, BookingStatus.REJECTED);
-
+        // Последнее и следующее бронирование каждого предмета страницы приходят одним запросом
         LocalDateTime now = LocalDateTime.now();
-
-        for (Item item : items) {
-            Integer itemId = item.getId();
-
-            // Получаем последнее бронирование (самое позднее из прошедших)
-            Booking lastBooking = orderedBookings.stream()
-                    .filter(booking -> booking.getItem().getId().equals(itemId) && booking.getEnd().isBefore(now))
-                    .max(Comparator.comparing(Booking::getEnd))
-                    .orElse(null);
-
-            if (lastBooking != null) {
-                lastBookingsMap.put(itemId, bookingMapper.toShortBookingDto(lastBooking));
-            }
-
-            // Получаем следующее бронирование (самое раннее из будущих)
-            Booking nextBooking = orderedBookings.stream()
-                    .filter(booking -> booking.getItem().getId().equals(itemId) && booking.getStart().isAfter(now))
-                    .min(Comparator.comparing(Booking::getStart))
-                    .orElse(null);
-
-            if (nextBooking != null) {
-                nextBookingsMap.put(itemId, bookingMapper.toShortBookingDto(nextBooking));
+        for (ItemBookingView view : bookingRepository.findLastAndNextBookingsByItemIds(itemIds, now, now)) {
+            ShortBookingDto shortBooking = new ShortBookingDto(view.getId(), view.getBookerId());
+            if (view.getKind() == ItemBookingView.Kind.LAST) {
+                lastBookingsMap.put(view.getItemId(), shortBooking);
+            } else {
+                nextBookingsMap.put(view.getItemId(), shortBooking);
             }
         }
 
-        // Получаем список всех комментариев для предметов пользователя
-        List<Comment> comments = commentRepository.findByItem_Owner_Id(userId);
-        Map<Integer, List<CommentOutputDto>> commentsMap = comments.stream()
-                .collect(Collectors.groupingBy(
-                        comment -> comment.getItem().getId(),
-                        Collectors.mapping(commentMapper::toOutputDtoFromComment, Collectors.toList())
-                ));
+        // Для каждого предмета страницы только последние комментарии и их общее число, одним оконным запросом
+        Map<Integer, List<CommentOutputDto>> commentsMap = new HashMap<>();
+        Map<Integer, Long> commentCounts = new HashMap<>();
+        for (ItemCommentView view : commentRepository.findLatestByItemIds(itemIds, COMMENT_PREVIEW_SIZE)) {
+            commentsMap.computeIfAbsent(view.getItemId(), key -> new ArrayList<>())
+                    .add(commentMapper.toOutputDtoFromView(view));
+            commentCounts.put(view.getItemId(), view.getTotal());
+        }
 
         // Собираем все в список ItemDtoForOwner
-        return items.stream().map(item -> {
+        List<ItemDtoForOwner> content = items.stream().map(item -> {
             Integer itemId = item.getId();
             ShortBookingDto lastBookingDto = lastBookingsMap.get(itemId);
             ShortBookingDto nextBookingDto = nextBookingsMap.get(itemId);
             List<CommentOutputDto> itemComments = commentsMap.getOrDefault(itemId, Collections.emptyList());
 
-            return itemMapper.toItemBookingDto(item, lastBookingDto, nextBookingDto, itemComments);
+            ItemDtoForOwner dto = itemMapper.toItemBookingDto(item, lastBookingDto, nextBookingDto, itemComments);
+            dto.setCommentCount(commentCounts.getOrDefault(itemId, 0L));
+            return dto;
         }).collect(Collectors.toList());
+        return new CursorPage<>(content, nextCursor);
     }
 
     @Transactional(readOnly = true)
-    public List<ItemDto> searchItems(String text) {
-        log.info("Attempt to search items by key-word {}", text);
-        return itemStorage.search(text).stream()
-                .filter(Item::getAvailable)
-                .map(itemMapper::toItemDto)
+    public List<ItemDto> searchItems(String text, String mode, Integer from, Integer size) {
+        log.info("Attempt to search items by key-word {} in mode {}", text, mode);
+        SearchMode searchMode;
+        try {
+            searchMode = SearchMode.valueOf(mode);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedStatusException("Unknown search mode: " + mode);
+        }
+        if (!searchIndex.isReady()) {
+            // from — точное смещение, как и в поиске по индексу, а не номер страницы
+            return itemStorage.search(text, OffsetPageRequest.of(from, size)).stream()
+                    .map(itemMapper::toItemDto)
+                    .collect(Collectors.toList());
+        }
+        // Граница страницы считается в long, чтобы большое from не переполнило её
+        int limit = (int) Math.min((long) from + size, Integer.MAX_VALUE);
+        List<Integer> foundIds;
+        switch (searchMode) {
+            case RELEVANCE:
+                foundIds = searchIndex.searchRelevant(text, limit);
+                break;
+            case FUZZY:
+                foundIds = searchIndex.searchFuzzy(text, limit);
+                break;
+            case SUBSTRING:
+            default:
+                foundIds = searchIndex.searchAvailable(text, limit);
+        }
+        return loadPage(foundIds, from, size);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ItemAvailabilityDto> getAvailability(List<Integer> itemIds, LocalDateTime from, LocalDateTime to) {
+        log.info("Attempt to get availability of {} items from {} to {}", itemIds.size(), from, to);
+        if (!to.isAfter(from)) {
+            throw new ValidationException("End of the period must be after its start");
+        }
+        if (Duration.between(from, to).compareTo(MAX_AVAILABILITY_PERIOD) > 0) {
+            throw new ValidationException("Availability period must not exceed " + MAX_AVAILABILITY_PERIOD.toDays() + " days");
+        }
+        List<Integer> distinctIds = itemIds.stream().distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (distinctIds.size() > MAX_AVAILABILITY_ITEMS) {
+            throw new ValidationException("Availability can be requested for at most " + MAX_AVAILABILITY_ITEMS + " items");
+        }
+        if (itemStorage.countByIdIn(distinctIds) != distinctIds.size()) {
+            throw new ItemNotExistsException("Item not exists");
+        }
+        return bookingSchedule.findFreeSlots(distinctIds, from, to).entrySet().stream()
+                .map(entry -> new ItemAvailabilityDto(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
     }
 
+    public List<String> suggestItemNames(String prefix, Integer size) {
+        log.info("Attempt to suggest item names by prefix {}", prefix);
+        if (!searchIndex.isReady()) {
+            return itemStorage.suggestNames(prefix, PageRequest.of(0, size));
+        }
+        return searchIndex.suggest(prefix, size);
+    }
+
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public CommentOutputDto saveComment(CommentInputDto commentInputDto, Integer itemId, Integer authorId) {
         log.info("Attempt to save comment by user id {}", authorId);
-        if (!bookingRepository.existsByItemIdAndUserIdAndEnded(itemId, authorId)) {
+        // Бронирования, закончившиеся давно, лежат в архиве и тоже дают право на отзыв
+        boolean ended = commentEligibility.isEligible(itemId, authorId,
+                () -> bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(itemId, authorId, LocalDateTime.now())
+                        || archivedBookingRepository.existsByItem_IdAndBooker_Id(itemId, authorId));
+        if (!ended) {
             throw new ValidationException("This user does not have a completed booking for item by ID: " + itemId);
         }
         User author = userStorage.findById(authorId)
@@ -206,8 +300,48 @@ public class ItemService {
         Item itemById = itemStorage.findItemById(itemId)
                 .orElseThrow(() -> new ItemNotExistsException("Item not exists"));
         Comment commentFromInput = commentMapper.toCommentFromInput(commentInputDto, author, itemById);
+        // Автор и предмет уже загружены, id выдаёт INSERT, так что перечитывать комментарий незачем
         Comment savedComment = commentRepository.save(commentFromInput);
-        entityManager.refresh(savedComment);
         return commentMapper.toOutputDtoFromComment(savedComment);
     }
+
+    @Transactional(readOnly = true)
+    public CursorPage<CommentOutputDto> getComments(int itemId, String cursor, int size) {
+        log.info("Attempt to received comments of item by id {}", itemId);
+        if (!itemStorage.existsById(itemId)) {
+            throw new ItemNotExistsException("Item not exists");
+        }
+        // Новые комментарии первыми; курсор хранит id последнего отданного, следующая страница идёт после него
+        int beforeId = cursor == null || cursor.isEmpty() ? Integer.MAX_VALUE : Cursors.decodeInt(cursor);
+        List<Comment> comments = commentRepository.findByItem_IdAndIdLessThanOrderByIdDesc(itemId, beforeId,
+                PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (comments.size() > size) {
+            comments = comments.subList(0, size);
+            nextCursor = Cursors.encode(comments.get(size - 1).getId());
+        }
+        List<CommentOutputDto> content = comments.stream()
+                .map(commentMapper::toOutputDtoFromComment)
+                .collect(Collectors.toList());
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    private static ItemDto withCommentCount(ItemDtoForOwner dto, long commentCount) {
+        dto.setCommentCount(commentCount);
+        return dto;
+    }
+
+    private List<ItemDto> loadPage(List<Integer> foundIds, int from, int size) {
+        if (from >= foundIds.size()) {
+            return Collections.emptyList();
+        }
+        List<Integer> pageIds = foundIds.subList(from, (int) Math.min((long) from + size, foundIds.size()));
+        Map<Integer, Item> itemsById = itemStorage.findByIdInAndAvailableTrue(pageIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return pageIds.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
@@ -1,16 +1,38 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemCommentView;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
 
-    @EntityGraph(attributePaths = {"item", "author", "item.owner"})
-    List<Comment> findCommentsByItem_Id(Integer itemId);
+    /**
+     * Returns at most {@code limit} newest comments per item, each row carrying the item's total comment count.
+     * Items without comments have no rows.
+     */
+    // Автор подтягивается только к отобранным строкам, а не ко всем комментариям предмета
+    @Query(value = "SELECT ranked.id AS id, ranked.item_id AS itemId, ranked.text AS text, " +
+            "u.name AS authorName, ranked.total AS total " +
+            "FROM (" +
+            "SELECT c.id, c.item_id, c.text, c.author_id, " +
+            "ROW_NUMBER() OVER (PARTITION BY c.item_id ORDER BY c.id DESC) AS rn, " +
+            "COUNT(*) OVER (PARTITION BY c.item_id) AS total " +
+            "FROM comments c " +
+            "WHERE c.item_id IN (:itemIds)" +
+            ") ranked " +
+            "JOIN users u ON u.id = ranked.author_id " +
+            "WHERE ranked.rn <= :limit " +
+            "ORDER BY ranked.item_id, ranked.id DESC", nativeQuery = true)
+    List<ItemCommentView> findLatestByItemIds(@Param("itemIds") Collection<Integer> itemIds,
+                                              @Param("limit") int limit);
 
-    @EntityGraph(attributePaths = {"item", "author", "item.owner"})
-    List<Comment> findByItem_Owner_Id(int userId);
-}
\ No newline at end of file
+    @EntityGraph(attributePaths = "author")
+    List<Comment> findByItem_IdAndIdLessThanOrderByIdDesc(Integer itemId, Integer id, Pageable page);
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.storage;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+public interface ItemAvailabilityRepository {
+
+    /**
+     * Marks the available items among {@code itemIds} that an approved booking is using at {@code now} unavailable,
+     * recording in {@code booking_hold} that the change was made for a booking. Returns the ids of the items that
+     * changed.
+     */
+    Set<Integer> holdForBookings(Collection<Integer> itemIds, LocalDateTime now);
+
+    /**
+     * Marks the items among {@code itemIds} that were made unavailable by {@link #holdForBookings} available again
+     * unless an approved booking of the item is in progress at {@code now}. Items the owner withdrew are left
+     * alone. Returns the ids of the items that changed.
+     */
+    Set<Integer> restoreAvailability(Collection<Integer> itemIds, LocalDateTime now);
+}
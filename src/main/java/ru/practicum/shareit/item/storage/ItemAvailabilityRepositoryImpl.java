@@ -0,0 +1,70 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ItemAvailabilityRepositoryImpl implements ItemAvailabilityRepository {
+    private static final int BATCH_SIZE = 100;
+    private static final String IN_USE = "EXISTS (SELECT 1 FROM bookings b WHERE b.item_id = items.id " +
+            "AND b.status = 'APPROVED' AND b.start_date <= ? AND b.end_date > ?)";
+    private static final String HOLD_FOR_BOOKING = "UPDATE items SET is_available = FALSE, booking_hold = TRUE " +
+            "WHERE id = ? AND is_available = TRUE AND " + IN_USE;
+    private static final String RESTORE_AVAILABILITY = "UPDATE items SET is_available = TRUE, booking_hold = FALSE " +
+            "WHERE id = ? AND booking_hold = TRUE AND NOT " + IN_USE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public ItemAvailabilityRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Set<Integer> holdForBookings(Collection<Integer> itemIds, LocalDateTime now) {
+        return update(HOLD_FOR_BOOKING, itemIds, now);
+    }
+
+    @Override
+    public Set<Integer> restoreAvailability(Collection<Integer> itemIds, LocalDateTime now) {
+        return update(RESTORE_AVAILABILITY, itemIds, now);
+    }
+
+    private Set<Integer> update(String sql, Collection<Integer> itemIds, LocalDateTime now) {
+        Timestamp at = Timestamp.valueOf(now);
+        ParameterizedPreparedStatementSetter<Integer> setter = (statement, id) -> {
+            statement.setInt(1, id);
+            statement.setTimestamp(2, at);
+            statement.setTimestamp(3, at);
+        };
+        List<Integer> ids = new ArrayList<>(itemIds);
+        int[][] counts = jdbcTemplate.batchUpdate(sql, ids, BATCH_SIZE, setter);
+        Set<Integer> changed = new HashSet<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    changed.add(ids.get(index));
+                }
+                index++;
+            }
+        }
+        // Обновление идёт мимо Hibernate, поэтому кэш второго уровня про эти предметы надо забыть.
+        // Вытеснение ждёт фиксации: иначе параллельное чтение успеет вернуть в кэш прежнюю доступность
+        AfterCommit.run(() -> changed.forEach(id -> entityManagerFactory.getCache().evict(Item.class, id)));
+        return changed;
+    }
+}
@@ -1,47 +1,99 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.query.Procedure;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.HeldItemView;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ItemStorage extends JpaRepository<Item, Integer> {
+public interface ItemStorage extends JpaRepository<Item, Integer>, ItemAvailabilityRepository {
 
     @EntityGraph(attributePaths = "owner")
     Optional<Item> findById(Integer id);
 
     @EntityGraph(attributePaths = "owner")
-    List<Item> findItemsByOwnerId(Integer ownerId);
+    List<Item> findByOwnerIdAndIdGreaterThanOrderByIdAsc(Integer ownerId, Integer id, Pageable page);
 
     @Query(value = "SELECT * FROM items i " +
-            "WHERE i.name ILIKE %:search% " +
-            "OR i.description ILIKE %:search%", nativeQuery = true)
-    List<Item> search(@Param("search") String text);
+            "WHERE i.is_available = TRUE " +
+            "AND (i.name ILIKE %:search% OR i.description ILIKE %:search%) " +
+            "ORDER BY i.id", nativeQuery = true)
+    List<Item> search(@Param("search") String text, Pageable page);
+
+    List<Item> findByIdInAndAvailableTrue(Collection<Integer> ids);
+
+    long countByIdIn(Collection<Integer> ids);
+
+    @Query(value = "SELECT i.name FROM items i " +
+            "WHERE i.is_available = TRUE AND i.name ILIKE :prefix% " +
+            "GROUP BY i.name " +
+            "ORDER BY COUNT(*) DESC, i.name", nativeQuery = true)
+    List<String> suggestNames(@Param("prefix") String prefix, Pageable page);
+
+    List<Item> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable page);
 
     @EntityGraph(attributePaths = "owner")
     Optional<Item> findItemById(Integer id);
 
-    @Query(value = "SELECT CountAvailableItems()", nativeQuery = true)
-    Integer getCountAvailableItems();
-
     @Query(value = "SELECT SearchItems(:name)", nativeQuery = true)
     List<Item> searchItemsByName(@Param("name") String name);
 
-    @Procedure(name = "UpdateItemAvailability")
-    void updateItemAvailability();
-
     @Procedure(name = "AddCommentToItem")
     void addCommentToItem(Integer itemId, Integer userId, String commentText);
 
-    List<Item> findByRequest_Requestor_Id(Integer requestorId);
-
     Item findItemByRequestId(Integer requestId);
 
-    @Query("SELECT i FROM Item i JOIN FETCH i.request r WHERE r.id IN :requestIds")
-    List<Item> findItemsByRequestIds(@Param("requestIds") List<Integer> requestIds);
-}
\ No newline at end of file
+    /**
+     * Returns at most {@code limit} earliest items answering each of the requests, ordered by request and id.
+     */
+    @Query(value = "SELECT i.* FROM items i " +
+            "JOIN (" +
+            "SELECT id, ROW_NUMBER() OVER (PARTITION BY request_id ORDER BY id) AS rn " +
+            "FROM items " +
+            "WHERE request_id IN (:requestIds)" +
+            ") ranked ON ranked.id = i.id " +
+            "WHERE ranked.rn <= :limit " +
+            "ORDER BY i.request_id, i.id", nativeQuery = true)
+    List<Item> findItemsByRequestIds(@Param("requestIds") Collection<Integer> requestIds,
+                                     @Param("limit") int limit);
+
+    @Query(value = "SELECT i.* FROM request_suggestions s " +
+            "JOIN items i ON i.id = s.item_id " +
+            "WHERE s.request_id = :requestId " +
+            "ORDER BY s.score DESC, s.item_id", nativeQuery = true)
+    List<Item> findSuggestedItems(@Param("requestId") Integer requestId, Pageable page);
+
+    /**
+     * Returns the items after {@code afterId} in id order that an approved booking is using at {@code now},
+     * the next chunk for ItemAvailabilityJob to take out of circulation. Items already held or withdrawn are
+     * skipped by the update.
+     */
+    @Query("SELECT DISTINCT b.item.id FROM Booking b " +
+            "WHERE b.bookingStatus = 'APPROVED' AND b.end > :now AND b.start <= :now AND b.item.id > :afterId " +
+            "ORDER BY b.item.id")
+    List<Integer> findItemIdsInUseAfter(@Param("now") LocalDateTime now, @Param("afterId") Integer afterId,
+                                        Pageable page);
+
+    /**
+     * Returns the items after {@code afterId} in id order that were taken out of circulation for a booking and
+     * that no approved booking is using at {@code now}, the next chunk for ItemAvailabilityJob to bring back.
+     */
+    @Query("SELECT i.id AS id, " +
+            "(SELECT MAX(e.end) FROM Booking e WHERE e.item = i AND e.bookingStatus = 'APPROVED' " +
+            "AND e.end <= :now) AS lastEnd " +
+            "FROM Item i " +
+            "WHERE i.bookingHold = TRUE AND i.id > :afterId " +
+            "AND NOT EXISTS (SELECT b.id FROM Booking b WHERE b.item = i AND b.bookingStatus = 'APPROVED' " +
+            "AND b.start <= :now AND b.end > :now) " +
+            "ORDER BY i.id")
+    List<HeldItemView> findHeldItemsAfter(@Param("now") LocalDateTime now, @Param("afterId") Integer afterId,
+                                          Pageable page);
+}
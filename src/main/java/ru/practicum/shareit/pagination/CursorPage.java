@@ -0,0 +1,20 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paged listing. {@code nextCursor} is null on the last page.
+ * Controllers return the content as the body and the cursor in the {@link #NEXT_CURSOR_HEADER} header.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<T> content;
+
+    private String nextCursor;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.pagination;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Turns a {@link CursorPage} into a controller response: the content as the body
+ * and the cursor of the next page, if any, in the {@link CursorPage#NEXT_CURSOR_HEADER} header.
+ */
+public final class CursorResponses {
+
+    private CursorResponses() {
+    }
+
+    public static <T> ResponseEntity<List<T>> withNextCursor(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
+    }
+}
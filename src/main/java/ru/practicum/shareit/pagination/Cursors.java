@@ -0,0 +1,53 @@
+package ru.practicum.shareit.pagination;
+
+import ru.practicum.shareit.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset positions into opaque URL-safe cursors and back.
+ */
+public final class Cursors {
+    private static final String SEPARATOR = "|";
+
+    private Cursors() {
+    }
+
+    public static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (Object key : keys) {
+            if (raw.length() > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the keys of the cursor, throwing {@link InvalidCursorException} unless there are exactly {@code count}.
+     */
+    public static String[] decode(String cursor, int count) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
+        String[] keys = raw.split("\\" + SEPARATOR, -1);
+        if (keys.length != count) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
+        return keys;
+    }
+
+    public static int decodeInt(String cursor) {
+        try {
+            return Integer.parseInt(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
+    }
+}
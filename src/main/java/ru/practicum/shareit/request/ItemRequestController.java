@@ -1,13 +1,17 @@
 package ru.practicum.shareit.request;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.CursorResponses;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.RequestDtoResponse;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.validation.OnCreate;
 
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import java.util.List;
 
@@ -35,8 +39,12 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public List<RequestDtoResponse> getRequestsForRequester(@RequestHeader(HEADER_WITH_USER_ID) Integer userId) {
-        return requestService.getRequestsForRequester(userId);
+    public ResponseEntity<List<RequestDtoResponse>> getRequestsForRequester(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20", required = false)
+            @Min(value = 1) @Max(value = 500) Integer size,
+            @RequestHeader(HEADER_WITH_USER_ID) Integer userId) {
+        return CursorResponses.withNextCursor(requestService.getRequestsForRequester(userId, cursor, size));
     }
 
     @GetMapping("/{requestId}")
@@ -45,11 +53,24 @@ public class ItemRequestController {
         return requestService.getRequestById(requestId, userId);
     }
 
+    @GetMapping("/{requestId}/suggestions")
+    public List<ItemDto> getSuggestions(@PathVariable Integer requestId,
+                                        @RequestParam(value = "size", defaultValue = "20", required = false)
+                                        @Min(value = 1) @Max(value = 100) Integer size,
+                                        @RequestHeader(HEADER_WITH_USER_ID) Integer userId) {
+        return requestService.getSuggestions(requestId, userId, size);
+    }
+
     @GetMapping("/all")
-    public List<RequestDtoResponse> getRequests(
+    public ResponseEntity<List<RequestDtoResponse>> getRequests(
             @RequestParam(value = "from", defaultValue = "0", required = false) @Min(value = 0) Integer from,
-            @RequestParam(value = "size", defaultValue = "1", required = false) @Min(value = 0) Integer size,
+            @RequestParam(value = "size", defaultValue = "1", required = false)
+            @Min(value = 1) @Max(value = 500) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestHeader(HEADER_WITH_USER_ID) Integer userId) {
-        return requestService.getRequests(from, size, userId);
+        if (cursor == null) {
+            return ResponseEntity.ok(requestService.getRequests(from, size, userId));
+        }
+        return CursorResponses.withNextCursor(requestService.getRequestPage(cursor, size, userId));
     }
 }
\ No newline at end of file
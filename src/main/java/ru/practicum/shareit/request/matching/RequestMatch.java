@@ -0,0 +1,21 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * An item suggested for a request. The score is the number of distinct words the two share.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class RequestMatch {
+    private final int requestId;
+
+    private final int itemId;
+
+    private final int score;
+}
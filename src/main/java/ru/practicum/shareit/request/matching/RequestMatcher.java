@@ -0,0 +1,316 @@
+package ru.practicum.shareit.request.matching;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.Tokenizer;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestStorage;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Suggests new and updated items to the open requests whose descriptions share words with them.
+ * <p>
+ * Requests created within the last {@code open-days} are kept in an inverted word index, loaded on startup
+ * and extended as requests are created. Item writes only put a snapshot of the item on a bounded queue
+ * once their transaction commits; a scheduled drain scores queued items against the index and records
+ * their suggestions in one short transaction per batch, so item creation does no matching work.
+ * A full queue drops the snapshot, and the item is matched again on its next update. The items of a batch whose
+ * transaction fails are queued again for the next drain, up to {@code max-attempts} tries, and then dropped.
+ * <p>
+ * Metrics: {@code shareit.request.matching.items} counts scored items, {@code shareit.request.matching.suggestions}
+ * recorded suggestions, {@code shareit.request.matching.dropped} snapshots lost to a full queue and
+ * {@code shareit.request.matching.failed} snapshots given up after {@code max-attempts} failed batches;
+ * {@code shareit.request.matching.queue} and {@code shareit.request.matching.requests} are the queue length and
+ * the number of indexed requests.
+ */
+@Slf4j
+@Component
+public class RequestMatcher {
+    // Слова короче трёх букв (предлоги, союзы) совпадают почти со всем и не индексируются
+    static final int MIN_TOKEN_LENGTH = 3;
+    // Для одного предмета сохраняются только лучшие совпадения, чтобы общие слова не порождали тысячи строк
+    static final int MAX_MATCHES_PER_ITEM = 50;
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final ItemRequestStorage itemRequestStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long openDays;
+    private final int minSharedTokens;
+    private final int maxAttempts;
+    private final BlockingQueue<ItemSnapshot> queue;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RequestTokenIndex index = new RequestTokenIndex();
+    private final Map<Integer, OpenRequest> openRequests = new HashMap<>();
+    private final Counter itemsScored;
+    private final Counter suggestionsRecorded;
+    private final Counter snapshotsDropped;
+    private final Counter snapshotsFailed;
+
+    @Autowired
+    public RequestMatcher(ItemRequestStorage itemRequestStorage, PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${shareit.request.matching.enabled:true}") boolean enabled,
+                          @Value("${shareit.request.matching.queue-capacity:10000}") int queueCapacity,
+                          @Value("${shareit.request.matching.batch-size:100}") int batchSize,
+                          @Value("${shareit.request.matching.open-days:30}") long openDays,
+                          @Value("${shareit.request.matching.min-shared-words:1}") int minSharedTokens,
+                          @Value("${shareit.request.matching.max-attempts:3}") int maxAttempts) {
+        this.itemRequestStorage = itemRequestStorage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.openDays = openDays;
+        this.minSharedTokens = minSharedTokens;
+        this.maxAttempts = maxAttempts;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.itemsScored = Counter.builder("shareit.request.matching.items")
+                .description("Items scored against open requests")
+                .register(meterRegistry);
+        this.suggestionsRecorded = Counter.builder("shareit.request.matching.suggestions")
+                .description("Suggestions recorded for open requests")
+                .register(meterRegistry);
+        this.snapshotsDropped = Counter.builder("shareit.request.matching.dropped")
+                .description("Item snapshots dropped because the matching queue was full")
+                .register(meterRegistry);
+        this.snapshotsFailed = Counter.builder("shareit.request.matching.failed")
+                .description("Item snapshots dropped after their batch failed max-attempts times")
+                .register(meterRegistry);
+        Gauge.builder("shareit.request.matching.queue", queue, BlockingQueue::size)
+                .description("Items waiting to be matched")
+                .register(meterRegistry);
+        Gauge.builder("shareit.request.matching.requests", this, RequestMatcher::openRequestCount)
+                .description("Open requests in the word index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime openSince = LocalDateTime.now().minusDays(openDays);
+        int lastId = 0;
+        List<ItemRequest> chunk;
+        do {
+            chunk = itemRequestStorage.findByIdGreaterThanAndCreatedAfterOrderByIdAsc(lastId, openSince,
+                    PageRequest.of(0, LOAD_CHUNK_SIZE));
+            for (ItemRequest request : chunk) {
+                put(request);
+                lastId = request.getId();
+            }
+        } while (chunk.size() == LOAD_CHUNK_SIZE);
+        log.info("Request matching index loaded with {} open requests", openRequestCount());
+    }
+
+    /**
+     * Adds a new request to the index once the current transaction commits.
+     */
+    public void register(ItemRequest request) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> put(request));
+    }
+
+    /**
+     * Queues the item for matching once the current transaction commits. Never blocks the caller.
+     */
+    public void submit(Item item) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> offer(new ItemSnapshot(sequence.incrementAndGet(), item.getId(),
+                item.getOwner().getId(), Boolean.TRUE.equals(item.getAvailable()), item.getName(),
+                item.getDescription(), 0)));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.request.matching.interval-ms:1000}")
+    public void drain() {
+        drain(LocalDateTime.now());
+    }
+
+    /**
+     * Matches the items queued before the call, one batch per transaction. Returns the number of suggestions
+     * recorded.
+     */
+    public synchronized int drain(LocalDateTime now) {
+        if (!enabled || queue.isEmpty()) {
+            return 0;
+        }
+        closeExpired(now.minusDays(openDays));
+        int recorded = 0;
+        // Снимки, возвращённые в очередь после сбоя, ждут следующего запуска, а не повторяются тут же
+        int pending = queue.size();
+        while (pending > 0) {
+            // Один и тот же предмет мог попасть в очередь несколько раз, сопоставляется последний снимок
+            Map<Integer, ItemSnapshot> batch = new LinkedHashMap<>();
+            for (int i = 0; i < batchSize && pending > 0; i++, pending--) {
+                ItemSnapshot snapshot = queue.poll();
+                if (snapshot == null) {
+                    break;
+                }
+                batch.merge(snapshot.itemId, snapshot,
+                        (queued, next) -> queued.sequence > next.sequence ? queued : next);
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<RequestMatch> matches = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                batch.values().forEach(snapshot -> matches.addAll(match(snapshot)));
+            } finally {
+                lock.readLock().unlock();
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        itemRequestStorage.replaceSuggestions(batch.keySet(), matches, now));
+            } catch (RuntimeException e) {
+                log.warn("Failed to record suggestions for items {}", batch.keySet(), e);
+                batch.values().forEach(this::retry);
+                continue;
+            }
+            itemsScored.increment(batch.size());
+            suggestionsRecorded.increment(matches.size());
+            recorded += matches.size();
+        }
+        return recorded;
+    }
+
+    int openRequestCount() {
+        lock.readLock().lock();
+        try {
+            return openRequests.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void offer(ItemSnapshot snapshot) {
+        if (!queue.offer(snapshot)) {
+            snapshotsDropped.increment();
+            log.debug("Matching queue is full, item {} is not matched", snapshot.itemId);
+        }
+    }
+
+    private void retry(ItemSnapshot snapshot) {
+        int attempts = snapshot.attempts + 1;
+        if (attempts >= maxAttempts) {
+            snapshotsFailed.increment();
+            log.warn("Item {} is not matched after {} failed attempts", snapshot.itemId, attempts);
+            return;
+        }
+        offer(new ItemSnapshot(snapshot.sequence, snapshot.itemId, snapshot.ownerId, snapshot.available,
+                snapshot.name, snapshot.description, attempts));
+    }
+
+    private List<RequestMatch> match(ItemSnapshot item) {
+        if (!item.available) {
+            return List.of();
+        }
+        List<String> tokens = tokenize(item.name);
+        tokens.addAll(tokenize(item.description));
+        return index.sharedTokens(tokens).entrySet().stream()
+                .filter(shared -> shared.getValue() >= minSharedTokens)
+                .filter(shared -> openRequests.get(shared.getKey()).requestorId != item.ownerId)
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_MATCHES_PER_ITEM)
+                .map(shared -> new RequestMatch(shared.getKey(), item.itemId, shared.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private void put(ItemRequest request) {
+        lock.writeLock().lock();
+        try {
+            openRequests.put(request.getId(), new OpenRequest(request.getRequestor().getId(), request.getCreated()));
+            index.put(request.getId(), tokenize(request.getDescription()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void closeExpired(LocalDateTime openSince) {
+        lock.writeLock().lock();
+        try {
+            Iterator<Map.Entry<Integer, OpenRequest>> requests = openRequests.entrySet().iterator();
+            while (requests.hasNext()) {
+                Map.Entry<Integer, OpenRequest> request = requests.next();
+                if (!request.getValue().created.isAfter(openSince)) {
+                    index.remove(request.getKey());
+                    requests.remove();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        return Tokenizer.tokenize(text).stream()
+                .filter(token -> token.length() >= MIN_TOKEN_LENGTH)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static final class OpenRequest {
+        private final int requestorId;
+        private final LocalDateTime created;
+
+        private OpenRequest(int requestorId, LocalDateTime created) {
+            this.requestorId = requestorId;
+            this.created = created;
+        }
+    }
+
+    private static final class ItemSnapshot {
+        // Порядковый номер снимка: повторно поставленный в очередь снимок не должен затереть более новый
+        private final long sequence;
+        private final int itemId;
+        private final int ownerId;
+        private final boolean available;
+        private final String name;
+        private final String description;
+        private final int attempts;
+
+        private ItemSnapshot(long sequence, int itemId, int ownerId, boolean available, String name,
+                             String description, int attempts) {
+            this.sequence = sequence;
+            this.itemId = itemId;
+            this.ownerId = ownerId;
+            this.available = available;
+            this.name = name;
+            this.description = description;
+            this.attempts = attempts;
+        }
+    }
+}
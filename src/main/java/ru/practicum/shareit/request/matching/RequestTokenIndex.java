@@ -0,0 +1,63 @@
+package ru.practicum.shareit.request.matching;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from description words to the ids of the requests that contain them. Not thread-safe.
+ */
+final class RequestTokenIndex {
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private final Map<Integer, Set<String>> tokensByRequest = new HashMap<>();
+
+    void put(int requestId, Collection<String> tokens) {
+        remove(requestId);
+        Set<String> distinct = new HashSet<>(tokens);
+        tokensByRequest.put(requestId, distinct);
+        for (String token : distinct) {
+            postings.computeIfAbsent(token, key -> new HashSet<>()).add(requestId);
+        }
+    }
+
+    void remove(int requestId) {
+        Set<String> tokens = tokensByRequest.remove(requestId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<Integer> requests = postings.get(token);
+            requests.remove(requestId);
+            if (requests.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Returns, for every request sharing at least one of the tokens, the number of distinct tokens it shares.
+     */
+    Map<Integer, Integer> sharedTokens(Collection<String> tokens) {
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (String token : new HashSet<>(tokens)) {
+            Set<Integer> requests = postings.get(token);
+            if (requests != null) {
+                for (Integer requestId : requests) {
+                    shared.merge(requestId, 1, Integer::sum);
+                }
+            }
+        }
+        return shared;
+    }
+
+    int size() {
+        return tokensByRequest.size();
+    }
+
+    void clear() {
+        postings.clear();
+        tokensByRequest.clear();
+    }
+}
@@ -7,22 +7,27 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.InvalidCursorException;
 import ru.practicum.shareit.exception.RequestNotExistsException;
 import ru.practicum.shareit.exception.UserNotExistsException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.RequestDtoResponse;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.matching.RequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -31,19 +36,27 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ItemRequestService {
 
+    // Сколько предметов-ответов показывается у одной заявки в списках заявок
+    public static final int ITEMS_PER_REQUEST = 10;
+
+    private static final LocalDateTime FIRST_PAGE_CREATED = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime LAST_PAGE_CREATED = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final ItemRequestMapper itemRequestMapper;
     private final ItemRequestStorage itemRequestStorage;
     private final UserStorage userStorage;
     private final ItemStorage itemStorage;
     private final ItemMapper itemMapper;
+    private final RequestMatcher requestMatcher;
 
     @Autowired
-    public ItemRequestService(ItemRequestMapper itemRequestMapper, ItemRequestStorage itemRequestStorage, UserStorage userStorage, ItemStorage itemStorage, ItemMapper itemMapper) {
+    public ItemRequestService(ItemRequestMapper itemRequestMapper, ItemRequestStorage itemRequestStorage, UserStorage userStorage, ItemStorage itemStorage, ItemMapper itemMapper, RequestMatcher requestMatcher) {
         this.itemRequestMapper = itemRequestMapper;
         this.itemRequestStorage = itemRequestStorage;
         this.userStorage = userStorage;
         this.itemStorage = itemStorage;
         this.itemMapper = itemMapper;
+        this.requestMatcher = requestMatcher;
     }
 
     @Transactional()
@@ -52,28 +65,25 @@ public class ItemRequestService {
                 .orElseThrow(() -> new UserNotExistsException("User with same id not exists"));
         ItemRequest itemRequestFromDto = itemRequestMapper.toItemRequestFromDto(itemRequestDto, user);
         ItemRequest savedRequest = itemRequestStorage.save(itemRequestFromDto);
+        requestMatcher.register(savedRequest);
         return itemRequestMapper.toDtoFromItemRequest(savedRequest);
     }
 
     @Transactional(readOnly = true)
-    public List<RequestDtoResponse> getRequestsForRequester(Integer userId) {
+    public CursorPage<RequestDtoResponse> getRequestsForRequester(Integer userId, String cursor, int size) {
         if (!userStorage.existsById(userId)) {
             throw new UserNotExistsException("User with id " + userId + " does not exist.");
         }
-
-        List<Item> items = itemStorage.findByRequest_Requestor_Id(userId);
-
-        List<ItemRequest> requests = itemRequestStorage.findByRequestor_Id(userId);
-
-        Map<Integer, List<ItemDto>> itemsByRequestId = items.stream()
-                .map(itemMapper::toItemDto)
-                .collect(Collectors.groupingBy(ItemDto::getRequestId));
-
-        return requests.stream()
-                .map(itemRequestMapper::toRequestDtoResponse)
-                .peek(dto -> dto.setItems(itemsByRequestId.getOrDefault(dto.getId(), Collections.emptyList())))
-                .sorted(Comparator.comparing(RequestDtoResponse::getCreated))
-                .collect(Collectors.toList());
+        LocalDateTime cursorCreated = FIRST_PAGE_CREATED;
+        Integer cursorId = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = Cursors.decode(cursor, 2);
+            cursorCreated = parseCursorCreated(keys[0], cursor);
+            cursorId = parseCursorId(keys[1], cursor);
+        }
+        Slice<ItemRequest> requests = itemRequestStorage.findRequestorRequestsAfter(userId, cursorCreated, cursorId,
+                PageRequest.of(0, size));
+        return toCursorPage(requests);
     }
 
     @Transactional(readOnly = true)
@@ -90,26 +100,85 @@ public class ItemRequestService {
         return requestDtoResponse;
     }
 
+    /**
+     * Returns at most {@code size} items suggested for the request by {@link RequestMatcher}, best match first.
+     */
+    @Transactional(readOnly = true)
+    public List<ItemDto> getSuggestions(Integer requestId, Integer userId, int size) {
+        if (!userStorage.existsById(userId)) {
+            throw new UserNotExistsException("User with id " + userId + " does not exist.");
+        }
+        if (!itemRequestStorage.existsById(requestId)) {
+            throw new RequestNotExistsException("Request with id " + requestId + " does not exist.");
+        }
+        return itemStorage.findSuggestedItems(requestId, PageRequest.of(0, size)).stream()
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
     @Transactional(readOnly = true)
     public List<RequestDtoResponse> getRequests(Integer from, Integer size, Integer userId) {
-        Pageable pageable = PageRequest.of(from, size);
+        Pageable pageable = PageRequest.of(from / size, size);
         Slice<ItemRequest> slice = itemRequestStorage.findAllItemRequestsSortedByCreatedDesc(pageable, userId);
+        return withItems(slice.getContent());
+    }
 
-        List<Integer> requestIds = slice.getContent().stream()
-                .map(ItemRequest::getId)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<RequestDtoResponse> getRequestPage(String cursor, int size, Integer userId) {
+        LocalDateTime cursorCreated = LAST_PAGE_CREATED;
+        Integer cursorId = Integer.MAX_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = Cursors.decode(cursor, 2);
+            cursorCreated = parseCursorCreated(keys[0], cursor);
+            cursorId = parseCursorId(keys[1], cursor);
+        }
+        Slice<ItemRequest> requests = itemRequestStorage.findOtherRequestsBefore(userId, cursorCreated, cursorId,
+                PageRequest.of(0, size));
+        return toCursorPage(requests);
+    }
 
-        List<Item> items = itemStorage.findItemsByRequestIds(requestIds);
+    private CursorPage<RequestDtoResponse> toCursorPage(Slice<ItemRequest> requests) {
+        List<ItemRequest> content = requests.getContent();
+        String nextCursor = null;
+        if (requests.hasNext() && !content.isEmpty()) {
+            ItemRequest last = content.get(content.size() - 1);
+            nextCursor = Cursors.encode(last.getCreated(), last.getId());
+        }
+        return new CursorPage<>(withItems(content), nextCursor);
+    }
 
-        Map<Integer, List<ItemDto>> itemsByRequestId = items.stream()
+    /**
+     * Maps the requests keeping their order and attaches at most {@link #ITEMS_PER_REQUEST} answering items to each.
+     */
+    private List<RequestDtoResponse> withItems(List<ItemRequest> requests) {
+        // Предметы-ответы читаются только для переданных заявок, не больше ITEMS_PER_REQUEST на заявку
+        List<Integer> requestIds = requests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+        Map<Integer, List<ItemDto>> itemsByRequestId = requestIds.isEmpty() ? Collections.emptyMap()
+                : itemStorage.findItemsByRequestIds(requestIds, ITEMS_PER_REQUEST).stream()
                 .map(itemMapper::toItemDto)
                 .collect(Collectors.groupingBy(ItemDto::getRequestId));
 
-        List<RequestDtoResponse> result = slice.getContent().stream()
+        return requests.stream()
                 .map(itemRequestMapper::toRequestDtoResponse)
                 .peek(dto -> dto.setItems(itemsByRequestId.getOrDefault(dto.getId(), Collections.emptyList())))
                 .collect(Collectors.toList());
+    }
 
-        return result;
+    private static LocalDateTime parseCursorCreated(String key, String cursor) {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
+    }
+
+    private static Integer parseCursorId(String key, String cursor) {
+        try {
+            return Integer.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
     }
-}
\ No newline at end of file
+}
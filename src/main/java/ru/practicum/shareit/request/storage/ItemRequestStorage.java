@@ -7,12 +7,29 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface ItemRequestStorage extends JpaRepository<ItemRequest, Integer> {
+public interface ItemRequestStorage extends JpaRepository<ItemRequest, Integer>, RequestSuggestionRepository {
 
-    List<ItemRequest> findByRequestor_Id(Integer requestor);
+    List<ItemRequest> findByIdGreaterThanAndCreatedAfterOrderByIdAsc(Integer id, LocalDateTime created,
+                                                                      Pageable page);
 
-    @Query("SELECT ir FROM ItemRequest ir WHERE ir.requestor.id <> :userId ORDER BY ir.created DESC")
+    @Query("SELECT ir FROM ItemRequest ir " +
+            "WHERE ir.requestor.id = :userId " +
+            "AND (ir.created > :cursorCreated OR (ir.created = :cursorCreated AND ir.id > :cursorId)) " +
+            "ORDER BY ir.created, ir.id")
+    Slice<ItemRequest> findRequestorRequestsAfter(@Param("userId") Integer userId,
+            @Param("cursorCreated") LocalDateTime cursorCreated, @Param("cursorId") Integer cursorId, Pageable page);
+
+    @Query("SELECT ir FROM ItemRequest ir WHERE ir.requestor.id <> :userId ORDER BY ir.created DESC, ir.id DESC")
     Slice<ItemRequest> findAllItemRequestsSortedByCreatedDesc(Pageable pageable, @Param("userId") Integer userId);
-}
\ No newline at end of file
+
+    // Условие ir.created <= :cursorCreated избыточно, но даёт диапазон по индексу (created DESC, id DESC)
+    @Query("SELECT ir FROM ItemRequest ir " +
+            "WHERE ir.requestor.id <> :userId AND ir.created <= :cursorCreated " +
+            "AND (ir.created < :cursorCreated OR (ir.created = :cursorCreated AND ir.id < :cursorId)) " +
+            "ORDER BY ir.created DESC, ir.id DESC")
+    Slice<ItemRequest> findOtherRequestsBefore(@Param("userId") Integer userId,
+            @Param("cursorCreated") LocalDateTime cursorCreated, @Param("cursorId") Integer cursorId, Pageable page);
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.request.storage;
+
+import ru.practicum.shareit.request.matching.RequestMatch;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface RequestSuggestionRepository {
+
+    /**
+     * Drops every suggestion of the {@code itemIds} and records {@code matches} instead,
+     * so an item that no longer fits a request stops being suggested for it.
+     */
+    void replaceSuggestions(Collection<Integer> itemIds, Collection<RequestMatch> matches, LocalDateTime now);
+}
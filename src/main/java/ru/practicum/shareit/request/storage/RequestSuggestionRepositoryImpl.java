@@ -0,0 +1,37 @@
+package ru.practicum.shareit.request.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.request.matching.RequestMatch;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+
+public class RequestSuggestionRepositoryImpl implements RequestSuggestionRepository {
+    private static final int BATCH_SIZE = 100;
+    private static final String DELETE_SUGGESTIONS = "DELETE FROM request_suggestions WHERE item_id = ?";
+    private static final String INSERT_SUGGESTION = "INSERT INTO request_suggestions " +
+            "(request_id, item_id, score, created) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public RequestSuggestionRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void replaceSuggestions(Collection<Integer> itemIds, Collection<RequestMatch> matches, LocalDateTime now) {
+        jdbcTemplate.batchUpdate(DELETE_SUGGESTIONS, new ArrayList<>(itemIds), BATCH_SIZE,
+                (statement, itemId) -> statement.setInt(1, itemId));
+        Timestamp created = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_SUGGESTION, new ArrayList<>(matches), BATCH_SIZE, (statement, match) -> {
+            statement.setInt(1, match.getRequestId());
+            statement.setInt(2, match.getItemId());
+            statement.setInt(3, match.getScore());
+            statement.setTimestamp(4, created);
+        });
+    }
+}
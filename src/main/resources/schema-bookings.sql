@@ -0,0 +1,43 @@
+-- Бронирования для баз без декларативного секционирования, применяется после schema.sql.
+-- Профиль postgres вместо этого файла берёт schema-postgresql-bookings.sql: те же столбцы, секции по end_date.
+CREATE TABLE IF NOT EXISTS bookings
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    item_id    BIGINT                                  NOT NULL,
+    booker_id  BIGINT                                  NOT NULL,
+    status     VARCHAR(255)                            NOT NULL,
+    version    BIGINT                                  NOT NULL DEFAULT 0,
+    CONSTRAINT pk_booking PRIMARY KEY (id),
+    CONSTRAINT fk_booking_item FOREIGN KEY (item_id) REFERENCES items (id),
+    CONSTRAINT fk_booking_booker FOREIGN KEY (booker_id) REFERENCES users (id)
+);
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+-- В H2 нет частичных индексов: статус в начале заменяет WHERE status = 'APPROVED' из схемы postgres,
+-- иначе H2 выбирает для ItemAvailabilityJob idx_bookings_waiting и читает все подтверждённые бронирования.
+CREATE INDEX IF NOT EXISTS idx_bookings_end ON bookings (status, end_date, id);
+CREATE INDEX IF NOT EXISTS idx_bookings_waiting ON bookings (status, id);
+
+-- Бронирования, закончившиеся до границы архива: их переносит BookingArchiver, списки объединяют их с bookings.
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         BIGINT                      NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL,
+    booker_id  BIGINT                      NOT NULL,
+    status     VARCHAR(255)                NOT NULL,
+    version    BIGINT                      NOT NULL DEFAULT 0,
+    CONSTRAINT pk_booking_archive PRIMARY KEY (id),
+    CONSTRAINT fk_booking_archive_item FOREIGN KEY (item_id) REFERENCES items (id),
+    CONSTRAINT fk_booking_archive_booker FOREIGN KEY (booker_id) REFERENCES users (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_start ON bookings_archive (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_start ON bookings_archive (item_id, start_date DESC, id DESC);
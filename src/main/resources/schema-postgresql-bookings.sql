@@ -0,0 +1,51 @@
+-- Бронирования, секционированные по диапазонам end_date: профиль postgres берёт этот файл вместо schema-bookings.sql.
+-- BookingArchiver держит месячные секции bookings_pYYYYMM на несколько месяцев вперёд, а когда месяц выходит
+-- за срок хранения, отсоединяет его секцию от bookings и присоединяет к bookings_archive.
+-- Строки вне всех месячных секций, например созданные до секционирования или далеко вперёд, остаются в секции
+-- по умолчанию. Первичный ключ секционированной таблицы обязан включать ключ секционирования, уникальность id
+-- обеспечивает identity-столбец.
+CREATE TABLE IF NOT EXISTS bookings
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    item_id    BIGINT                                  NOT NULL,
+    booker_id  BIGINT                                  NOT NULL,
+    status     VARCHAR(255)                            NOT NULL,
+    version    BIGINT                                  NOT NULL DEFAULT 0,
+    CONSTRAINT pk_booking PRIMARY KEY (id, end_date),
+    CONSTRAINT fk_booking_item FOREIGN KEY (item_id) REFERENCES items (id),
+    CONSTRAINT fk_booking_booker FOREIGN KEY (booker_id) REFERENCES users (id)
+) PARTITION BY RANGE (end_date);
+
+CREATE TABLE IF NOT EXISTS bookings_default PARTITION OF bookings DEFAULT;
+
+-- В базах, созданных до секционирования, bookings остаётся обычной таблицей, и BookingArchiver переносит строки.
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+-- ItemAvailabilityJob нужны только подтверждённые бронирования, и читает он те, что ещё не закончились.
+CREATE INDEX IF NOT EXISTS idx_bookings_end ON bookings (end_date, id) WHERE status = 'APPROVED';
+-- WaitingBookingExpiry при запуске читает бронирования в статусе WAITING по id.
+CREATE INDEX IF NOT EXISTS idx_bookings_waiting ON bookings (id) WHERE status = 'WAITING';
+
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         BIGINT                      NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL,
+    booker_id  BIGINT                      NOT NULL,
+    status     VARCHAR(255)                NOT NULL,
+    version    BIGINT                      NOT NULL DEFAULT 0,
+    CONSTRAINT pk_booking_archive PRIMARY KEY (id, end_date),
+    CONSTRAINT fk_booking_archive_item FOREIGN KEY (item_id) REFERENCES items (id),
+    CONSTRAINT fk_booking_archive_booker FOREIGN KEY (booker_id) REFERENCES users (id)
+) PARTITION BY RANGE (end_date);
+
+CREATE TABLE IF NOT EXISTS bookings_archive_default PARTITION OF bookings_archive DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_start ON bookings_archive (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_start ON bookings_archive (item_id, start_date DESC, id DESC);
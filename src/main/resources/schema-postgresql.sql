@@ -0,0 +1,13 @@
+-- Объекты только для PostgreSQL, профиль postgres применяет их после schema.sql.
+
+-- Триграммные GIN-индексы обслуживают поиск предметов по ILIKE '%text%' без последовательного чтения таблицы.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING gin (description gin_trgm_ops);
+
+-- Частичные индексы оставляют списки WAITING коротким диапазоном, сколько бы бронирований ни было уже решено.
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_waiting ON bookings (booker_id, start_date DESC, id DESC)
+    WHERE status = 'WAITING';
+CREATE INDEX IF NOT EXISTS idx_bookings_item_waiting ON bookings (item_id, start_date DESC, id DESC)
+    WHERE status = 'WAITING';
@@ -23,6 +23,8 @@ CREATE TABLE IF NOT EXISTS items
     name         VARCHAR(255)                            NOT NULL,
     description  VARCHAR(1000)                           NOT NULL,
     is_available BOOLEAN                                 NOT NULL,
+    -- Предмет снят с выдачи на время идущего бронирования, а не владельцем: только такой возвращается задачей
+    booking_hold BOOLEAN DEFAULT FALSE                   NOT NULL,
     owner_id     BIGINT                                  NOT NULL,
     request_id   BIGINT,
     CONSTRAINT pk_item PRIMARY KEY (id),
@@ -30,19 +32,29 @@ CREATE TABLE IF NOT EXISTS items
     CONSTRAINT fk_item_request FOREIGN KEY (request_id) REFERENCES requests (id)
 );
 
-CREATE TABLE IF NOT EXISTS bookings
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id, id);
+-- id во втором столбце упорядочивает предметы внутри заявки для выборки первых N ответов
+CREATE INDEX IF NOT EXISTS idx_items_request_id ON items (request_id, id);
+-- Задача доступности проходит снятые на время бронирования предметы по id, их немного
+CREATE INDEX IF NOT EXISTS idx_items_booking_hold ON items (booking_hold, id);
+-- Заявки автора читаются страницами по (created, id), id в индексе нужен как второй ключ курсора
+CREATE INDEX IF NOT EXISTS idx_requests_requestor_created ON requests (requestor_id, created, id);
+-- Лента чужих заявок: порядок курсора, requestor_id в индексе отсекает свои заявки без чтения таблицы
+CREATE INDEX IF NOT EXISTS idx_requests_created ON requests (created DESC, id DESC, requestor_id);
+
+CREATE TABLE IF NOT EXISTS request_suggestions
 (
-    id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    start_date TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
-    end_date   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
-    item_id    BIGINT                                  NOT NULL,
-    booker_id  BIGINT                                  NOT NULL,
-    status     VARCHAR(255)                            NOT NULL,
-    CONSTRAINT pk_booking PRIMARY KEY (id),
-    CONSTRAINT fk_booking_item FOREIGN KEY (item_id) REFERENCES items (id),
-    CONSTRAINT fk_booking_booker FOREIGN KEY (booker_id) REFERENCES users (id)
+    request_id BIGINT                      NOT NULL,
+    item_id    BIGINT                      NOT NULL,
+    score      INTEGER                     NOT NULL,
+    created    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_request_suggestion PRIMARY KEY (request_id, item_id),
+    CONSTRAINT fk_request_suggestion_request FOREIGN KEY (request_id) REFERENCES requests (id),
+    CONSTRAINT fk_request_suggestion_item FOREIGN KEY (item_id) REFERENCES items (id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_request_suggestions_item ON request_suggestions (item_id);
+
 CREATE TABLE IF NOT EXISTS comments
 (
     id        BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -54,6 +66,9 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT fk_comment_author FOREIGN KEY (author_id) REFERENCES users (id)
 );
 
+-- Комментарии предмета читаются от новых к старым, в списке предметов только несколько последних
+CREATE INDEX IF NOT EXISTS idx_comments_item_latest ON comments (item_id, id DESC);
+
 -- ---Functions---
 -- --Функция для обновления поля isAvailable предмета после подтверждения бронирования--
 -- CREATE OR REPLACE FUNCTION update_item_availability()
@@ -9,14 +9,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.stream.BookingEventStream;
+import ru.practicum.shareit.exception.InvalidCursorException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
@@ -32,6 +40,9 @@ public class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
 
+    @MockBean
+    private BookingEventStream bookingEventStream;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -94,6 +105,59 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status").value(bookingResponseDto.getStatus().toString()));
     }
 
+    @Test
+    void streamBookingStatusesShouldStartAsyncEventStream() throws Exception {
+        when(bookingEventStream.subscribe(1)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/bookings/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void decideBookingsShouldReturnOutcomePerId() throws Exception {
+        when(bookingService.decideBookings(anyInt(), any()))
+                .thenReturn(List.of(
+                        new BookingDecisionDto(1, BookingDecisionDto.Outcome.DECIDED, BookingStatus.APPROVED),
+                        new BookingDecisionDto(2, BookingDecisionDto.Outcome.NOT_FOUND, null)));
+
+        mockMvc.perform(patch("/bookings/owner/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BookingBatchDecisionDto(List.of(1, 2), true)))
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookingId").value(1))
+                .andExpect(jsonPath("$[0].outcome").value("DECIDED"))
+                .andExpect(jsonPath("$[0].status").value("APPROVED"))
+                .andExpect(jsonPath("$[1].outcome").value("NOT_FOUND"));
+    }
+
+    @Test
+    void decideBookingsWithoutIdsShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(patch("/bookings/owner/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new BookingBatchDecisionDto(Collections.emptyList(), true)))
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void getBookingSummaryByOwnerShouldReturnCounters() throws Exception {
+        when(bookingService.getBookingSummaryByOwner(1))
+                .thenReturn(BookingSummaryDto.builder().all(5).current(1).past(2).future(2).waiting(1).build());
+
+        mockMvc.perform(get("/bookings/owner/summary")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(5))
+                .andExpect(jsonPath("$.future").value(2))
+                .andExpect(jsonPath("$.rejected").value(0));
+    }
+
     @Test
     void getBookingByIdShouldReturnBooking() throws Exception {
         when(bookingService.getBookingById(anyInt(), anyInt()))
@@ -132,4 +196,54 @@ public class BookingControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(bookingResponseDto.getId()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBookingByOwnerWithZeroSizeShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/bookings/owner")
+                        .param("size", "0")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void getBookingByUserWithCursorShouldReturnNextCursorHeader() throws Exception {
+        when(bookingService.getBookingPageByUser(anyString(), anyInt(), anyString(), anyInt()))
+                .thenReturn(new CursorPage<>(Collections.singletonList(bookingResponseDto), "next"));
+
+        mockMvc.perform(get("/bookings")
+                        .param("state", "ALL")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id").value(bookingResponseDto.getId()));
+        Mockito.verify(bookingService).getBookingPageByUser("ALL", 1, "", 1);
+    }
+
+    @Test
+    void getBookingByOwnerWithCursorOnLastPageShouldOmitNextCursorHeader() throws Exception {
+        when(bookingService.getBookingPageByOwner(anyString(), anyInt(), anyString(), anyInt()))
+                .thenReturn(new CursorPage<>(Collections.singletonList(bookingResponseDto), null));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .param("cursor", "abc")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$[0].id").value(bookingResponseDto.getId()));
+    }
+
+    @Test
+    void getBookingByUserWithMalformedCursorShouldReturnBadRequest() throws Exception {
+        when(bookingService.getBookingPageByUser(anyString(), anyInt(), anyString(), anyInt()))
+                .thenThrow(new InvalidCursorException("Malformed cursor: abc"));
+
+        mockMvc.perform(get("/bookings")
+                        .param("cursor", "abc")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Malformed cursor: abc"));
+    }
+}
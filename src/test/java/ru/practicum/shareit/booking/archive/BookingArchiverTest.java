@@ -0,0 +1,152 @@
+package ru.practicum.shareit.booking.archive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.CommentInputDto;
+import ru.practicum.shareit.item.dto.ItemDtoForOwner;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "shareit.booking.archive.retention-months=12")
+@Transactional
+class BookingArchiverTest {
+
+    @Autowired
+    private BookingArchiver bookingArchiver;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User owner;
+    private User booker;
+    private Booking oldBooking;
+    private Booking recentBooking;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setName("Owner");
+        owner.setEmail("archive-owner@example.com");
+        entityManager.persist(owner);
+
+        booker = new User();
+        booker.setName("Booker");
+        booker.setEmail("archive-booker@example.com");
+        entityManager.persist(booker);
+
+        Item item = new Item();
+        item.setName("Drill");
+        item.setDescription("Cordless drill");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        entityManager.persist(item);
+
+        LocalDateTime now = LocalDateTime.now();
+        oldBooking = booking(item, now.minusYears(2), BookingStatus.APPROVED);
+        recentBooking = booking(item, now.minusDays(3), BookingStatus.APPROVED);
+        entityManager.flush();
+    }
+
+    @Test
+    void archiveShouldMoveOnlyBookingsOlderThanRetention() {
+        BookingArchiver.ArchiveResult result = bookingArchiver.archive(YearMonth.now());
+        entityManager.clear();
+
+        assertThat(result.getRows()).isEqualTo(1);
+        assertThat(bookingRepository.findById(oldBooking.getId())).isEmpty();
+        assertThat(bookingRepository.findById(recentBooking.getId())).isPresent();
+    }
+
+    @Test
+    void listingsShouldStillContainArchivedBookings() {
+        bookingArchiver.archive(YearMonth.now());
+        entityManager.clear();
+
+        List<BookingResponseDto> bookerPast = bookingService.getBookingByUser("PAST", booker.getId(), 0, 10);
+        CursorPage<BookingResponseDto> ownerPast = bookingService.getBookingPageByOwner("PAST", owner.getId(), "", 1);
+        CursorPage<BookingResponseDto> ownerNext = bookingService.getBookingPageByOwner("PAST", owner.getId(),
+                ownerPast.getNextCursor(), 1);
+
+        assertThat(bookerPast).extracting(BookingResponseDto::getId)
+                .containsExactly(recentBooking.getId(), oldBooking.getId());
+        assertThat(ownerPast.getContent()).extracting(BookingResponseDto::getId).containsExactly(recentBooking.getId());
+        assertThat(ownerNext.getContent()).extracting(BookingResponseDto::getId).containsExactly(oldBooking.getId());
+        assertThat(ownerNext.getNextCursor()).isNull();
+        assertThat(bookingService.getBookingByUser("ALL", booker.getId(), 0, 10)).extracting(BookingResponseDto::getId)
+                .containsExactly(recentBooking.getId(), oldBooking.getId());
+        assertThat(bookingService.getBookingSummaryByUser(booker.getId()))
+                .extracting(BookingSummaryDto::getAll, BookingSummaryDto::getPast)
+                .containsExactly(2L, 2L);
+    }
+
+    @Test
+    void rejectedListingShouldContainArchivedRejectedBooking() {
+        oldBooking.setBookingStatus(BookingStatus.REJECTED);
+        entityManager.flush();
+        bookingArchiver.archive(YearMonth.now());
+        entityManager.clear();
+
+        CursorPage<BookingResponseDto> rejected = bookingService.getBookingPageByUser("REJECTED", booker.getId(),
+                "", 10);
+
+        assertThat(rejected.getContent()).extracting(BookingResponseDto::getId).containsExactly(oldBooking.getId());
+        assertThat(bookingService.getBookingSummaryByOwner(owner.getId()).getRejected()).isEqualTo(1);
+        CommentInputDto comment = CommentInputDto.builder().text("Worked fine").build();
+        assertThat(itemService.saveComment(comment, oldBooking.getItem().getId(), booker.getId()).getText())
+                .isEqualTo("Worked fine");
+    }
+
+    @Test
+    void itemViewsShouldShowArchivedLastBooking() {
+        recentBooking.setBookingStatus(BookingStatus.REJECTED);
+        entityManager.flush();
+        bookingArchiver.archive(YearMonth.now());
+        entityManager.clear();
+        Integer itemId = oldBooking.getItem().getId();
+
+        ItemDtoForOwner detail = (ItemDtoForOwner) itemService.getItemById(itemId, owner.getId());
+        CursorPage<ItemDtoForOwner> listing = itemService.getItemsByUserId(owner.getId(), "", 10);
+
+        assertThat(detail.getLastBooking().getId()).isEqualTo(oldBooking.getId());
+        assertThat(listing.getContent()).singleElement()
+                .extracting(dto -> dto.getLastBooking().getId()).isEqualTo(oldBooking.getId());
+    }
+
+    private Booking booking(Item item, LocalDateTime start, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+        booking.setBookingStatus(status);
+        entityManager.persist(booking);
+        return booking;
+    }
+}
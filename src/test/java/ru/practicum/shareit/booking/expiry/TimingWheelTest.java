@@ -0,0 +1,73 @@
+package ru.practicum.shareit.booking.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+    private static final long TICK = 10;
+    private static final int SIZE = 8;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 1_000);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void addShouldRefuseDeadlineWithinCurrentTick() {
+        assertThat(wheel.add(1_005, "now")).isFalse();
+        assertThat(wheel.add(990, "past")).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void advanceShouldExpireEntriesWhenTheirTickPasses() {
+        wheel.add(1_025, "a");
+        wheel.add(1_040, "b");
+
+        wheel.advance(1_019, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(1_020, expired::add);
+        assertThat(expired).containsExactly("a");
+
+        wheel.advance(1_070, expired::add);
+        assertThat(expired).containsExactly("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void advanceShouldCascadeEntriesFromOverflowWheels() {
+        // Первое колесо покрывает 80 мс, второе 640 мс, дальше уже третье
+        wheel.add(1_100, "overflow");
+        wheel.add(1_650, "second overflow");
+        wheel.add(1_050, "near");
+        assertThat(wheel.size()).isEqualTo(3);
+
+        wheel.advance(1_099, expired::add);
+        assertThat(expired).containsExactly("near");
+
+        wheel.advance(1_100, expired::add);
+        assertThat(expired).containsExactly("near", "overflow");
+
+        wheel.advance(1_649, expired::add);
+        assertThat(expired).hasSize(2);
+
+        wheel.advance(1_650, expired::add);
+        assertThat(expired).containsExactly("near", "overflow", "second overflow");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void advanceShouldExpireEverythingDueAfterLongPause() {
+        for (int i = 1; i <= 100; i++) {
+            wheel.add(1_000 + i * 37L, "e" + i);
+        }
+
+        wheel.advance(10_000, expired::add);
+
+        assertThat(expired).hasSize(100).startsWith("e1", "e2", "e3");
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.booking.expiry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
+import ru.practicum.shareit.booking.stream.BookingStatusChangedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WaitingBookingExpiryTest {
+    private static final long HOLD_TTL_MINUTES = 60;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingSchedule bookingSchedule;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private WaitingBookingExpiry expiry;
+    private Item item;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        expiry = new WaitingBookingExpiry(bookingRepository, bookingSchedule, eventPublisher, transactionManager,
+                HOLD_TTL_MINUTES, 1_000, 100);
+        User owner = new User();
+        owner.setId(5);
+        booker = new User();
+        booker.setId(6);
+        item = new Item();
+        item.setId(7);
+        item.setOwner(owner);
+    }
+
+    @Test
+    void expireShouldRejectBookingOnceHoldRunsOut() {
+        Booking booking = booking(1, now.plusMinutes(30));
+        expiry.track(booking);
+
+        assertThat(expiry.expire(now.plusMinutes(89))).isZero();
+        verifyNoInteractions(bookingRepository);
+
+        when(bookingRepository.decideWaitingBookings(Set.of(1), BookingStatus.REJECTED)).thenReturn(Set.of(1));
+        assertThat(expiry.expire(now.plusMinutes(91))).isEqualTo(1);
+        verify(bookingSchedule).release(7, 1, booking.getStart(), booking.getEnd());
+        verify(eventPublisher).publishEvent(new BookingStatusChangedEvent(1, 7, 6, 5, BookingStatus.REJECTED));
+        assertThat(expiry.size()).isZero();
+    }
+
+    @Test
+    void expireShouldRejectOverdueBookingOnNextTick() {
+        Booking booking = booking(2, now.minusHours(2));
+        expiry.track(booking);
+        when(bookingRepository.decideWaitingBookings(Set.of(2), BookingStatus.REJECTED)).thenReturn(Set.of(2));
+
+        assertThat(expiry.expire(now)).isEqualTo(1);
+        verify(bookingSchedule).release(7, 2, booking.getStart(), booking.getEnd());
+    }
+
+    @Test
+    void expireShouldLeaveBookingsDecidedInTheMeantime() {
+        expiry.track(booking(3, now.minusHours(2)));
+        when(bookingRepository.decideWaitingBookings(Set.of(3), BookingStatus.REJECTED)).thenReturn(Set.of());
+
+        assertThat(expiry.expire(now)).isZero();
+        verify(bookingSchedule, never()).release(anyInt(), anyInt(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void expireShouldRetryBatchThatFailed() {
+        expiry.track(booking(4, now.minusHours(2)));
+        when(bookingRepository.decideWaitingBookings(Set.of(4), BookingStatus.REJECTED))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(Set.of(4));
+
+        assertThat(expiry.expire(now)).isZero();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+        assertThat(expiry.expire(now.plusSeconds(1))).isEqualTo(1);
+        verify(eventPublisher).publishEvent(new BookingStatusChangedEvent(4, 7, 6, 5, BookingStatus.REJECTED));
+    }
+
+    private Booking booking(int id, LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(1));
+        booking.setBookingStatus(BookingStatus.WAITING);
+        return booking;
+    }
+}
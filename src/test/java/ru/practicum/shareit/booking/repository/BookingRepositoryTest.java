@@ -9,13 +9,19 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.booking.dto.BookingOwnershipView;
+import ru.practicum.shareit.booking.dto.BookingStateCounts;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.booking.dto.WaitingBookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -36,7 +42,8 @@ public class BookingRepositoryTest {
     private Booking futureBooking;
     private Booking waitingBooking;
     private PageRequest pageRequest;
-    LocalDateTime now = LocalDateTime.now();
+    // H2 хранит время с точностью до микросекунд, поэтому ключи из сущностей в памяти совпадают с записанными
+    LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     private User booker;
 
     @BeforeEach
@@ -122,33 +129,60 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    void whenFindAllCurrentBookingsWithItemAndBooker_thenSuccess() {
-        Slice<Booking> bookings = bookingRepository.findAllCurrentBookingsWithItemAndBooker(pageRequest);
+    void whenFindBookerCurrentBookings_thenSuccess() {
+        Slice<Booking> bookings = bookingRepository.findBookerCurrentBookings(booker.getId(), now, pageRequest);
         assertThat(bookings.getContent()).hasSize(1).extracting("id")
                 .containsExactly(currentBooking.getId());
     }
 
     @Test
-    void whenFindAllPastBookingsWithItemAndBooker_thenSuccess() {
-        Slice<Booking> bookings = bookingRepository.findAllPastBookingsWithItemAndBooker(pageRequest);
+    void whenFindBookerPastBookings_thenSuccess() {
+        Slice<Booking> bookings = bookingRepository.findBookerPastBookings(booker.getId(), now, pageRequest);
         assertThat(bookings.getContent()).hasSize(1).extracting("id")
                 .containsExactly(pastBooking.getId());
     }
 
     @Test
-    void whenFindAllFutureBookingsWithItemAndBooker_thenSuccess() {
-        Slice<Booking> bookings = bookingRepository.findAllFutureBookingsWithItemAndBooker(pageRequest);
+    void whenFindBookerFutureBookings_thenSuccess() {
+        Slice<Booking> bookings = bookingRepository.findBookerFutureBookings(booker.getId(), now, pageRequest);
         assertThat(bookings.getContent()).hasSize(2).extracting("id")
-                .containsExactlyInAnyOrder(futureBooking.getId(), waitingBooking.getId());
+                .containsExactly(waitingBooking.getId(), futureBooking.getId());
     }
 
     @Test
-    void whenFindWaitingBookingsSortedByStartDateDesc_thenSuccess() {
-        Slice<Booking> bookings = bookingRepository.findWaitingBookingsSortedByStartDateDesc(pageRequest);
+    void whenFindBookerWaitingBookings_thenSuccess() {
+        Slice<Booking> bookings = bookingRepository.findBookerWaitingBookings(booker.getId(), pageRequest);
         assertThat(bookings.getContent()).hasSize(1).extracting("id")
                 .containsExactly(waitingBooking.getId());
     }
 
+    @Test
+    void whenFindOwnerStateBookings_thenSuccess() {
+        assertThat(bookingRepository.findOwnerCurrentBookings(user.getId(), now, pageRequest).getContent())
+                .extracting("id").containsExactly(currentBooking.getId());
+        assertThat(bookingRepository.findOwnerPastBookings(user.getId(), now, pageRequest).getContent())
+                .extracting("id").containsExactly(pastBooking.getId());
+        assertThat(bookingRepository.findOwnerFutureBookings(user.getId(), now, pageRequest).getContent())
+                .extracting("id").containsExactly(waitingBooking.getId(), futureBooking.getId());
+        assertThat(bookingRepository.findOwnerWaitingBookings(user.getId(), pageRequest).getContent())
+                .extracting("id").containsExactly(waitingBooking.getId());
+    }
+
+    @Test
+    void whenFindStateBookingsOfAnotherUser_thenOtherUsersBookingsAreExcluded() {
+        User stranger = new User();
+        stranger.setName("Stranger");
+        stranger.setEmail("stranger@example.com");
+        entityManager.persist(stranger);
+
+        assertThat(bookingRepository.findBookerCurrentBookings(stranger.getId(), now, pageRequest)).isEmpty();
+        assertThat(bookingRepository.findBookerPastBookings(stranger.getId(), now, pageRequest)).isEmpty();
+        assertThat(bookingRepository.findBookerFutureBookings(stranger.getId(), now, pageRequest)).isEmpty();
+        assertThat(bookingRepository.findBookerWaitingBookings(stranger.getId(), pageRequest)).isEmpty();
+        assertThat(bookingRepository.findOwnerCurrentBookings(booker.getId(), now, pageRequest)).isEmpty();
+        assertThat(bookingRepository.findOwnerWaitingBookings(booker.getId(), pageRequest)).isEmpty();
+    }
+
     @Test
     void whenFindRejectedBookingsSortedByStartDateDesc_thenSuccess() {
         waitingBooking.setBookingStatus(BookingStatus.REJECTED);
@@ -173,14 +207,6 @@ public class BookingRepositoryTest {
         assertThat(bookings.getContent()).isNotEmpty();
     }
 
-    @Test
-    void whenFindByItem_Owner_IdAndStartBeforeAndEndAfterOrderByStartDesc_thenSuccess() {
-        LocalDateTime start = LocalDateTime.now().minusMinutes(30);
-        LocalDateTime end = LocalDateTime.now().plusMinutes(30);
-        Slice<Booking> bookings = bookingRepository.findByItem_Owner_IdAndStartBeforeAndEndAfterOrderByStartDesc(user.getId(), start, end, pageRequest);
-        assertThat(bookings.getContent()).isNotEmpty();
-    }
-
     @Test
     void whenFindNextBookingByItemIdExcludingRejected_thenSuccess() {
         Page<Booking> bookings = bookingRepository.findNextBookingByItemIdExcludingRejected(item.getId(), pageRequest);
@@ -195,14 +221,216 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    void whenExistsByItemIdAndUserIdAndEnded_thenSuccess() {
-        boolean exists = bookingRepository.existsByItemIdAndUserIdAndEnded(item.getId(), booker.getId());
+    void whenExistsByItemIdAndBookerIdAndEndBefore_thenSuccess() {
+        boolean exists = bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(item.getId(), booker.getId(), now);
+        boolean notYet = bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(item.getId(), booker.getId(),
+                pastBooking.getEnd());
+
         assertThat(exists).isTrue();
+        assertThat(notYet).isFalse();
+    }
+
+    @Test
+    void whenFindLastAndNextBookingsByItemIds_thenReturnOneRowOfEachKindPerItem() {
+        Booking rejectedBooking = new Booking();
+        rejectedBooking.setItem(item);
+        rejectedBooking.setBooker(booker);
+        rejectedBooking.setStart(now.plusHours(2));
+        rejectedBooking.setEnd(now.plusHours(3));
+        rejectedBooking.setBookingStatus(BookingStatus.REJECTED);
+        entityManager.persist(rejectedBooking);
+
+        List<ItemBookingView> views = bookingRepository.findLastAndNextBookingsByItemIds(List.of(item.getId()), now,
+                now);
+
+        assertThat(views).hasSize(2);
+        assertThat(views).filteredOn(view -> view.getKind() == ItemBookingView.Kind.LAST)
+                .singleElement()
+                .satisfies(view -> {
+                    assertThat(view.getItemId()).isEqualTo(item.getId());
+                    assertThat(view.getId()).isEqualTo(pastBooking.getId());
+                    assertThat(view.getBookerId()).isEqualTo(booker.getId());
+                });
+        assertThat(views).filteredOn(view -> view.getKind() == ItemBookingView.Kind.NEXT)
+                .singleElement()
+                .satisfies(view -> assertThat(view.getId()).isEqualTo(futureBooking.getId()));
+    }
+
+    @Test
+    void whenFindLastAndNextBookingsWithoutEndBound_thenLastIsStartedBooking() {
+        List<ItemBookingView> views = bookingRepository.findLastAndNextBookingsByItemIds(List.of(item.getId()), now,
+                LocalDateTime.of(9999, 12, 31, 23, 59, 59));
+
+        assertThat(views).filteredOn(view -> view.getKind() == ItemBookingView.Kind.LAST)
+                .singleElement()
+                .satisfies(view -> assertThat(view.getId()).isEqualTo(currentBooking.getId()));
+    }
+
+    @Test
+    void whenFindLastAndNextBookingsByUnknownItemIds_thenReturnNothing() {
+        assertThat(bookingRepository.findLastAndNextBookingsByItemIds(List.of(item.getId() + 1000), now, now))
+                .isEmpty();
+    }
+
+    @Test
+    void whenFindBookerBookingsBefore_thenPagesBySeekingPastLastRow() {
+        LocalDateTime firstPageStart = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+        Slice<Booking> firstPage = bookingRepository.findBookerBookingsBefore(booker.getId(), firstPageStart,
+                Integer.MAX_VALUE, PageRequest.of(0, 3));
+        assertThat(firstPage.getContent()).extracting("id")
+                .containsExactly(waitingBooking.getId(), futureBooking.getId(), currentBooking.getId());
+        assertThat(firstPage.hasNext()).isTrue();
+
+        Booking last = firstPage.getContent().get(2);
+        Slice<Booking> secondPage = bookingRepository.findBookerBookingsBefore(booker.getId(), last.getStart(),
+                last.getId(), PageRequest.of(0, 3));
+        assertThat(secondPage.getContent()).extracting("id").containsExactly(pastBooking.getId());
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @Test
+    void whenFindBookerBookingsBeforeWithSameStart_thenOrderById() {
+        Booking sameStart = new Booking();
+        sameStart.setItem(item);
+        sameStart.setBooker(booker);
+        sameStart.setStart(futureBooking.getStart());
+        sameStart.setEnd(futureBooking.getEnd());
+        sameStart.setBookingStatus(BookingStatus.REJECTED);
+        entityManager.persist(sameStart);
+
+        Slice<Booking> page = bookingRepository.findBookerBookingsBefore(booker.getId(), sameStart.getStart(),
+                sameStart.getId(), pageRequest);
+
+        assertThat(page.getContent()).extracting("id")
+                .containsExactly(futureBooking.getId(), currentBooking.getId(), pastBooking.getId());
+    }
+
+    @Test
+    void whenFindBookerBookingsBeforeWithCursorReadFromDatabase_thenContinueAfterLastRow() {
+        Booking sameStart = new Booking();
+        sameStart.setItem(item);
+        sameStart.setBooker(booker);
+        sameStart.setStart(futureBooking.getStart().plusNanos(123_456_789));
+        sameStart.setEnd(futureBooking.getEnd());
+        sameStart.setBookingStatus(BookingStatus.REJECTED);
+        entityManager.persist(sameStart);
+        entityManager.flush();
+        entityManager.clear();
+
+        LocalDateTime firstPageStart = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+        Slice<Booking> firstPage = bookingRepository.findBookerBookingsBefore(booker.getId(), firstPageStart,
+                Integer.MAX_VALUE, PageRequest.of(0, 2));
+        assertThat(firstPage.getContent()).extracting("id").containsExactly(waitingBooking.getId(), sameStart.getId());
+
+        // Курсор строится из строки, прочитанной из базы, как это делает контроллер
+        Booking last = firstPage.getContent().get(1);
+        Slice<Booking> secondPage = bookingRepository.findBookerBookingsBefore(booker.getId(), last.getStart(),
+                last.getId(), PageRequest.of(0, 10));
+        assertThat(secondPage.getContent()).extracting("id")
+                .containsExactly(futureBooking.getId(), currentBooking.getId(), pastBooking.getId());
+    }
+
+    @Test
+    void whenFindScopedStateBookingsBefore_thenReturnOnlyThatUsersRows() {
+        LocalDateTime firstPageStart = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+        assertThat(bookingRepository.findBookerCurrentBookingsBefore(booker.getId(), now, firstPageStart,
+                Integer.MAX_VALUE, pageRequest).getContent()).extracting("id").containsExactly(currentBooking.getId());
+        assertThat(bookingRepository.findOwnerPastBookingsBefore(user.getId(), now, firstPageStart,
+                Integer.MAX_VALUE, pageRequest).getContent()).extracting("id").containsExactly(pastBooking.getId());
+        assertThat(bookingRepository.findOwnerWaitingBookingsBefore(user.getId(), firstPageStart,
+                Integer.MAX_VALUE, pageRequest).getContent()).extracting("id").containsExactly(waitingBooking.getId());
+        assertThat(bookingRepository.findBookerFutureBookingsBefore(user.getId(), now, firstPageStart,
+                Integer.MAX_VALUE, pageRequest).getContent()).isEmpty();
+        assertThat(bookingRepository.findOwnerBookingsBefore(booker.getId(), firstPageStart,
+                Integer.MAX_VALUE, pageRequest).getContent()).isEmpty();
+    }
+
+    @Test
+    void whenDecideWaitingBooking_thenOnlyOwnersWaitingBookingIsUpdatedOnce() {
+        entityManager.flush();
+        Long version = waitingBooking.getVersion();
+
+        assertThat(bookingRepository.decideWaitingBooking(waitingBooking.getId(), booker.getId(),
+                BookingStatus.APPROVED)).isZero();
+        assertThat(bookingRepository.decideWaitingBooking(futureBooking.getId(), user.getId(),
+                BookingStatus.REJECTED)).isZero();
+        assertThat(bookingRepository.decideWaitingBooking(waitingBooking.getId(), user.getId(),
+                BookingStatus.APPROVED)).isEqualTo(1);
+        assertThat(bookingRepository.decideWaitingBooking(waitingBooking.getId(), user.getId(),
+                BookingStatus.REJECTED)).isZero();
+
+        Booking decided = entityManager.find(Booking.class, waitingBooking.getId());
+        assertThat(decided.getBookingStatus()).isEqualTo(BookingStatus.APPROVED);
+        assertThat(decided.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void whenFindOwnershipByIdIn_thenOwnerAndStatusOfExistingBookingsAreReturned() {
+        List<BookingOwnershipView> views = bookingRepository.findOwnershipByIdIn(
+                List.of(waitingBooking.getId(), pastBooking.getId(), Integer.MAX_VALUE));
+
+        assertThat(views).hasSize(2);
+        BookingOwnershipView waiting = views.stream()
+                .filter(view -> view.getId().equals(waitingBooking.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(waiting.getOwnerId()).isEqualTo(user.getId());
+        assertThat(waiting.getBookerId()).isEqualTo(booker.getId());
+        assertThat(waiting.getItemId()).isEqualTo(item.getId());
+        assertThat(waiting.getStatus()).isEqualTo(BookingStatus.WAITING);
+        assertThat(waiting.getStart()).isEqualTo(waitingBooking.getStart());
+    }
+
+    @Test
+    void whenDecideWaitingBookings_thenOnlyWaitingBookingsAreUpdated() {
+        entityManager.flush();
+
+        Set<Integer> decided = bookingRepository.decideWaitingBookings(
+                List.of(pastBooking.getId(), waitingBooking.getId()), BookingStatus.REJECTED);
+        entityManager.clear();
+
+        assertThat(decided).containsExactly(waitingBooking.getId());
+        assertThat(entityManager.find(Booking.class, waitingBooking.getId()).getBookingStatus())
+                .isEqualTo(BookingStatus.REJECTED);
+        assertThat(entityManager.find(Booking.class, pastBooking.getId()).getBookingStatus())
+                .isEqualTo(BookingStatus.APPROVED);
+    }
+
+    @Test
+    void whenCountBookingsByState_thenEveryStateIsCountedInOneRow() {
+        BookingStateCounts booker = bookingRepository.countBookerBookingsByState(this.booker.getId(), now);
+        BookingStateCounts owner = bookingRepository.countOwnerBookingsByState(user.getId(), now);
+
+        for (BookingStateCounts counts : List.of(booker, owner)) {
+            assertThat(counts.getAllCount()).isEqualTo(4);
+            assertThat(counts.getCurrentCount()).isEqualTo(1);
+            assertThat(counts.getPastCount()).isEqualTo(1);
+            assertThat(counts.getFutureCount()).isEqualTo(2);
+            assertThat(counts.getWaitingCount()).isEqualTo(1);
+            assertThat(counts.getRejectedCount()).isZero();
+        }
+    }
+
+    @Test
+    void whenCountBookingsByStateOfUserWithoutBookings_thenZeroes() {
+        BookingStateCounts counts = bookingRepository.countBookerBookingsByState(user.getId(), now);
+
+        assertThat(counts.getAllCount()).isZero();
+        assertThat(counts.getCurrentCount()).isZero();
+        assertThat(counts.getWaitingCount()).isZero();
     }
 
     @Test
-    void whenFindByItem_Owner_IdAndBookingStatusNotOrderByStartDesc_thenSuccess() {
-        List<Booking> bookings = bookingRepository.findByItem_Owner_IdAndBookingStatusNotOrderByStartDesc(user.getId(), BookingStatus.REJECTED);
-        assertThat(bookings).isNotEmpty();
+    void whenFindWaitingBookingsAfter_thenReturnOnlyWaitingBookingsAfterId() {
+        List<WaitingBookingView> waiting = bookingRepository.findWaitingBookingsAfter(0, pageRequest);
+        List<WaitingBookingView> afterWaiting = bookingRepository.findWaitingBookingsAfter(waitingBooking.getId(),
+                pageRequest);
+
+        assertThat(waiting).extracting(WaitingBookingView::getId).containsExactly(waitingBooking.getId());
+        assertThat(waiting.get(0).getItemId()).isEqualTo(item.getId());
+        assertThat(waiting.get(0).getBookerId()).isEqualTo(waitingBooking.getBooker().getId());
+        assertThat(waiting.get(0).getOwnerId()).isEqualTo(item.getOwner().getId());
+        assertThat(afterWaiting).isEmpty();
     }
-}
\ No newline at end of file
+}
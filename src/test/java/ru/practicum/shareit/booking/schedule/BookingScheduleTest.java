@@ -0,0 +1,237 @@
+package ru.practicum.shareit.booking.schedule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingScheduleTest {
+    private static final LocalDateTime BASE = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingSchedule schedule;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        schedule = new BookingSchedule(bookingRepository);
+        item = Item.builder().id(1).build();
+    }
+
+    @Test
+    void reserveShouldRejectOverlapWithBookingLoadedFromRepository() {
+        when(bookingRepository.findByItem_IdAndBookingStatusInAndEndAfter(eq(1), any(), any(LocalDateTime.class)))
+                .thenReturn(List.of(booking(10, 0, 24)));
+
+        assertThrows(BookingOverlapException.class, () -> schedule.reserve(booking(11, 12, 36)));
+        assertDoesNotThrow(() -> schedule.reserve(booking(12, 24, 48)));
+        verify(bookingRepository, times(1))
+                .findByItem_IdAndBookingStatusInAndEndAfter(anyInt(), any(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void reserveShouldIgnoreTheReservedBookingWhenSeeding() {
+        when(bookingRepository.findByItem_IdAndBookingStatusInAndEndAfter(eq(1), any(), any(LocalDateTime.class)))
+                .thenReturn(List.of(booking(10, 0, 24)));
+
+        assertDoesNotThrow(() -> schedule.reserve(booking(10, 0, 24)));
+        assertThrows(BookingOverlapException.class, () -> schedule.reserve(booking(11, 1, 2)));
+    }
+
+    @Test
+    void releaseShouldFreeThePeriod() {
+        when(bookingRepository.findByItem_IdAndBookingStatusInAndEndAfter(eq(1), any(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        Booking first = booking(10, 0, 24);
+        schedule.reserve(first);
+
+        schedule.release(first);
+
+        assertDoesNotThrow(() -> schedule.reserve(booking(11, 0, 24)));
+    }
+
+    @Test
+    void reserveShouldDropBookingsThatHaveEnded() {
+        when(bookingRepository.findByItem_IdAndBookingStatusInAndEndAfter(eq(1), any(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        schedule.reserve(booking(10, -48, -30));
+
+        assertDoesNotThrow(() -> schedule.reserve(booking(11, -40, -20)));
+    }
+
+    @Test
+    void pruneEndedShouldDropOnlyEndedBookings() {
+        ItemSchedule itemSchedule = new ItemSchedule();
+        long now = System.currentTimeMillis();
+        itemSchedule.add(10, now - 3 * ItemSchedule.HOUR_MILLIS, now - ItemSchedule.HOUR_MILLIS);
+        itemSchedule.add(11, now - ItemSchedule.HOUR_MILLIS, now + ItemSchedule.HOUR_MILLIS);
+        itemSchedule.add(12, now - 2 * ItemSchedule.HOUR_MILLIS, now - ItemSchedule.HOUR_MILLIS);
+        itemSchedule.remove(12);
+
+        assertThat(itemSchedule.pruneEndedBefore(now)).isEqualTo(1);
+        assertThat(itemSchedule.size()).isEqualTo(1);
+        assertThat(itemSchedule.contains(11)).isTrue();
+        assertThat(itemSchedule.findOverlap(now - 3 * ItemSchedule.HOUR_MILLIS, now, -1)).isEqualTo(11);
+        assertThat(itemSchedule.findOverlap(now - 3 * ItemSchedule.HOUR_MILLIS, now - ItemSchedule.HOUR_MILLIS, -1))
+                .isEqualTo(-1);
+    }
+
+    @Test
+    void concurrentReservationsOfSamePeriodShouldLetOnlyOnePass() throws Exception {
+        when(bookingRepository.findByItem_IdAndBookingStatusInAndEndAfter(eq(1), any(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int bookingId = 100 + i;
+            results.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    schedule.reserve(booking(bookingId, 0, 24));
+                    return true;
+                } catch (BookingOverlapException e) {
+                    return false;
+                }
+            }));
+        }
+        startSignal.countDown();
+        int passed = 0;
+        for (Future<Boolean> result : results) {
+            passed += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertThat(passed).isEqualTo(1);
+    }
+
+    @Test
+    void findFreeSlotsShouldReturnGapsBetweenBookingsOfEachItem() {
+        when(bookingRepository.findByItem_IdInAndBookingStatusInAndEndAfter(eq(List.of(1, 2)), any(),
+                any(LocalDateTime.class)))
+                .thenReturn(List.of(booking(10, 24, 48)));
+
+        Map<Integer, List<FreeSlotDto>> slots = schedule.findFreeSlots(List.of(1, 2), BASE, BASE.plusHours(72));
+
+        assertThat(slots.get(1)).containsExactly(
+                new FreeSlotDto(BASE, BASE.plusHours(24)),
+                new FreeSlotDto(BASE.plusHours(48), BASE.plusHours(72)));
+        assertThat(slots.get(2)).containsExactly(new FreeSlotDto(BASE, BASE.plusHours(72)));
+    }
+
+    @Test
+    void findFreeSlotsShouldKeepHourSharedWithRemainingBookingOccupied() {
+        when(bookingRepository.findByItem_IdAndBookingStatusInAndEndAfter(eq(1), any(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        Booking first = booking(10, 24, 30);
+        first.setEnd(BASE.plusHours(30).plusMinutes(30));
+        Booking second = booking(11, 30, 48);
+        second.setStart(first.getEnd());
+        schedule.reserve(first);
+        schedule.reserve(second);
+
+        schedule.release(second);
+
+        assertThat(schedule.findFreeSlots(List.of(1), BASE.plusHours(24), BASE.plusHours(48)).get(1))
+                .containsExactly(new FreeSlotDto(BASE.plusHours(31), BASE.plusHours(48)));
+        verify(bookingRepository, never())
+                .findByItem_IdInAndBookingStatusInAndEndAfter(any(), any(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void hourBitmapShouldSwitchContainersAndAgreeWithHashSet() {
+        Random random = new Random(11);
+        HourBitmap bitmap = new HourBitmap();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            long hour = 400_000 + random.nextInt(140_000);
+            if (random.nextInt(4) == 0) {
+                bitmap.remove(hour);
+                expected.remove(hour);
+            } else {
+                bitmap.add(hour);
+                expected.add(hour);
+            }
+        }
+        for (long hour = 400_000; hour < 540_000; hour++) {
+            if (random.nextBoolean()) {
+                bitmap.remove(hour);
+                expected.remove(hour);
+            }
+        }
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        for (long hour = 399_000; hour < 541_000; hour++) {
+            assertThat(bitmap.contains(hour)).isEqualTo(expected.contains(hour));
+        }
+    }
+
+    @Test
+    void intervalTreeShouldAgreeWithBruteForce() {
+        Random random = new Random(7);
+        IntervalTree tree = new IntervalTree();
+        List<long[]> intervals = new ArrayList<>();
+        for (int id = 1; id <= 2000; id++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(50);
+            tree.insert(id, start, end);
+            intervals.add(new long[]{id, start, end});
+            if (random.nextInt(3) == 0) {
+                long[] removed = intervals.remove(random.nextInt(intervals.size()));
+                tree.remove((int) removed[0], removed[1]);
+            }
+        }
+        assertThat(tree.size()).isEqualTo(intervals.size());
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(50);
+            boolean expected = intervals.stream().anyMatch(interval -> interval[1] < end && start < interval[2]);
+            assertThat(tree.findOverlap(start, end, -1) != -1).isEqualTo(expected);
+        }
+    }
+
+    private Booking booking(int id, int startHours, int endHours) {
+        return Booking.builder()
+                .id(id)
+                .item(item)
+                .start(BASE.plusHours(startHours))
+                .end(BASE.plusHours(endHours))
+                .bookingStatus(BookingStatus.WAITING)
+                .build();
+    }
+}
@@ -7,17 +7,24 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingBatchDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.exception.BookingStatusConflictException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
+import javax.validation.ValidationException;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
 @Transactional
@@ -68,6 +75,31 @@ public class BookingServiceIntegrationTest {
         assertEquals(booking.getId(), bookings.get(0).getId(), "Booking ID should match");
     }
 
+    @Test
+    void createBookingRequestWhenPeriodOverlapsExistingBookingThenThrowBookingOverlapException() {
+        User booker = new User();
+        booker.setName("Booker");
+        booker.setEmail("booker@example.com");
+        entityManager.persist(booker);
+        entityManager.flush();
+
+        BookingRequestDto overlapping = BookingRequestDto.builder()
+                .itemId(item.getId())
+                .start(booking.getStart().plusHours(12))
+                .end(booking.getEnd().plusHours(12))
+                .build();
+        BookingRequestDto following = BookingRequestDto.builder()
+                .itemId(item.getId())
+                .start(booking.getEnd())
+                .end(booking.getEnd().plusDays(1))
+                .build();
+
+        assertThrows(BookingOverlapException.class,
+                () -> bookingService.createBookingRequest(overlapping, booker.getId()));
+        assertEquals(BookingStatus.WAITING,
+                bookingService.createBookingRequest(following, booker.getId()).getStatus());
+    }
+
     @Test
     void getBookingByOwnerWhenBookingsExist() {
         List<BookingResponseDto> bookings = bookingService.getBookingByOwner(String.valueOf(BookingState.ALL),
@@ -77,4 +109,45 @@ public class BookingServiceIntegrationTest {
         assertEquals(1, bookings.size(), "There should be one booking");
         assertEquals(booking.getId(), bookings.get(0).getId(), "Booking ID should match");
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateBookingWhenDecidedTwiceThenSecondDecisionConflicts() {
+        User owner = new User();
+        owner.setName("Owner");
+        owner.setEmail("owner@example.com");
+        entityManager.persist(owner);
+        item.setOwner(owner);
+        entityManager.flush();
+
+        assertEquals(BookingStatus.APPROVED,
+                bookingService.updateBooking(booking.getId(), owner.getId(), true).getStatus());
+        assertThrows(BookingStatusConflictException.class,
+                () -> bookingService.updateBooking(booking.getId(), owner.getId(), false));
+        assertThrows(ValidationException.class,
+                () -> bookingService.updateBooking(booking.getId(), owner.getId(), true));
+    }
+
+    @Test
+    void decideBookingsWhenRejectedThenStatusIsStoredAndPeriodIsFreed() {
+        List<BookingDecisionDto> decisions = bookingService.decideBookings(user.getId(),
+                new BookingBatchDecisionDto(List.of(booking.getId(), Integer.MAX_VALUE), false));
+
+        assertEquals(BookingDecisionDto.Outcome.DECIDED, decisions.get(0).getOutcome());
+        assertEquals(BookingDecisionDto.Outcome.NOT_FOUND, decisions.get(1).getOutcome());
+        // Пакет пишет мимо Hibernate, поэтому контекст теста нужно сбросить перед чтением
+        entityManager.clear();
+        assertEquals(BookingStatus.REJECTED, bookingService.getBookingById(booking.getId(), user.getId()).getStatus());
+
+        User booker = new User();
+        booker.setName("Booker");
+        booker.setEmail("booker@example.com");
+        entityManager.persist(booker);
+        entityManager.flush();
+        BookingRequestDto sameDates = BookingRequestDto.builder()
+                .itemId(item.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .build();
+        assertEquals(BookingStatus.WAITING, bookingService.createBookingRequest(sameDates, booker.getId()).getStatus());
+    }
+}
@@ -7,18 +7,33 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.ArchivedBookingCounts;
+import ru.practicum.shareit.booking.dto.BookingBatchDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingOwnershipView;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStateCounts;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.expiry.WaitingBookingExpiry;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
+import ru.practicum.shareit.booking.stream.BookingStatusChangedEvent;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
@@ -27,6 +42,8 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,11 +55,21 @@ class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Mock
     private UserStorage userStorage;
     @Mock
     private ItemStorage itemStorage;
     @Mock
     private BookingMapper bookingMapper;
+    @Mock
+    private BookingSchedule bookingSchedule;
+    @Mock
+    private BookingSummaryCache bookingSummaryCache;
+    @Mock
+    private WaitingBookingExpiry waitingBookingExpiry;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private BookingService bookingService;
 
@@ -92,6 +119,24 @@ class BookingServiceTest {
         assertNotNull(result);
         assertEquals(bookingResponseDto.getId(), result.getId());
         verify(bookingRepository, times(1)).save(booking);
+        verify(bookingSchedule, times(1)).reserve(booking);
+        verify(waitingBookingExpiry).track(booking);
+        verify(eventPublisher).publishEvent(new BookingStatusChangedEvent(booking.getId(), itemId, bookerId,
+                item.getOwner().getId(), BookingStatus.WAITING));
+    }
+
+    @Test
+    void testCreateBookingRequestWhenPeriodOverlapsThenThrowBookingOverlapException() {
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(itemStorage.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingMapper.bookingFromDto(bookingRequestDto, booker, item)).thenReturn(booking);
+        when(bookingRepository.save(booking)).thenReturn(booking);
+        doThrow(new BookingOverlapException("overlap")).when(bookingSchedule).reserve(booking);
+
+        assertThrows(BookingOverlapException.class, () -> bookingService.createBookingRequest(bookingRequestDto, bookerId));
+        verify(bookingMapper, never()).toBookingResponseDto(any(Booking.class));
+        verify(waitingBookingExpiry, never()).track(any(Booking.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -118,6 +163,21 @@ class BookingServiceTest {
         assertThrows(ItemNotAvailableException.class, () -> bookingService.createBookingRequest(bookingRequestDto, bookerId));
     }
 
+    @Test
+    void testCreateBookingRequestWhenItemIsHeldForBookingInProgressThenCreateBooking() {
+        item.setAvailable(false);
+        item.setBookingHold(true);
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(itemStorage.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingMapper.bookingFromDto(bookingRequestDto, booker, item)).thenReturn(booking);
+        when(bookingRepository.save(booking)).thenReturn(booking);
+        when(bookingMapper.toBookingResponseDto(booking)).thenReturn(bookingResponseDto);
+
+        bookingService.createBookingRequest(bookingRequestDto, bookerId);
+
+        verify(bookingSchedule, times(1)).reserve(booking);
+    }
+
     @Test
     void testCreateBookingRequestWhenItemOwnerIsBookerThenThrowIllegalAccessForUserException() {
         item.setOwner(booker);
@@ -129,9 +189,10 @@ class BookingServiceTest {
 
     @Test
     void updateBookingWhenBookingIsUpdatedThenReturnBookingResponseDto() {
-        when(bookingRepository.findBookingByIdWithItemAndBookerEagerly(booking.getId())).thenReturn(booking);
-        booking.setBookingStatus(BookingStatus.WAITING);
-        when(bookingRepository.save(booking)).thenReturn(booking);
+        when(bookingRepository.decideWaitingBooking(booking.getId(), item.getOwner().getId(), BookingStatus.APPROVED))
+                .thenReturn(1);
+        booking.setBookingStatus(BookingStatus.APPROVED);
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
         when(bookingMapper.toBookingResponseDto(booking)).thenReturn(bookingResponseDto);
 
         BookingResponseDto result = bookingService.updateBooking(booking.getId(), item.getOwner().getId(), true);
@@ -140,11 +201,51 @@ class BookingServiceTest {
         assertEquals(bookingResponseDto.getId(), result.getId(), "Идентификаторы должны совпадать");
 
 
-        verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).findBookingByIdWithItemAndBookerEagerly(any());
+        verifyNoInteractions(bookingSchedule);
+        verify(itemStorage, never()).holdForBookings(any(), any());
+        verify(eventPublisher).publishEvent(new BookingStatusChangedEvent(booking.getId(), itemId, bookerId,
+                item.getOwner().getId(), BookingStatus.APPROVED));
+    }
+
+    @Test
+    void updateBookingWhenRejectedThenReleaseSchedule() {
+        when(bookingRepository.decideWaitingBooking(booking.getId(), item.getOwner().getId(), BookingStatus.REJECTED))
+                .thenReturn(1);
+        booking.setBookingStatus(BookingStatus.REJECTED);
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        when(bookingMapper.toBookingResponseDto(booking)).thenReturn(bookingResponseDto);
+
+        bookingService.updateBooking(booking.getId(), item.getOwner().getId(), false);
+
+        verify(bookingSchedule, times(1)).release(booking);
+    }
+
+    @Test
+    void updateBookingWhenAlreadyDecidedOtherwiseThenThrowBookingStatusConflictException() {
+        when(bookingRepository.decideWaitingBooking(booking.getId(), item.getOwner().getId(), BookingStatus.APPROVED))
+                .thenReturn(0);
+        booking.setBookingStatus(BookingStatus.REJECTED);
+        when(bookingRepository.findBookingByIdWithItemAndBookerEagerly(booking.getId())).thenReturn(booking);
+
+        assertThrows(BookingStatusConflictException.class,
+                () -> bookingService.updateBooking(booking.getId(), item.getOwner().getId(), true));
+        verifyNoInteractions(bookingSchedule);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void updateBookingWhenBookingNotExistsThenThrowBookingNotExistsException() {
+        when(bookingRepository.decideWaitingBooking(999, bookerId, BookingStatus.APPROVED)).thenReturn(0);
+        when(bookingRepository.findBookingByIdWithItemAndBookerEagerly(999)).thenReturn(null);
+
+        assertThrows(BookingNotExistsException.class, () -> bookingService.updateBooking(999, bookerId, true));
     }
 
     @Test
     void updateBookingWhenUserNotOwnerThenThrowException() {
+        when(bookingRepository.decideWaitingBooking(booking.getId(), 999, BookingStatus.APPROVED)).thenReturn(0);
         when(bookingRepository.findBookingByIdWithItemAndBookerEagerly(booking.getId())).thenReturn(booking);
         booking.setBookingStatus(BookingStatus.WAITING);
 
@@ -153,12 +254,116 @@ class BookingServiceTest {
 
     @Test
     void updateBookingWhenNewStatusEqualsThenThrowException() {
+        when(bookingRepository.decideWaitingBooking(booking.getId(), item.getOwner().getId(), BookingStatus.APPROVED))
+                .thenReturn(0);
         booking.setBookingStatus(BookingStatus.APPROVED);
         when(bookingRepository.findBookingByIdWithItemAndBookerEagerly(booking.getId())).thenReturn(booking);
 
         assertThrows(ValidationException.class, () -> bookingService.updateBooking(booking.getId(), item.getOwner().getId(), true));
     }
 
+    @Test
+    void decideBookingsWhenMixedIdsThenReportOutcomePerId() {
+        Integer ownerId = 5;
+        when(userStorage.findById(ownerId)).thenReturn(Optional.of(new User()));
+        when(bookingRepository.findOwnershipByIdIn(Set.of(1, 2, 3, 4))).thenReturn(List.of(
+                ownership(1, ownerId, BookingStatus.WAITING),
+                ownership(2, 999, BookingStatus.WAITING),
+                ownership(3, ownerId, BookingStatus.APPROVED)));
+        when(bookingRepository.decideWaitingBookings(List.of(1), BookingStatus.APPROVED)).thenReturn(Set.of(1));
+
+        List<BookingDecisionDto> result = bookingService.decideBookings(ownerId,
+                new BookingBatchDecisionDto(List.of(1, 2, 3, 4, 1), true));
+
+        assertThat(result).containsExactly(
+                new BookingDecisionDto(1, BookingDecisionDto.Outcome.DECIDED, BookingStatus.APPROVED),
+                new BookingDecisionDto(2, BookingDecisionDto.Outcome.NOT_FOUND, null),
+                new BookingDecisionDto(3, BookingDecisionDto.Outcome.ALREADY_DECIDED, BookingStatus.APPROVED),
+                new BookingDecisionDto(4, BookingDecisionDto.Outcome.NOT_FOUND, null));
+        verifyNoInteractions(bookingSchedule);
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+        verify(eventPublisher).publishEvent(new BookingStatusChangedEvent(1, 101, 201, ownerId,
+                BookingStatus.APPROVED));
+    }
+
+    @Test
+    void decideBookingsWhenRejectedThenReleaseSchedule() {
+        Integer ownerId = 5;
+        BookingOwnershipView view = ownership(1, ownerId, BookingStatus.WAITING);
+        when(userStorage.findById(ownerId)).thenReturn(Optional.of(new User()));
+        when(bookingRepository.findOwnershipByIdIn(Set.of(1))).thenReturn(List.of(view));
+        when(bookingRepository.decideWaitingBookings(List.of(1), BookingStatus.REJECTED)).thenReturn(Set.of(1));
+
+        List<BookingDecisionDto> result = bookingService.decideBookings(ownerId,
+                new BookingBatchDecisionDto(List.of(1), false));
+
+        assertEquals(BookingStatus.REJECTED, result.get(0).getStatus());
+        verify(bookingSchedule, times(1)).release(view.getItemId(), 1, view.getStart(), view.getEnd());
+    }
+
+    @Test
+    void decideBookingsWhenDecidedConcurrentlyThenReportAlreadyDecided() {
+        Integer ownerId = 5;
+        when(userStorage.findById(ownerId)).thenReturn(Optional.of(new User()));
+        when(bookingRepository.findOwnershipByIdIn(Set.of(1)))
+                .thenReturn(List.of(ownership(1, ownerId, BookingStatus.WAITING)));
+        when(bookingRepository.decideWaitingBookings(List.of(1), BookingStatus.REJECTED)).thenReturn(Set.of());
+
+        List<BookingDecisionDto> result = bookingService.decideBookings(ownerId,
+                new BookingBatchDecisionDto(List.of(1), false));
+
+        assertThat(result).containsExactly(
+                new BookingDecisionDto(1, BookingDecisionDto.Outcome.ALREADY_DECIDED, null));
+        verifyNoInteractions(bookingSchedule);
+    }
+
+    @Test
+    void decideBookingsWhenUserNotExistsThenThrowUserNotExistsException() {
+        when(userStorage.findById(999)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotExistsException.class,
+                () -> bookingService.decideBookings(999, new BookingBatchDecisionDto(List.of(1), true)));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void getBookingSummaryByOwnerWhenNotCachedThenCountWithOneQuery() {
+        BookingStateCounts counts = mock(BookingStateCounts.class);
+        ArchivedBookingCounts archived = mock(ArchivedBookingCounts.class);
+        when(archived.getAllCount()).thenReturn(4L);
+        when(archived.getWaitingCount()).thenReturn(1L);
+        when(archived.getRejectedCount()).thenReturn(2L);
+        BookingSummaryDto summary = BookingSummaryDto.builder().all(3).past(1).waiting(1).build();
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(bookingSummaryCache.get(eq(BookingSummaryCache.Role.OWNER), eq(bookerId), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<BookingSummaryDto>>getArgument(2).get());
+        when(bookingRepository.countOwnerBookingsByState(eq(bookerId), any(LocalDateTime.class))).thenReturn(counts);
+        when(bookingMapper.toBookingSummaryDto(counts)).thenReturn(summary);
+        when(archivedBookingRepository.countOwnerBookings(bookerId)).thenReturn(archived);
+
+        assertEquals(BookingSummaryDto.builder().all(7).past(5).waiting(2).rejected(2).build(),
+                bookingService.getBookingSummaryByOwner(bookerId));
+        verify(bookingRepository, never()).countBookerBookingsByState(anyInt(), any());
+    }
+
+    @Test
+    void getBookingSummaryByUserWhenCachedThenSkipQuery() {
+        BookingSummaryDto summary = BookingSummaryDto.builder().all(2).past(2).build();
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(bookingSummaryCache.get(eq(BookingSummaryCache.Role.BOOKER), eq(bookerId), any())).thenReturn(summary);
+
+        assertEquals(summary, bookingService.getBookingSummaryByUser(bookerId));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void getBookingSummaryByUserWhenUserNotExistsThenThrowUserNotExistsException() {
+        when(userStorage.findById(999)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotExistsException.class, () -> bookingService.getBookingSummaryByUser(999));
+        verifyNoInteractions(bookingSummaryCache);
+    }
+
     @Test
     void getBookingByIdWhenFindBookingThenReturnBookingResponseDto() {
         when(bookingRepository.findBookingByIdWithItemAndBookerEagerly(booking.getId())).thenReturn(booking);
@@ -198,10 +403,17 @@ class BookingServiceTest {
         when(userStorage.findById(eq(userId))).thenReturn(Optional.of(new User()));
         when(bookingRepository.findAllBookingsWithItemAndBookerSortedByStartDateDesc(eq(userId), eq(pageable)))
                 .thenReturn(bookingsSlice);
-        when(bookingRepository.findAllCurrentBookingsWithItemAndBooker(eq(pageable))).thenReturn(bookingsSlice);
-        when(bookingRepository.findAllPastBookingsWithItemAndBooker(eq(pageable))).thenReturn(bookingsSlice);
-        when(bookingRepository.findAllFutureBookingsWithItemAndBooker(eq(pageable))).thenReturn(bookingsSlice);
-        when(bookingRepository.findWaitingBookingsSortedByStartDateDesc(eq(pageable))).thenReturn(bookingsSlice);
+        when(bookingRepository.findBookerCurrentBookings(eq(userId), any(LocalDateTime.class), eq(pageable)))
+                .thenReturn(bookingsSlice);
+        when(bookingRepository.findBookerPastBookings(eq(userId), any(LocalDateTime.class), eq(pageable)))
+                .thenReturn(bookingsSlice);
+        when(archivedBookingRepository.findBookerBookings(eq(userId), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of()));
+        when(archivedBookingRepository.findBookerBookingsByStatus(eq(userId), any(BookingStatus.class), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of()));
+        when(bookingRepository.findBookerFutureBookings(eq(userId), any(LocalDateTime.class), eq(pageable)))
+                .thenReturn(bookingsSlice);
+        when(bookingRepository.findBookerWaitingBookings(eq(userId), eq(pageable))).thenReturn(bookingsSlice);
         when(bookingRepository.findRejectedBookingsSortedByStartDateDesc(eq(userId), eq(pageable))).thenReturn(bookingsSlice);
 
         when(bookingMapper.toBookingDtoList(bookingsSlice.getContent())).thenReturn(expectedResponse);
@@ -255,6 +467,13 @@ class BookingServiceTest {
         assertThrows(UserNotExistsException.class, () -> bookingService.getBookingByUser(state, 999, from, size));
     }
 
+    @Test
+    void getBookingByUserWhenFromIsBeyondMaxOffsetThenThrowValidationException() {
+        assertThrows(ValidationException.class,
+                () -> bookingService.getBookingByUser("ALL", bookerId, BookingService.MAX_OFFSET + 1, 10));
+        verifyNoInteractions(bookingRepository, archivedBookingRepository);
+    }
+
     @Test
     void getBookingByOwnerWhenStateIsAllThenReturnSortedBookings() {
         String state;
@@ -267,12 +486,17 @@ class BookingServiceTest {
         when(userStorage.findById(eq(userId))).thenReturn(Optional.of(new User()));
         when(bookingRepository.findByItem_Owner_IdOrderByStartDesc(eq(userId), eq(pageable)))
                 .thenReturn(bookingsSlice);
-        when(bookingRepository.findByItem_Owner_IdAndStartBeforeAndEndAfterOrderByStartDesc(
-                eq(userId), any(LocalDateTime.class), any(LocalDateTime.class), eq(pageable)))
+        when(bookingRepository.findOwnerCurrentBookings(eq(userId), any(LocalDateTime.class), eq(pageable)))
+                .thenReturn(bookingsSlice);
+        when(bookingRepository.findOwnerPastBookings(eq(userId), any(LocalDateTime.class), eq(pageable)))
                 .thenReturn(bookingsSlice);
-        when(bookingRepository.findAllPastBookingsWithItemAndBooker(eq(pageable))).thenReturn(bookingsSlice);
-        when(bookingRepository.findAllFutureBookingsWithItemAndBooker(eq(pageable))).thenReturn(bookingsSlice);
-        when(bookingRepository.findWaitingBookingsSortedByStartDateDesc(eq(pageable))).thenReturn(bookingsSlice);
+        when(archivedBookingRepository.findOwnerBookings(eq(userId), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of()));
+        when(archivedBookingRepository.findOwnerBookingsByStatus(eq(userId), any(BookingStatus.class), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of()));
+        when(bookingRepository.findOwnerFutureBookings(eq(userId), any(LocalDateTime.class), eq(pageable)))
+                .thenReturn(bookingsSlice);
+        when(bookingRepository.findOwnerWaitingBookings(eq(userId), eq(pageable))).thenReturn(bookingsSlice);
         when(bookingRepository.findRejectedBookingsByOwnerSortedByStartDateDesc(eq(userId), eq(pageable))).thenReturn(bookingsSlice);
 
         when(bookingMapper.toBookingDtoList(bookingsSlice.getContent())).thenReturn(expectedResponse);
@@ -325,4 +549,176 @@ class BookingServiceTest {
 
         assertThrows(UserNotExistsException.class, () -> bookingService.getBookingByOwner(state, 999, from, size));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBookingPageByUserWhenMoreRowsThenReturnCursorOfLastRow() {
+        booking.setStart(LocalDateTime.of(2030, 1, 1, 10, 0));
+        bookingResponseDto.setStart(booking.getStart());
+        Slice<Booking> bookingsSlice = new SliceImpl<>(List.of(booking), PageRequest.of(0, 1), true);
+        List<BookingResponseDto> expectedResponse = List.of(bookingResponseDto);
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findBookerBookingsBefore(eq(bookerId), any(LocalDateTime.class),
+                eq(Integer.MAX_VALUE), eq(PageRequest.of(0, 1)))).thenReturn(bookingsSlice);
+        when(archivedBookingRepository.findBookerBookingsBefore(eq(bookerId), any(LocalDateTime.class),
+                eq(Integer.MAX_VALUE), eq(PageRequest.of(0, 1)))).thenReturn(new SliceImpl<>(List.of()));
+        when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(expectedResponse);
+
+        CursorPage<BookingResponseDto> result = bookingService.getBookingPageByUser("ALL", bookerId, "", 1);
+
+        assertEquals(expectedResponse, result.getContent());
+        assertEquals(Cursors.encode(booking.getStart(), booking.getId()), result.getNextCursor());
+    }
+
+    @Test
+    void getBookingPageByUserWhenCursorGivenThenSeekAfterIt() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        String cursor = Cursors.encode(start, 7);
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findBookerPastBookingsBefore(eq(bookerId), any(LocalDateTime.class), eq(start),
+                eq(7), eq(PageRequest.of(0, 10)))).thenReturn(new SliceImpl<>(List.of()));
+        when(archivedBookingRepository.findBookerBookingsBefore(eq(bookerId), eq(start), eq(7),
+                eq(PageRequest.of(0, 10)))).thenReturn(new SliceImpl<>(List.of()));
+        when(bookingMapper.toBookingDtoList(List.of())).thenReturn(List.of());
+
+        CursorPage<BookingResponseDto> result = bookingService.getBookingPageByUser("PAST", bookerId, cursor, 10);
+
+        assertThat(result.getContent()).isEmpty();
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getBookingByUserWhenStateIsPastThenMergeArchivedBookings() {
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 10, 0);
+        ArchivedBooking archived = new ArchivedBooking();
+        Pageable head = PageRequest.of(0, 4);
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findBookerPastBookings(eq(bookerId), any(LocalDateTime.class), eq(head)))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(archivedBookingRepository.findBookerBookings(bookerId, head))
+                .thenReturn(new SliceImpl<>(List.of(archived)));
+        when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(
+                responseDto(5, base.plusDays(5)), responseDto(3, base.plusDays(3))));
+        when(bookingMapper.toArchivedBookingDtoList(List.of(archived))).thenReturn(List.of(
+                responseDto(4, base.plusDays(4)), responseDto(1, base.plusDays(1))));
+
+        List<BookingResponseDto> result = bookingService.getBookingByUser("PAST", bookerId, 2, 2);
+
+        assertThat(result).extracting(BookingResponseDto::getId).containsExactly(3, 1);
+    }
+
+    @Test
+    void getBookingByOwnerWhenStateIsRejectedThenMergeArchivedBookings() {
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 10, 0);
+        ArchivedBooking archived = new ArchivedBooking();
+        Pageable head = PageRequest.of(0, 2);
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findRejectedBookingsByOwnerSortedByStartDateDesc(bookerId, head))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(archivedBookingRepository.findOwnerBookingsByStatus(bookerId, BookingStatus.REJECTED, head))
+                .thenReturn(new SliceImpl<>(List.of(archived)));
+        when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(responseDto(5, base.plusDays(5))));
+        when(bookingMapper.toArchivedBookingDtoList(List.of(archived))).thenReturn(List.of(
+                responseDto(4, base.plusDays(4)), responseDto(1, base.plusDays(1))));
+
+        List<BookingResponseDto> result = bookingService.getBookingByOwner("REJECTED", bookerId, 0, 2);
+
+        assertThat(result).extracting(BookingResponseDto::getId).containsExactly(5, 4);
+    }
+
+    @Test
+    void getBookingPageByOwnerWhenStateIsPastThenCursorCoversArchive() {
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 10, 0);
+        ArchivedBooking archived = new ArchivedBooking();
+        Pageable page = PageRequest.of(0, 2);
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findOwnerPastBookingsBefore(eq(bookerId), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(Integer.MAX_VALUE), eq(page)))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(archivedBookingRepository.findOwnerBookingsBefore(eq(bookerId), any(LocalDateTime.class),
+                eq(Integer.MAX_VALUE), eq(page))).thenReturn(new SliceImpl<>(List.of(archived)));
+        when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(responseDto(5, base.plusDays(5))));
+        when(bookingMapper.toArchivedBookingDtoList(List.of(archived))).thenReturn(List.of(
+                responseDto(4, base.plusDays(4)), responseDto(1, base.plusDays(1))));
+
+        CursorPage<BookingResponseDto> result = bookingService.getBookingPageByOwner("PAST", bookerId, null, 2);
+
+        assertThat(result.getContent()).extracting(BookingResponseDto::getId).containsExactly(5, 4);
+        assertEquals(Cursors.encode(base.plusDays(4), 4), result.getNextCursor());
+    }
+
+    @Test
+    void getBookingPageByOwnerWhenStateIsWaitingThenUseOwnerScopedQuery() {
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findOwnerWaitingBookingsBefore(eq(bookerId), any(LocalDateTime.class),
+                eq(Integer.MAX_VALUE), eq(PageRequest.of(0, 10)))).thenReturn(new SliceImpl<>(List.of(booking)));
+        when(archivedBookingRepository.findOwnerBookingsByStatusBefore(eq(bookerId), eq(BookingStatus.WAITING),
+                any(LocalDateTime.class), eq(Integer.MAX_VALUE), eq(PageRequest.of(0, 10))))
+                .thenReturn(new SliceImpl<>(List.of()));
+        when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(bookingResponseDto));
+
+        CursorPage<BookingResponseDto> result = bookingService.getBookingPageByOwner("WAITING", bookerId, null, 10);
+
+        assertThat(result.getContent()).containsExactly(bookingResponseDto);
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getBookingPageByUserWhenCursorMalformedThenThrowInvalidCursorException() {
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+
+        assertThrows(InvalidCursorException.class,
+                () -> bookingService.getBookingPageByUser("ALL", bookerId, Cursors.encode("yesterday", 1), 10));
+        assertThrows(InvalidCursorException.class,
+                () -> bookingService.getBookingPageByUser("ALL", bookerId, Cursors.encode(1), 10));
+    }
+
+    @Test
+    void getBookingPageByOwnerWhenSizeNotPositiveThenThrowValidationException() {
+        assertThrows(ValidationException.class, () -> bookingService.getBookingPageByOwner("ALL", bookerId, "", 0));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    private static BookingResponseDto responseDto(Integer id, LocalDateTime start) {
+        return BookingResponseDto.builder().id(id).start(start).end(start.plusHours(1)).build();
+    }
+
+    private static BookingOwnershipView ownership(Integer id, Integer ownerId, BookingStatus status) {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        return new BookingOwnershipView() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getItemId() {
+                return id + 100;
+            }
+
+            @Override
+            public Integer getOwnerId() {
+                return ownerId;
+            }
+
+            @Override
+            public Integer getBookerId() {
+                return id + 200;
+            }
+
+            @Override
+            public BookingStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return start.plusDays(1);
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingSummaryCacheTest {
+    private static final long TTL = TimeUnit.SECONDS.toNanos(5);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private BookingSummaryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BookingSummaryCache(TTL, clock::get);
+    }
+
+    @Test
+    void getShouldReuseSummaryWithinTtl() {
+        BookingSummaryDto first = cache.get(BookingSummaryCache.Role.BOOKER, 1, loader());
+        clock.addAndGet(TTL - 1);
+
+        assertThat(cache.get(BookingSummaryCache.Role.BOOKER, 1, loader())).isSameAs(first);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void getShouldReloadSummaryAfterTtl() {
+        cache.get(BookingSummaryCache.Role.BOOKER, 1, loader());
+        clock.addAndGet(TTL);
+
+        assertThat(cache.get(BookingSummaryCache.Role.BOOKER, 1, loader()).getAll()).isEqualTo(2);
+    }
+
+    @Test
+    void getShouldKeepBookerAndOwnerCountersApart() {
+        cache.get(BookingSummaryCache.Role.BOOKER, 1, loader());
+        cache.get(BookingSummaryCache.Role.OWNER, 1, loader());
+        cache.get(BookingSummaryCache.Role.BOOKER, 2, loader());
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void getWithZeroTtlShouldAlwaysLoad() {
+        cache = new BookingSummaryCache(0, clock::get);
+
+        cache.get(BookingSummaryCache.Role.OWNER, 1, loader());
+        cache.get(BookingSummaryCache.Role.OWNER, 1, loader());
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private Supplier<BookingSummaryDto> loader() {
+        return () -> BookingSummaryDto.builder().all(loads.incrementAndGet()).build();
+    }
+}
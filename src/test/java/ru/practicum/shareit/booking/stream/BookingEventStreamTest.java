@@ -0,0 +1,119 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.exception.UserNotExistsException;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingEventStreamTest {
+    private static final int BOOKER_ID = 1;
+    private static final int OWNER_ID = 2;
+    private static final int STRANGER_ID = 3;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private UserStorage userStorage;
+
+    private BookingEventStream stream;
+
+    @BeforeEach
+    void setUp() {
+        stream = new BookingEventStream(userStorage, meterRegistry, 60_000, List.of(Runnable::run));
+    }
+
+    @Test
+    void onStatusChangedShouldSendEventToBookerAndOwnerOnly() {
+        when(userStorage.existsById(anyInt())).thenReturn(true);
+        stream.subscribe(BOOKER_ID);
+        stream.subscribe(OWNER_ID);
+        stream.subscribe(STRANGER_ID);
+
+        stream.onStatusChanged(event(BookingStatus.APPROVED));
+
+        assertThat(stream.connectionCount()).isEqualTo(3);
+        assertThat(meterRegistry.counter("shareit.booking.stream.events").count()).isEqualTo(2);
+    }
+
+    @Test
+    void onStatusChangedShouldDropSubscriptionOfLeftClient() {
+        when(userStorage.existsById(BOOKER_ID)).thenReturn(true);
+        SseEmitter emitter = stream.subscribe(BOOKER_ID);
+        emitter.complete();
+
+        stream.onStatusChanged(event(BookingStatus.REJECTED));
+
+        assertThat(stream.connectionCount()).isZero();
+        assertThat(meterRegistry.counter("shareit.booking.stream.events").count()).isZero();
+    }
+
+    @Test
+    void onStatusChangedWhenSenderQueueIsFullThenDropEvent() {
+        stream = new BookingEventStream(userStorage, meterRegistry, 60_000, List.of(task -> {
+            throw new RejectedExecutionException("full");
+        }));
+        when(userStorage.existsById(BOOKER_ID)).thenReturn(true);
+        stream.subscribe(BOOKER_ID);
+
+        stream.onStatusChanged(event(BookingStatus.WAITING));
+
+        assertThat(meterRegistry.counter("shareit.booking.stream.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void onStatusChangedShouldNotWaitForUserOnStalledSender() {
+        List<Runnable> stalled = new ArrayList<>();
+        // Владелец (id 2) попадает на первый поток, который стоит, бронирующий (id 1) на второй
+        stream = new BookingEventStream(userStorage, meterRegistry, 60_000, List.of(stalled::add, Runnable::run));
+        when(userStorage.existsById(anyInt())).thenReturn(true);
+        stream.subscribe(BOOKER_ID);
+        stream.subscribe(OWNER_ID);
+
+        stream.onStatusChanged(event(BookingStatus.APPROVED));
+
+        assertThat(meterRegistry.counter("shareit.booking.stream.events").count()).isEqualTo(1);
+        assertThat(stalled).hasSize(1);
+    }
+
+    @Test
+    void heartbeatShouldWriteToClientsOnSenderThreadOnly() {
+        List<Runnable> queued = new ArrayList<>();
+        stream = new BookingEventStream(userStorage, meterRegistry, 60_000, List.of(queued::add));
+        when(userStorage.existsById(BOOKER_ID)).thenReturn(true);
+        stream.subscribe(BOOKER_ID).complete();
+
+        stream.heartbeat();
+
+        assertThat(stream.connectionCount()).isEqualTo(1);
+        queued.forEach(Runnable::run);
+        assertThat(stream.connectionCount()).isZero();
+    }
+
+    @Test
+    void subscribeWhenUserNotExistsThenThrowUserNotExistsException() {
+        when(userStorage.existsById(BOOKER_ID)).thenReturn(false);
+
+        assertThrows(UserNotExistsException.class, () -> stream.subscribe(BOOKER_ID));
+        assertThat(stream.connectionCount()).isZero();
+    }
+
+    private static BookingStatusChangedEvent event(BookingStatus status) {
+        return new BookingStatusChangedEvent(10, 20, BOOKER_ID, OWNER_ID, status);
+    }
+}
@@ -8,18 +8,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
 import ru.practicum.shareit.item.dto.CommentInputDto;
 import ru.practicum.shareit.item.dto.CommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoForOwner;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -94,17 +99,32 @@ public class ItemControllerTest {
         itemDtoForOwner.setDescription("Powerful drill");
         itemDtoForOwner.setAvailable(true);
 
-        when(itemService.getItemsByUserId(anyInt())).thenReturn(Collections.singletonList(itemDtoForOwner));
+        when(itemService.getItemsByUserId(1, null, 50))
+                .thenReturn(new CursorPage<>(Collections.singletonList(itemDtoForOwner), null));
 
         mockMvc.perform(get("/items")
                         .header("X-Sharer-User-Id", 1))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$[0].id").value(itemDto.getId()));
     }
 
+    @Test
+    void getItemsByUserIdShouldPassCursorAndReturnNextCursorHeader() throws Exception {
+        when(itemService.getItemsByUserId(1, "MQ", 5))
+                .thenReturn(new CursorPage<>(Collections.emptyList(), "Mg"));
+
+        mockMvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("cursor", "MQ")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "Mg"));
+    }
+
     @Test
     void searchItemsShouldReturnItemsList() throws Exception {
-        when(itemService.searchItems(anyString())).thenReturn(Collections.singletonList(itemDto));
+        when(itemService.searchItems(anyString(), eq("SUBSTRING"), anyInt(), anyInt())).thenReturn(Collections.singletonList(itemDto));
 
         mockMvc.perform(get("/items/search")
                         .param("text", "drill"))
@@ -112,6 +132,77 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[0].id").value(itemDto.getId()));
     }
 
+    @Test
+    void searchItemsShouldPassModeAndPageParameters() throws Exception {
+        when(itemService.searchItems("drill", "RELEVANCE", 20, 5)).thenReturn(Collections.singletonList(itemDto));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "drill")
+                        .param("mode", "RELEVANCE")
+                        .param("from", "20")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(itemDto.getId()));
+    }
+
+    @Test
+    void searchItemsShouldRejectSizeAboveLimit() throws Exception {
+        mockMvc.perform(get("/items/search")
+                        .param("text", "drill")
+                        .param("size", "501"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAvailabilityShouldReturnFreeSlotsOfItem() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 2, 1, 0, 0);
+        when(itemService.getAvailability(List.of(1), from, to)).thenReturn(List.of(
+                new ItemAvailabilityDto(1, List.of(new FreeSlotDto(from, to)))));
+
+        mockMvc.perform(get("/items/1/availability")
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-02-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId").value(1))
+                .andExpect(jsonPath("$.freeSlots[0].start").value("2030-01-01T00:00:00"));
+    }
+
+    @Test
+    void getAvailabilityOfSeveralItemsShouldPassAllIds() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 2, 1, 0, 0);
+        when(itemService.getAvailability(List.of(1, 2), from, to)).thenReturn(List.of(
+                new ItemAvailabilityDto(1, Collections.emptyList()),
+                new ItemAvailabilityDto(2, Collections.emptyList())));
+
+        mockMvc.perform(get("/items/availability")
+                        .param("ids", "1,2")
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-02-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].itemId").value(2));
+    }
+
+    @Test
+    void suggestItemNamesShouldReturnNames() throws Exception {
+        when(itemService.suggestItemNames("dr", 10)).thenReturn(List.of("Drone", "Drill"));
+
+        mockMvc.perform(get("/items/suggest")
+                        .param("prefix", "dr"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("Drone"))
+                .andExpect(jsonPath("$[1]").value("Drill"));
+    }
+
+    @Test
+    void suggestItemNamesShouldRejectTooLargeSize() throws Exception {
+        mockMvc.perform(get("/items/suggest")
+                        .param("prefix", "dr")
+                        .param("size", "11"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void saveCommentShouldReturnComment() throws Exception {
         CommentInputDto commentInputDto = new CommentInputDto();
@@ -138,4 +229,29 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.created").exists());
     }
 
-}
\ No newline at end of file
+    @Test
+    void getCommentsShouldReturnPageAndNextCursorHeader() throws Exception {
+        CommentOutputDto commentOutputDto = new CommentOutputDto();
+        commentOutputDto.setId(7);
+        commentOutputDto.setText("Great item!");
+        commentOutputDto.setAuthorName("John Doe");
+        commentOutputDto.setCreated(LocalDateTime.now());
+
+        when(itemService.getComments(1, "OA", 1))
+                .thenReturn(new CursorPage<>(List.of(commentOutputDto), "Nw"));
+
+        mockMvc.perform(get("/items/{itemId}/comments", 1)
+                        .param("cursor", "OA")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "Nw"))
+                .andExpect(jsonPath("$[0].id").value(7));
+    }
+
+    @Test
+    void getCommentsShouldRejectTooLargeSize() throws Exception {
+        mockMvc.perform(get("/items/{itemId}/comments", 1)
+                        .param("size", "501"))
+                .andExpect(status().isBadRequest());
+    }
+}
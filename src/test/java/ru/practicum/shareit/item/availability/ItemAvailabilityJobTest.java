@@ -0,0 +1,116 @@
+package ru.practicum.shareit.item.availability;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.dto.HeldItemView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.matching.RequestMatcher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemAvailabilityJobTest {
+    private static final int CHUNK_SIZE = 2;
+    private static final PageRequest CHUNK = PageRequest.of(0, CHUNK_SIZE);
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private ItemStorage itemStorage;
+    @Mock
+    private ItemSearchIndex searchIndex;
+    @Mock
+    private RequestMatcher requestMatcher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ItemAvailabilityJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = job(true);
+    }
+
+    @Test
+    void restoreAvailabilityShouldWalkHeldItemsByIdAndRestoreThem() {
+        Item restored = new Item();
+        when(itemStorage.findHeldItemsAfter(now, 0, CHUNK))
+                .thenReturn(List.of(held(10, now.minusMinutes(30)), held(11, now.minusMinutes(20))));
+        when(itemStorage.findHeldItemsAfter(now, 11, CHUNK)).thenReturn(List.of(held(12, null)));
+        when(itemStorage.restoreAvailability(new TreeSet<>(List.of(10, 11)), now)).thenReturn(Set.of(11));
+        when(itemStorage.restoreAvailability(Set.of(12), now)).thenReturn(Set.of());
+        when(itemStorage.findAllById(Set.of(11))).thenReturn(List.of(restored));
+        when(itemStorage.findAllById(Set.of())).thenReturn(List.of());
+        when(itemStorage.findItemIdsInUseAfter(now, 0, CHUNK)).thenReturn(List.of());
+
+        assertThat(job.restoreAvailability(now)).isEqualTo(1);
+
+        verify(searchIndex).index(restored);
+        verify(requestMatcher).submit(restored);
+        assertThat(meterRegistry.counter("shareit.item.availability.items").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("shareit.item.availability.lag").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("shareit.item.availability.lag").max(TimeUnit.MINUTES)).isEqualTo(20);
+    }
+
+    @Test
+    void restoreAvailabilityShouldHoldAvailableItemsInUse() {
+        Item held = new Item();
+        when(itemStorage.findHeldItemsAfter(now, 0, CHUNK)).thenReturn(List.of());
+        when(itemStorage.findItemIdsInUseAfter(now, 0, CHUNK)).thenReturn(List.of(20, 21));
+        when(itemStorage.findItemIdsInUseAfter(now, 21, CHUNK)).thenReturn(List.of());
+        when(itemStorage.holdForBookings(new TreeSet<>(List.of(20, 21)), now)).thenReturn(Set.of(20, 21));
+        when(itemStorage.findAllById(Set.of(20, 21))).thenReturn(List.of(held));
+
+        assertThat(job.restoreAvailability(now)).isZero();
+
+        verify(searchIndex).index(held);
+        verify(requestMatcher, never()).submit(any());
+        assertThat(meterRegistry.counter("shareit.item.availability.held").count()).isEqualTo(2);
+    }
+
+    @Test
+    void restoreAvailabilityShouldDoNothingWhenDisabled() {
+        assertThat(job(false).restoreAvailability(now)).isZero();
+
+        verifyNoInteractions(itemStorage, searchIndex, requestMatcher, transactionManager);
+    }
+
+    private ItemAvailabilityJob job(boolean enabled) {
+        return new ItemAvailabilityJob(itemStorage, searchIndex, requestMatcher, transactionManager, meterRegistry,
+                enabled, CHUNK_SIZE);
+    }
+
+    private static HeldItemView held(int id, LocalDateTime lastEnd) {
+        return new HeldItemView() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getLastEnd() {
+                return lastEnd;
+            }
+        };
+    }
+}
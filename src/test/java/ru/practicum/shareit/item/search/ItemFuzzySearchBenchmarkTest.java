@@ -0,0 +1,86 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures fuzzy search latency percentiles on a synthetic in-memory catalog.
+ * Runs only with the benchmark profile: {@code mvn test -Pbenchmark}.
+ * Catalog size is set with {@code -Dbenchmark.items=N}, one million by default.
+ */
+@Slf4j
+@Tag("benchmark")
+class ItemFuzzySearchBenchmarkTest {
+    private static final int ITEMS = Integer.getInteger("benchmark.items", 1_000_000);
+    private static final int VOCABULARY = 50_000;
+    private static final int WARMUP_QUERIES = 500;
+    private static final int MEASURED_QUERIES = 5_000;
+    private static final String[] SYLLABLES = {"ka", "ro", "mi", "te", "lu", "pa", "sor", "vin", "dre", "lo",
+            "gra", "ne", "shi", "tor", "bel", "ku", "zan", "fi", "mo", "ret"};
+
+    @Test
+    void measureFuzzySearchLatency() {
+        Random random = new Random(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int j = 0; j < syllables; j++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.toString();
+        }
+
+        ItemSearchIndex searchIndex = new ItemSearchIndex(null, true);
+        long indexStart = System.nanoTime();
+        for (int i = 1; i <= ITEMS; i++) {
+            searchIndex.index(Item.builder()
+                    .id(i)
+                    .name(words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)])
+                    .description(words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)]
+                            + " " + words[random.nextInt(VOCABULARY)])
+                    .available(random.nextInt(10) > 0)
+                    .build());
+        }
+        log.info("Indexed {} items in {} ms", ITEMS, (System.nanoTime() - indexStart) / 1_000_000);
+
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            searchIndex.searchFuzzy(misspell(words[random.nextInt(VOCABULARY)], random), 20);
+        }
+        long[] latencies = new long[MEASURED_QUERIES];
+        int found = 0;
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            String query = misspell(words[random.nextInt(VOCABULARY)], random);
+            long start = System.nanoTime();
+            found += searchIndex.searchFuzzy(query, 20).isEmpty() ? 0 : 1;
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        log.info("Fuzzy search on {} items: p50 {} ms, p99 {} ms, max {} ms, {} of {} queries matched",
+                ITEMS, millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+                millis(latencies[latencies.length - 1]), found, MEASURED_QUERIES);
+
+        assertThat(found).isPositive();
+    }
+
+    private static String misspell(String word, Random random) {
+        char[] chars = word.toCharArray();
+        chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+}
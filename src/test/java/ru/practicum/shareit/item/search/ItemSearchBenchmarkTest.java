@@ -0,0 +1,92 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the native ILIKE query with the in-memory index on a synthetic catalog.
+ * Runs only with the benchmark profile: {@code mvn test -Pbenchmark}.
+ * Catalog size is set with {@code -Dbenchmark.items=N}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class ItemSearchBenchmarkTest {
+    private static final int ITEMS = Integer.getInteger("benchmark.items", 200_000);
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+    private static final int PAGE_SIZE = 20;
+    private static final String[] WORDS = {"дрель", "пылесос", "перфоратор", "лестница", "палатка",
+            "drill", "ladder", "tent", "kayak", "projector", "camera", "bike", "scooter", "grill", "saw"};
+    private static final String[] QUERIES = {"дрел", "ladd", "kayak", "projector", "xyz"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemStorage itemStorage;
+
+    @Autowired
+    private ItemSearchIndex searchIndex;
+
+    @Autowired
+    private ItemService itemService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('Benchmark', 'benchmark@example.com')");
+        Integer ownerId = jdbcTemplate.queryForObject(
+                "SELECT id FROM users WHERE email = 'benchmark@example.com'", Integer.class);
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + i;
+            String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            rows.add(new Object[]{name, description, random.nextBoolean(), ownerId});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO items (name, description, is_available, owner_id) VALUES (?, ?, ?, ?)", rows);
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void compareNativeQueryWithIndex() {
+        for (String query : QUERIES) {
+            double nativeMs = measure(() -> itemStorage.search(query, PageRequest.of(0, PAGE_SIZE)).size());
+            double indexMs = measure(() -> itemService.searchItems(query, "SUBSTRING", 0, PAGE_SIZE).size());
+            double rankedMs = measure(() -> itemService.searchItems(query, "RELEVANCE", 0, PAGE_SIZE).size());
+            log.info("query '{}' on {} items: native ILIKE {} ms/op, index {} ms/op, BM25 top-{} {} ms/op",
+                    query, ITEMS, String.format("%.3f", nativeMs), String.format("%.3f", indexMs),
+                    PAGE_SIZE, String.format("%.3f", rankedMs));
+        }
+        assertThat(searchIndex.isReady()).isTrue();
+    }
+
+    private static double measure(Supplier<Integer> operation) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            operation.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            operation.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ROUNDS;
+    }
+}
@@ -0,0 +1,251 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+
+    @Mock
+    private ItemStorage itemStorage;
+
+    private ItemSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ItemSearchIndex(itemStorage, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void indexShouldApplyWriteOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        searchIndex.index(item(1, "Drill", "Powerful drill", true));
+        searchIndex.index(item(2, "Saw", "Sharp saw", true));
+
+        assertThat(searchIndex.searchAvailable("drill", 10)).isEmpty();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.get(0).afterCommit();
+        synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(searchIndex.searchAvailable("drill", 10)).containsExactly(1);
+        assertThat(searchIndex.searchAvailable("saw", 10)).isEmpty();
+    }
+
+    @Test
+    void rebuildShouldKeepWritesCommittedWhileLoading() {
+        when(itemStorage.findByIdGreaterThanOrderByIdAsc(anyInt(), any(Pageable.class))).thenAnswer(invocation -> {
+            // Предмет меняется, пока перестроение читает его старую версию
+            searchIndex.index(item(1, "Saw", "Sharp saw", true));
+            return List.of(item(1, "Drill", "Powerful drill", true), item(2, "Hammer", "Heavy hammer", true));
+        });
+
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.searchAvailable("saw", 10)).containsExactly(1);
+        assertThat(searchIndex.searchAvailable("drill", 10)).isEmpty();
+        assertThat(searchIndex.searchAvailable("hammer", 10)).containsExactly(2);
+    }
+
+    @Test
+    void rebuildShouldLoadItemsFromStorageAndMarkIndexReady() {
+        when(itemStorage.findByIdGreaterThanOrderByIdAsc(anyInt(), any(Pageable.class)))
+                .thenReturn(List.of(item(1, "Дрель", "Ударная дрель", true)));
+
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.isReady()).isTrue();
+        assertThat(searchIndex.searchAvailable("дрель", 10)).containsExactly(1);
+    }
+
+    @Test
+    void searchAvailableShouldMatchSubstringInNameOrDescriptionIgnoringCase() {
+        searchIndex.index(item(1, "Drill", "Powerful cordless drill", true));
+        searchIndex.index(item(2, "Saw", "Sharp circular saw", true));
+        searchIndex.index(item(3, "Hammer", "Heavy hammer for DRILLING walls", true));
+
+        assertThat(searchIndex.searchAvailable("DRIL", 10)).containsExactly(1, 3);
+        assertThat(searchIndex.searchAvailable("circ", 10)).containsExactly(2);
+        assertThat(searchIndex.searchAvailable("nothing", 10)).isEmpty();
+    }
+
+    @Test
+    void searchAvailableShouldHandleQueriesShorterThanTrigram() {
+        searchIndex.index(item(1, "Drill", "Powerful drill", true));
+        searchIndex.index(item(2, "Saw", "Sharp saw", true));
+
+        assertThat(searchIndex.searchAvailable("sa", 10)).containsExactly(2);
+    }
+
+    @Test
+    void searchAvailableShouldReturnOnlyLowestIdsUpToLimit() {
+        searchIndex.index(item(3, "Saw", "Sharp saw", true));
+        searchIndex.index(item(1, "Saw", "Old saw", true));
+        searchIndex.index(item(2, "Saw", "Hand saw", true));
+
+        assertThat(searchIndex.searchAvailable("sa", 2)).containsExactly(1, 2);
+        assertThat(searchIndex.searchAvailable("saw", 2)).containsExactly(1, 2);
+        assertThat(searchIndex.searchAvailable("saw", 0)).isEmpty();
+    }
+
+    @Test
+    void searchAvailableShouldSkipUnavailableItems() {
+        searchIndex.index(item(1, "Drill", "Powerful drill", false));
+
+        assertThat(searchIndex.searchAvailable("drill", 10)).isEmpty();
+    }
+
+    @Test
+    void indexShouldReplacePreviousVersionOfItem() {
+        searchIndex.index(item(1, "Drill", "Powerful drill", true));
+        searchIndex.index(item(1, "Saw", "Sharp saw", true));
+
+        assertThat(searchIndex.searchAvailable("drill", 10)).isEmpty();
+        assertThat(searchIndex.searchAvailable("saw", 10)).containsExactly(1);
+    }
+
+    @Test
+    void searchRelevantShouldRankNameMatchesAboveDescriptionMatches() {
+        searchIndex.index(item(1, "Hammer", "Good for a drill session", true));
+        searchIndex.index(item(2, "Drill", "Cordless", true));
+        searchIndex.index(item(3, "Saw", "Sharp saw", true));
+
+        assertThat(searchIndex.searchRelevant("drill", 10)).containsExactly(2, 1);
+    }
+
+    @Test
+    void searchRelevantShouldReturnOnlyTopK() {
+        searchIndex.index(item(1, "Drill", "drill", true));
+        searchIndex.index(item(2, "Drill", "old", true));
+        searchIndex.index(item(3, "Box", "drill inside", true));
+
+        assertThat(searchIndex.searchRelevant("drill", 1)).containsExactly(1);
+    }
+
+    @Test
+    void searchRelevantShouldReflectUpdatedItems() {
+        searchIndex.index(item(1, "Drill", "Cordless drill", true));
+        searchIndex.index(item(2, "Saw", "Sharp saw", true));
+        searchIndex.index(item(1, "Saw", "Another saw", true));
+
+        assertThat(searchIndex.searchRelevant("drill", 10)).isEmpty();
+        assertThat(searchIndex.searchRelevant("saw", 10)).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void searchRelevantShouldSkipUnavailableItems() {
+        searchIndex.index(item(1, "Drill", "Cordless drill", false));
+        searchIndex.index(item(2, "Drill", "Old drill", true));
+
+        assertThat(searchIndex.searchRelevant("drill", 10)).containsExactly(2);
+    }
+
+    @Test
+    void searchFuzzyShouldFindItemsDespiteTypos() {
+        searchIndex.index(item(1, "Перфоратор", "Мощный перфоратор", true));
+        searchIndex.index(item(2, "Projector", "Full HD projector", true));
+        searchIndex.index(item(3, "Saw", "Sharp saw", true));
+
+        assertThat(searchIndex.searchFuzzy("перфаратор", 10)).containsExactly(1);
+        assertThat(searchIndex.searchFuzzy("projetcor", 10)).containsExactly(2);
+        assertThat(searchIndex.searchFuzzy("sow", 10)).containsExactly(3);
+    }
+
+    @Test
+    void searchFuzzyShouldRankExactSpellingFirst() {
+        searchIndex.index(item(1, "Tent", "Camping tent", true));
+        searchIndex.index(item(2, "Rent", "Rent of a car", true));
+
+        assertThat(searchIndex.searchFuzzy("tent", 10)).containsExactly(1, 2);
+    }
+
+    @Test
+    void searchFuzzyShouldIgnoreWordsNoLongerInCatalog() {
+        searchIndex.index(item(1, "Drill", "Cordless drill", true));
+        searchIndex.index(item(1, "Saw", "Sharp saw", true));
+
+        assertThat(searchIndex.searchFuzzy("dril", 10)).isEmpty();
+    }
+
+    @Test
+    void bkTreeDistanceShouldCountEdits() {
+        assertThat(BkTree.distance("kitten", "sitting")).isEqualTo(3);
+        assertThat(BkTree.distance("drill", "drill")).isZero();
+        assertThat(BkTree.distance("", "saw")).isEqualTo(3);
+    }
+
+    @Test
+    void suggestShouldReturnNamesByPrefixMostPopularFirst() {
+        searchIndex.index(item(1, "Drill", "Cordless drill", true));
+        searchIndex.index(item(2, "Drone", "Camera drone", true));
+        searchIndex.index(item(3, "Drone", "Racing drone", true));
+        searchIndex.index(item(4, "Saw", "Sharp saw", true));
+
+        assertThat(searchIndex.suggest("DR", 10)).containsExactly("Drone", "Drill");
+        assertThat(searchIndex.suggest("dri", 10)).containsExactly("Drill");
+        assertThat(searchIndex.suggest("dr", 1)).containsExactly("Drone");
+        assertThat(searchIndex.suggest("x", 10)).isEmpty();
+    }
+
+    @Test
+    void suggestShouldFollowItemUpdates() {
+        searchIndex.index(item(1, "Drill", "Cordless drill", true));
+        searchIndex.index(item(2, "Drone", "Camera drone", true));
+        searchIndex.index(item(1, "Saw", "Sharp saw", true));
+        searchIndex.index(item(2, "Drone", "Camera drone", false));
+
+        assertThat(searchIndex.suggest("d", 10)).isEmpty();
+        assertThat(searchIndex.suggest("s", 10)).containsExactly("Saw");
+    }
+
+    @Test
+    void disabledIndexShouldStayEmptyAndNotReady() {
+        ItemSearchIndex disabled = new ItemSearchIndex(itemStorage, false);
+
+        disabled.rebuild();
+        disabled.index(item(1, "Drill", "Powerful drill", true));
+
+        assertThat(disabled.isReady()).isFalse();
+        assertThat(disabled.searchAvailable("drill", 10)).isEmpty();
+    }
+
+    @Test
+    void searchAvailableShouldReturnEmptyListForBlankText() {
+        searchIndex.index(item(1, "Drill", "Powerful drill", true));
+
+        assertThat(searchIndex.searchAvailable("", 10)).isEqualTo(Collections.emptyList());
+    }
+
+    private static Item item(int id, String name, String description, boolean available) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .available(available)
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentEligibilityCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CommentEligibilityCache cache = new CommentEligibilityCache(2);
+
+    @Test
+    void isEligibleShouldRememberOnlyPositiveAnswers() {
+        assertThat(cache.isEligible(1, 1, loader(false))).isFalse();
+        assertThat(cache.isEligible(1, 1, loader(true))).isTrue();
+        assertThat(cache.isEligible(1, 1, loader(false))).isTrue();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void recordEndedShouldMakePairEligibleWithoutLoading() {
+        cache.recordEnded(3, 4);
+
+        assertThat(cache.isEligible(3, 4, loader(false))).isTrue();
+        assertThat(cache.isEligible(4, 3, loader(false))).isFalse();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void recordEndedShouldDropLeastRecentlyUsedPairBeyondCapacity() {
+        cache.recordEnded(1, 1);
+        cache.recordEnded(1, 2);
+        cache.isEligible(1, 1, loader(false));
+        cache.recordEnded(1, 3);
+
+        assertThat(cache.isEligible(1, 1, loader(false))).isTrue();
+        assertThat(cache.isEligible(1, 2, loader(false))).isFalse();
+        assertThat(loads).hasValue(1);
+    }
+
+    private BooleanSupplier loader(boolean ended) {
+        return () -> {
+            loads.incrementAndGet();
+            return ended;
+        };
+    }
+}
@@ -46,7 +46,7 @@ public class ItemServiceIntegrationTest {
 
     @Test
     void getItemsByUserIdWhenUserExistsAndHasItemsThenReturnListOfItemDtoForOwner() {
-        List<ItemDtoForOwner> items = itemService.getItemsByUserId(user.getId());
+        List<ItemDtoForOwner> items = itemService.getItemsByUserId(user.getId(), null, 10).getContent();
 
         assertFalse(items.isEmpty());
         assertEquals(1, items.size());
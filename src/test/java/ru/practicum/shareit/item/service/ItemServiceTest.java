@@ -5,30 +5,42 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.dto.ShortBookingDto;
-import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
+import ru.practicum.shareit.exception.InvalidCursorException;
 import ru.practicum.shareit.exception.ItemNotExistsException;
 import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.exception.RequestNotExistsException;
+import ru.practicum.shareit.exception.UnsupportedStatusException;
 import ru.practicum.shareit.exception.UserNotExistsException;
 import ru.practicum.shareit.item.dto.CommentInputDto;
 import ru.practicum.shareit.item.dto.CommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemCommentView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoForOwner;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.request.matching.RequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
 import ru.practicum.shareit.user.model.User;
@@ -39,6 +51,7 @@ import javax.validation.ValidationException;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -53,11 +66,14 @@ class ItemServiceTest {
     private UserStorage userStorage;
 
     @Mock
-    private BookingMapper bookingMapper;
+    private BookingSchedule bookingSchedule;
 
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private ArchivedBookingRepository archivedBookingRepository;
+
     @Mock
     private CommentRepository commentRepository;
 
@@ -67,12 +83,21 @@ class ItemServiceTest {
     @Mock
     private ItemRequestStorage requestStorage;
 
+    @Mock
+    private ItemSearchIndex searchIndex;
+
     @Mock
     private EntityManager entityManager;
 
     @Mock
     private CommentMapper commentMapper;
 
+    @Spy
+    private CommentEligibilityCache commentEligibility = new CommentEligibilityCache(100);
+
+    @Mock
+    private RequestMatcher requestMatcher;
+
     @InjectMocks
     ItemService itemService;
 
@@ -197,6 +222,8 @@ class ItemServiceTest {
         assertNotNull(result);
         assertEquals(itemDtoResponse.getId(), result.getId());
         verify(itemStorage, times(1)).save(item);
+        verify(searchIndex, times(1)).index(item);
+        verify(requestMatcher, times(1)).submit(item);
     }
 
     @Test
@@ -219,6 +246,7 @@ class ItemServiceTest {
     void updateItemWhenItemUpdatedThenReturnItemDto() {
         when(itemStorage.findById(itemId)).thenReturn(Optional.of(item));
         item.setName("Пылесос для химчистки");
+        item.setBookingHold(true);
         when(itemMapper.updateItemFromDto(item, itemDtoRequest)).thenReturn(item);
         when(itemStorage.save(any(Item.class))).thenReturn(item);
         itemDtoResponse.setName("Пылесос для химчистки");
@@ -230,6 +258,7 @@ class ItemServiceTest {
         assertEquals(itemId, result.getId());
         assertEquals("Пылесос для химчистки", result.getName());
         verify(itemStorage, times(1)).save(any(Item.class));
+        assertFalse(item.isBookingHold());
     }
 
     @Test
@@ -249,15 +278,15 @@ class ItemServiceTest {
 
     @Test
     void getItemByIdWhenItemExistsAndUserIsOwnerThenReturnItemDtoForOwner() {
-        when(itemStorage.findItemById(itemId)).thenReturn(Optional.of(item));
-        doNothing().when(entityManager).refresh(any());
-        when(commentRepository.findCommentsByItem_Id(itemId)).thenReturn(List.of(comment));
-        when(commentMapper.toOutputDtoFromComment(comment)).thenReturn(commentOutputDto);
-        when(bookingRepository.findLastBookingByItemIdExcludingRejected(eq(itemId), any(Pageable.class)))
-                .thenReturn(Page.empty());
-        when(bookingRepository.findNextBookingByItemIdExcludingRejected(eq(itemId), any(Pageable.class)))
-                .thenReturn(Page.empty());
-        when(itemMapper.toItemBookingDto(item, null, null, List.of(commentOutputDto)))
+        when(entityManager.find(Item.class, itemId)).thenReturn(item);
+        ItemCommentView latest = itemCommentView(itemId, 25L);
+        when(commentRepository.findLatestByItemIds(List.of(itemId), ItemService.COMMENT_PREVIEW_SIZE))
+                .thenReturn(List.of(latest));
+        when(commentMapper.toOutputDtoFromView(latest)).thenReturn(commentOutputDto);
+        when(bookingRepository.findLastAndNextBookingsByItemIds(eq(List.of(itemId)), any(LocalDateTime.class),
+                eq(LocalDateTime.of(9999, 12, 31, 23, 59, 59))))
+                .thenReturn(List.of(itemBookingView(itemId, booking.getId(), bookerId, ItemBookingView.Kind.NEXT)));
+        when(itemMapper.toItemBookingDto(item, null, shortBookingDto, List.of(commentOutputDto)))
                 .thenReturn(dtoForOwner);
 
         ItemDto result = itemService.getItemById(itemId, ownerId);
@@ -265,12 +294,27 @@ class ItemServiceTest {
         assertNotNull(result);
         assertEquals(dtoForOwner.getId(), result.getId());
         assertEquals(dtoForOwner.getName(), result.getName());
-        verify(itemStorage, times(1)).findItemById(itemId);
+        assertEquals(25L, ((ItemDtoForOwner) result).getCommentCount());
+        verify(entityManager, never()).refresh(any());
+    }
+
+    @Test
+    void getItemByIdWhenUserIsNotOwnerThenSkipBookingsQuery() {
+        when(entityManager.find(Item.class, itemId)).thenReturn(item);
+        when(commentRepository.findLatestByItemIds(List.of(itemId), ItemService.COMMENT_PREVIEW_SIZE))
+                .thenReturn(Collections.emptyList());
+        when(itemMapper.toItemBookingDto(item, null, null, Collections.emptyList())).thenReturn(dtoForOwner);
+
+        ItemDto result = itemService.getItemById(itemId, bookerId);
+
+        assertEquals(dtoForOwner.getId(), result.getId());
+        verify(bookingRepository, never()).findLastAndNextBookingsByItemIds(anyCollection(), any(LocalDateTime.class),
+                any(LocalDateTime.class));
     }
 
     @Test
     void getItemByIdWhenItemDoesNotExistThenThrowItemNotExistsException() {
-        when(itemStorage.findItemById(itemId)).thenReturn(Optional.empty());
+        when(entityManager.find(Item.class, itemId)).thenReturn(null);
 
         assertThrows(ItemNotExistsException.class, () -> itemService.getItemById(itemId, ownerId));
     }
@@ -279,86 +323,321 @@ class ItemServiceTest {
     @Test
     void getItemsByUserIdWhenUserExistsAndHasItemsThenReturnListOfItemDtoForOwner() {
         when(userStorage.existsById(ownerId)).thenReturn(true);
-        when(itemStorage.findItemsByOwnerId(ownerId)).thenReturn(List.of(item));
-        when(bookingRepository.findByItem_Owner_IdAndBookingStatusNotOrderByStartDesc(eq(ownerId), eq(BookingStatus.REJECTED)))
-                .thenReturn(List.of(booking));
-        when(commentRepository.findByItem_Owner_Id(ownerId)).thenReturn(List.of(comment));
-        when(bookingMapper.toShortBookingDto(any(Booking.class))).thenReturn(shortBookingDto);
-        when(itemMapper.toItemBookingDto(eq(item), isNull(), eq(shortBookingDto), anyList()))
+        when(itemStorage.findByOwnerIdAndIdGreaterThanOrderByIdAsc(ownerId, 0, PageRequest.of(0, 11))).thenReturn(List.of(item));
+        when(bookingRepository.findLastAndNextBookingsByItemIds(eq(List.of(itemId)), any(LocalDateTime.class),
+                any(LocalDateTime.class)))
+                .thenReturn(List.of(itemBookingView(itemId, booking.getId(), bookerId, ItemBookingView.Kind.NEXT)));
+        ItemCommentView latest = itemCommentView(itemId, 25L);
+        when(commentRepository.findLatestByItemIds(List.of(itemId), ItemService.COMMENT_PREVIEW_SIZE))
+                .thenReturn(List.of(latest));
+        when(commentMapper.toOutputDtoFromView(latest)).thenReturn(commentOutputDto);
+        when(itemMapper.toItemBookingDto(item, null, shortBookingDto, List.of(commentOutputDto)))
                 .thenReturn(dtoForOwner);
 
-        List<ItemDtoForOwner> result = itemService.getItemsByUserId(ownerId);
+        CursorPage<ItemDtoForOwner> result = itemService.getItemsByUserId(ownerId, null, 10);
 
         assertNotNull(result);
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        assertEquals(dtoForOwner.getId(), result.get(0).getId());
-        verify(itemStorage, times(1)).findItemsByOwnerId(ownerId);
+        assertEquals(1, result.getContent().size());
+        assertEquals(dtoForOwner.getId(), result.getContent().get(0).getId());
+        assertEquals(25L, result.getContent().get(0).getCommentCount());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getItemsByUserIdWhenItemHasLastAndNextBookingsThenPassBothToMapper() {
+        ShortBookingDto lastBookingDto = new ShortBookingDto(2, bookerId);
+        when(userStorage.existsById(ownerId)).thenReturn(true);
+        when(itemStorage.findByOwnerIdAndIdGreaterThanOrderByIdAsc(ownerId, 0, PageRequest.of(0, 11))).thenReturn(List.of(item));
+        when(bookingRepository.findLastAndNextBookingsByItemIds(eq(List.of(itemId)), any(LocalDateTime.class),
+                any(LocalDateTime.class)))
+                .thenReturn(List.of(
+                        itemBookingView(itemId, 2, bookerId, ItemBookingView.Kind.LAST),
+                        itemBookingView(itemId, booking.getId(), bookerId, ItemBookingView.Kind.NEXT)));
+        when(commentRepository.findLatestByItemIds(List.of(itemId), ItemService.COMMENT_PREVIEW_SIZE))
+                .thenReturn(Collections.emptyList());
+        when(itemMapper.toItemBookingDto(item, lastBookingDto, shortBookingDto, Collections.emptyList()))
+                .thenReturn(dtoForOwner);
+
+        CursorPage<ItemDtoForOwner> result = itemService.getItemsByUserId(ownerId, null, 10);
+
+        assertEquals(List.of(dtoForOwner), result.getContent());
+        assertEquals(0L, dtoForOwner.getCommentCount());
     }
 
     @Test
     void getItemsByUserIdWhenUserExistsAndHasNoItemsThenReturnEmptyList() {
         when(userStorage.existsById(ownerId)).thenReturn(true);
-        when(itemStorage.findItemsByOwnerId(ownerId)).thenReturn(Collections.emptyList());
+        when(itemStorage.findByOwnerIdAndIdGreaterThanOrderByIdAsc(ownerId, 0, PageRequest.of(0, 11))).thenReturn(Collections.emptyList());
 
-        List<ItemDtoForOwner> result = itemService.getItemsByUserId(ownerId);
+        CursorPage<ItemDtoForOwner> result = itemService.getItemsByUserId(ownerId, null, 10);
 
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(itemStorage, times(1)).findItemsByOwnerId(ownerId);
+        assertTrue(result.getContent().isEmpty());
+        assertNull(result.getNextCursor());
+        verify(bookingRepository, never()).findLastAndNextBookingsByItemIds(anyCollection(), any(LocalDateTime.class),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    void getItemsByUserIdWhenMoreItemsThanPageThenReturnCursorOfLastItem() {
+        Item nextItem = Item.builder().id(itemId + 1).owner(owner).build();
+        when(userStorage.existsById(ownerId)).thenReturn(true);
+        when(itemStorage.findByOwnerIdAndIdGreaterThanOrderByIdAsc(ownerId, 0, PageRequest.of(0, 2)))
+                .thenReturn(List.of(item, nextItem));
+        when(itemMapper.toItemBookingDto(item, null, null, Collections.emptyList())).thenReturn(dtoForOwner);
+
+        CursorPage<ItemDtoForOwner> firstPage = itemService.getItemsByUserId(ownerId, null, 1);
+
+        assertEquals(List.of(dtoForOwner), firstPage.getContent());
+        assertEquals(Cursors.encode(itemId), firstPage.getNextCursor());
+        verify(commentRepository).findLatestByItemIds(List.of(itemId), ItemService.COMMENT_PREVIEW_SIZE);
+    }
+
+    @Test
+    void getItemsByUserIdWhenCursorGivenThenContinueAfterItsItem() {
+        when(userStorage.existsById(ownerId)).thenReturn(true);
+        when(itemStorage.findByOwnerIdAndIdGreaterThanOrderByIdAsc(ownerId, itemId, PageRequest.of(0, 2)))
+                .thenReturn(Collections.emptyList());
+
+        CursorPage<ItemDtoForOwner> page = itemService.getItemsByUserId(ownerId, Cursors.encode(itemId), 1);
+
+        assertTrue(page.getContent().isEmpty());
+    }
+
+    @Test
+    void getItemsByUserIdWhenCursorIsMalformedThenThrowInvalidCursorException() {
+        when(userStorage.existsById(ownerId)).thenReturn(true);
+
+        assertThrows(InvalidCursorException.class, () -> itemService.getItemsByUserId(ownerId, "%%%", 1));
+    }
+
+    @Test
+    void getCommentsWhenMoreCommentsThanPageThenReturnNewestAndCursor() {
+        Comment older = Comment.builder().id(3).text("Старый").author(booker).item(item).build();
+        Comment newer = Comment.builder().id(5).text("Новый").author(booker).item(item).build();
+        CommentOutputDto newerDto = CommentOutputDto.builder().id(5).text("Новый").build();
+        when(itemStorage.existsById(itemId)).thenReturn(true);
+        when(commentRepository.findByItem_IdAndIdLessThanOrderByIdDesc(itemId, Integer.MAX_VALUE,
+                PageRequest.of(0, 2))).thenReturn(List.of(newer, older));
+        when(commentMapper.toOutputDtoFromComment(newer)).thenReturn(newerDto);
+
+        CursorPage<CommentOutputDto> page = itemService.getComments(itemId, null, 1);
+
+        assertEquals(List.of(newerDto), page.getContent());
+        assertEquals(Cursors.encode(5), page.getNextCursor());
+    }
+
+    @Test
+    void getCommentsWhenCursorGivenThenContinueBeforeItsComment() {
+        when(itemStorage.existsById(itemId)).thenReturn(true);
+        when(commentRepository.findByItem_IdAndIdLessThanOrderByIdDesc(itemId, 5, PageRequest.of(0, 11)))
+                .thenReturn(Collections.emptyList());
+
+        CursorPage<CommentOutputDto> page = itemService.getComments(itemId, Cursors.encode(5), 10);
+
+        assertTrue(page.getContent().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getCommentsWhenItemDoesNotExistThenThrowItemNotExistsException() {
+        when(itemStorage.existsById(itemId)).thenReturn(false);
+
+        assertThrows(ItemNotExistsException.class, () -> itemService.getComments(itemId, null, 10));
     }
 
     @Test
     void getItemsByUserIdWhenUserDoesNotExistThenThrowUserNotExistsException() {
         when(userStorage.existsById(ownerId)).thenReturn(false);
 
-        assertThrows(UserNotExistsException.class, () -> itemService.getItemsByUserId(ownerId));
+        assertThrows(UserNotExistsException.class, () -> itemService.getItemsByUserId(ownerId, null, 10));
     }
 
     @Test
     void searchItemsWhenItemsFoundThenReturnListOfItemDto() {
         String searchText = "пылесос";
-        when(itemStorage.search(searchText)).thenReturn(List.of(item));
+        Pageable page = OffsetPageRequest.of(0, 10);
+        when(itemStorage.search(searchText, page)).thenReturn(List.of(item));
         when(itemMapper.toItemDto(any(Item.class))).thenReturn(itemDtoResponse);
 
-        List<ItemDto> result = itemService.searchItems(searchText);
+        List<ItemDto> result = itemService.searchItems(searchText, "SUBSTRING", 0, 10);
 
         assertNotNull(result);
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
         assertEquals(itemDtoResponse.getId(), result.get(0).getId());
-        verify(itemStorage, times(1)).search(searchText);
+        verify(itemStorage, times(1)).search(searchText, page);
+    }
+
+    @Test
+    void searchItemsWhenIndexIsReadyThenLoadOnlyItemsOfRequestedPage() {
+        String searchText = "пылесос";
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.searchAvailable(searchText, 2)).thenReturn(List.of(5, itemId));
+        when(itemStorage.findByIdInAndAvailableTrue(List.of(itemId))).thenReturn(List.of(item));
+        when(itemMapper.toItemDto(item)).thenReturn(itemDtoResponse);
+
+        List<ItemDto> result = itemService.searchItems(searchText, "SUBSTRING", 1, 1);
+
+        assertEquals(1, result.size());
+        assertEquals(itemDtoResponse.getId(), result.get(0).getId());
+        verify(itemStorage, never()).search(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void searchItemsWhenIndexIsReadyAndPageIsBeyondResultsThenReturnEmptyList() {
+        String searchText = "пылесос";
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.searchAvailable(searchText, 20)).thenReturn(List.of(itemId));
+
+        List<ItemDto> result = itemService.searchItems(searchText, "SUBSTRING", 10, 10);
+
+        assertTrue(result.isEmpty());
+        verify(itemStorage, never()).findByIdInAndAvailableTrue(anyList());
+    }
+
+    @Test
+    void searchItemsWhenFromIsHugeThenLimitDoesNotOverflow() {
+        String searchText = "пылесос";
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.searchAvailable(searchText, Integer.MAX_VALUE)).thenReturn(List.of(itemId));
+
+        List<ItemDto> result = itemService.searchItems(searchText, "SUBSTRING", Integer.MAX_VALUE - 1, 10);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void searchItemsWhenRelevanceModeThenAskIndexForTopOfRequestedPage() {
+        String searchText = "пылесос";
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.searchRelevant(searchText, 2)).thenReturn(List.of(7, itemId));
+        when(itemStorage.findByIdInAndAvailableTrue(List.of(itemId))).thenReturn(List.of(item));
+        when(itemMapper.toItemDto(item)).thenReturn(itemDtoResponse);
+
+        List<ItemDto> result = itemService.searchItems(searchText, "RELEVANCE", 1, 1);
+
+        assertEquals(1, result.size());
+        assertEquals(itemDtoResponse.getId(), result.get(0).getId());
+        verify(searchIndex, never()).searchAvailable(anyString(), anyInt());
+    }
+
+    @Test
+    void searchItemsWhenFuzzyModeThenAskIndexForTypoTolerantMatches() {
+        String searchText = "пылисос";
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.searchFuzzy(searchText, 10)).thenReturn(List.of(itemId));
+        when(itemStorage.findByIdInAndAvailableTrue(List.of(itemId))).thenReturn(List.of(item));
+        when(itemMapper.toItemDto(item)).thenReturn(itemDtoResponse);
+
+        List<ItemDto> result = itemService.searchItems(searchText, "FUZZY", 0, 10);
+
+        assertEquals(1, result.size());
+        assertEquals(itemDtoResponse.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void searchItemsWhenModeIsUnknownThenThrowUnsupportedStatusException() {
+        assertThrows(UnsupportedStatusException.class,
+                () -> itemService.searchItems("пылесос", "MAGIC", 0, 10));
+    }
+
+    @Test
+    void searchItemsWhenIndexIsNotReadyThenFromIsExactOffset() {
+        String searchText = "пылесос";
+        when(itemStorage.search(searchText, OffsetPageRequest.of(3, 2))).thenReturn(List.of(item));
+        when(itemMapper.toItemDto(any(Item.class))).thenReturn(itemDtoResponse);
+
+        List<ItemDto> result = itemService.searchItems(searchText, "SUBSTRING", 3, 2);
+
+        assertEquals(1, result.size());
     }
 
     @Test
     void searchItemsWhenNoItemsFoundThenReturnEmptyList() {
         String searchText = "что-то очень редкое";
-        when(itemStorage.search(searchText)).thenReturn(Collections.emptyList());
+        Pageable page = OffsetPageRequest.of(0, 10);
+        when(itemStorage.search(searchText, page)).thenReturn(Collections.emptyList());
 
-        List<ItemDto> result = itemService.searchItems(searchText);
+        List<ItemDto> result = itemService.searchItems(searchText, "SUBSTRING", 0, 10);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(itemStorage, times(1)).search(searchText);
+        verify(itemStorage, times(1)).search(searchText, page);
     }
 
     @Test
     void searchItemsWhenSearchTextIsEmptyThenReturnEmptyList() {
         String searchText = "";
-        when(itemStorage.search(searchText)).thenReturn(Collections.emptyList());
+        Pageable page = OffsetPageRequest.of(0, 10);
+        when(itemStorage.search(searchText, page)).thenReturn(Collections.emptyList());
 
-        List<ItemDto> result = itemService.searchItems(searchText);
+        List<ItemDto> result = itemService.searchItems(searchText, "SUBSTRING", 0, 10);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(itemStorage, times(1)).search(searchText);
+        verify(itemStorage, times(1)).search(searchText, page);
+    }
+
+    @Test
+    void getAvailabilityWhenItemsExistThenReturnFreeSlotsOfEachItem() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime to = from.plusDays(30);
+        List<FreeSlotDto> slots = List.of(new FreeSlotDto(from, to));
+        when(itemStorage.countByIdIn(List.of(itemId, 2))).thenReturn(2L);
+        when(bookingSchedule.findFreeSlots(List.of(itemId, 2), from, to))
+                .thenReturn(Map.of(itemId, slots));
+
+        List<ItemAvailabilityDto> result = itemService.getAvailability(List.of(itemId, 2, itemId), from, to);
+
+        assertEquals(List.of(new ItemAvailabilityDto(itemId, slots)), result);
+    }
+
+    @Test
+    void getAvailabilityWhenItemDoesNotExistThenThrowItemNotExistsException() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        when(itemStorage.countByIdIn(List.of(itemId))).thenReturn(0L);
+
+        assertThrows(ItemNotExistsException.class,
+                () -> itemService.getAvailability(List.of(itemId), from, from.plusDays(1)));
+    }
+
+    @Test
+    void getAvailabilityWhenPeriodIsInvalidThenThrowValidationException() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+
+        assertThrows(ValidationException.class,
+                () -> itemService.getAvailability(List.of(itemId), from, from.minusHours(1)));
+        assertThrows(ValidationException.class,
+                () -> itemService.getAvailability(List.of(itemId), from, from.plusYears(2)));
+        verifyNoInteractions(bookingSchedule);
+    }
+
+    @Test
+    void suggestItemNamesWhenIndexIsReadyThenAnswerFromIndex() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.suggest("пыл", 5)).thenReturn(List.of("Пылесос"));
+
+        List<String> result = itemService.suggestItemNames("пыл", 5);
+
+        assertEquals(List.of("Пылесос"), result);
+        verify(itemStorage, never()).suggestNames(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void suggestItemNamesWhenIndexIsNotReadyThenAskStorage() {
+        when(itemStorage.suggestNames("пыл", PageRequest.of(0, 5))).thenReturn(List.of("Пылесос"));
+
+        List<String> result = itemService.suggestItemNames("пыл", 5);
+
+        assertEquals(List.of("Пылесос"), result);
     }
 
     @Test
     void saveCommentWhenCommentIsValidThenReturnCommentOutputDto() {
         when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
         when(itemStorage.findItemById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.existsByItemIdAndUserIdAndEnded(itemId, bookerId)).thenReturn(true);
+        when(bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(eq(itemId), eq(bookerId), any()))
+                .thenReturn(true);
         when(commentMapper.toCommentFromInput(commentInputDto, booker, item)).thenReturn(comment);
         when(commentRepository.save(comment)).thenReturn(comment);
         when(commentMapper.toOutputDtoFromComment(comment)).thenReturn(commentOutputDto);
@@ -368,11 +647,43 @@ class ItemServiceTest {
         assertNotNull(result);
         assertEquals("Хороший пылесос", result.getText());
         verify(commentRepository, times(1)).save(comment);
+        verify(entityManager, never()).refresh(any());
+    }
+
+    @Test
+    void saveCommentWhenBookingIsArchivedThenSaveComment() {
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(itemStorage.findItemById(itemId)).thenReturn(Optional.of(item));
+        when(bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(eq(itemId), eq(bookerId), any()))
+                .thenReturn(false);
+        when(archivedBookingRepository.existsByItem_IdAndBooker_Id(itemId, bookerId)).thenReturn(true);
+        when(commentMapper.toCommentFromInput(commentInputDto, booker, item)).thenReturn(comment);
+        when(commentRepository.save(comment)).thenReturn(comment);
+        when(commentMapper.toOutputDtoFromComment(comment)).thenReturn(commentOutputDto);
+
+        CommentOutputDto result = itemService.saveComment(commentInputDto, itemId, bookerId);
+
+        assertEquals("Хороший пылесос", result.getText());
+    }
+
+    @Test
+    void saveCommentWhenEligibilityIsCachedThenSkipBookingQuery() {
+        commentEligibility.recordEnded(itemId, bookerId);
+        when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(itemStorage.findItemById(itemId)).thenReturn(Optional.of(item));
+        when(commentMapper.toCommentFromInput(commentInputDto, booker, item)).thenReturn(comment);
+        when(commentRepository.save(comment)).thenReturn(comment);
+        when(commentMapper.toOutputDtoFromComment(comment)).thenReturn(commentOutputDto);
+
+        itemService.saveComment(commentInputDto, itemId, bookerId);
+
+        verify(bookingRepository, never()).existsByItem_IdAndBooker_IdAndEndBefore(any(), any(), any());
     }
 
     @Test
     void saveCommentWhenUserDoesNotExistThenThrowUserNotExistsException() {
-        when(bookingRepository.existsByItemIdAndUserIdAndEnded(itemId, bookerId)).thenReturn(true);
+        when(bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(eq(itemId), eq(bookerId), any()))
+                .thenReturn(true);
         when(userStorage.findById(bookerId)).thenReturn(Optional.empty());
 
         assertThrows(UserNotExistsException.class, () -> itemService.saveComment(commentInputDto, itemId, bookerId));
@@ -380,7 +691,8 @@ class ItemServiceTest {
 
     @Test
     void saveCommentWhenItemDoesNotExistThenThrowItemNotExistsException() {
-        when(bookingRepository.existsByItemIdAndUserIdAndEnded(itemId, bookerId)).thenReturn(true);
+        when(bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(eq(itemId), eq(bookerId), any()))
+                .thenReturn(true);
         when(userStorage.findById(bookerId)).thenReturn(Optional.of(booker));
         when(itemStorage.findItemById(itemId)).thenReturn(Optional.empty());
 
@@ -389,8 +701,63 @@ class ItemServiceTest {
 
     @Test
     void saveCommentWhenNoCompletedBookingThenThrowValidationException() {
-        when(bookingRepository.existsByItemIdAndUserIdAndEnded(itemId, bookerId)).thenReturn(false);
+        when(bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(eq(itemId), eq(bookerId), any()))
+                .thenReturn(false);
 
         assertThrows(ValidationException.class, () -> itemService.saveComment(commentInputDto, itemId, bookerId));
     }
-}
\ No newline at end of file
+
+    private static ItemCommentView itemCommentView(Integer itemId, Long total) {
+        return new ItemCommentView() {
+            @Override
+            public Integer getId() {
+                return 1;
+            }
+
+            @Override
+            public Integer getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public String getText() {
+                return "Хороший пылесос";
+            }
+
+            @Override
+            public String getAuthorName() {
+                return "Booker";
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+
+    private static ItemBookingView itemBookingView(Integer itemId, Integer id, Integer bookerId,
+                                                   ItemBookingView.Kind kind) {
+        return new ItemBookingView() {
+            @Override
+            public Integer getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getBookerId() {
+                return bookerId;
+            }
+
+            @Override
+            public ItemBookingView.Kind getKind() {
+                return kind;
+            }
+        };
+    }
+}
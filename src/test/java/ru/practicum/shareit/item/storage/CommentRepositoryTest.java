@@ -0,0 +1,95 @@
+package ru.practicum.shareit.item.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemCommentView;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class CommentRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private User author;
+    private Item popular;
+    private Item quiet;
+    private Item silent;
+    private final List<Comment> popularComments = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        author = new User();
+        author.setName("Author");
+        author.setEmail("author@example.com");
+        entityManager.persist(author);
+
+        popular = item("Popular");
+        quiet = item("Quiet");
+        silent = item("Silent");
+        for (int i = 0; i < 5; i++) {
+            popularComments.add(comment(popular, "Comment " + i));
+        }
+        comment(quiet, "Only comment");
+        entityManager.flush();
+    }
+
+    @Test
+    void whenFindLatestByItemIds_thenCapCommentsPerItemAndCountAll() {
+        List<ItemCommentView> latest = commentRepository.findLatestByItemIds(
+                List.of(popular.getId(), quiet.getId(), silent.getId()), 2);
+
+        assertThat(latest).extracting(ItemCommentView::getItemId)
+                .containsExactly(popular.getId(), popular.getId(), quiet.getId());
+        assertThat(latest).extracting(ItemCommentView::getId)
+                .containsExactly(popularComments.get(4).getId(), popularComments.get(3).getId(),
+                        latest.get(2).getId());
+        assertThat(latest).extracting(ItemCommentView::getTotal).containsExactly(5L, 5L, 1L);
+        assertThat(latest.get(0).getAuthorName()).isEqualTo("Author");
+        assertThat(latest.get(0).getText()).isEqualTo("Comment 4");
+    }
+
+    @Test
+    void whenFindByItemIdAndIdLessThan_thenPageNewestFirst() {
+        List<Comment> firstPage = commentRepository.findByItem_IdAndIdLessThanOrderByIdDesc(popular.getId(),
+                Integer.MAX_VALUE, PageRequest.of(0, 2));
+        List<Comment> secondPage = commentRepository.findByItem_IdAndIdLessThanOrderByIdDesc(popular.getId(),
+                firstPage.get(1).getId(), PageRequest.of(0, 2));
+
+        assertThat(firstPage).containsExactly(popularComments.get(4), popularComments.get(3));
+        assertThat(secondPage).containsExactly(popularComments.get(2), popularComments.get(1));
+    }
+
+    private Item item(String name) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(name + " item");
+        item.setAvailable(true);
+        item.setOwner(author);
+        return entityManager.persist(item);
+    }
+
+    private Comment comment(Item item, String text) {
+        Comment comment = new Comment();
+        comment.setText(text);
+        comment.setItem(item);
+        comment.setAuthor(author);
+        return entityManager.persist(comment);
+    }
+}
@@ -6,10 +6,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.HeldItemView;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -50,10 +59,154 @@ public class ItemStorageTest {
     }
 
     @Test
-    void whenSearch_thenSuccess() {
-        List<Item> items = itemStorage.search("Test");
-        assertThat(items).hasSize(2).extracting("id")
-                .containsExactlyInAnyOrder(item.getId(), anotherItem.getId());
+    void whenSearch_thenReturnOnlyAvailableItems() {
+        List<Item> items = itemStorage.search("Test", PageRequest.of(0, 10));
+        assertThat(items).hasSize(1).extracting("id")
+                .containsExactly(item.getId());
     }
 
-}
\ No newline at end of file
+    @Test
+    void whenSearchWithPage_thenReturnRequestedPage() {
+        anotherItem.setAvailable(true);
+        entityManager.flush();
+
+        List<Item> firstPage = itemStorage.search("test", PageRequest.of(0, 1));
+        List<Item> secondPage = itemStorage.search("test", PageRequest.of(1, 1));
+
+        assertThat(firstPage).extracting("id").containsExactly(item.getId());
+        assertThat(secondPage).extracting("id").containsExactly(anotherItem.getId());
+    }
+
+    @Test
+    void whenSearchFromOffset_thenSkipExactlyThatManyRows() {
+        anotherItem.setAvailable(true);
+        entityManager.flush();
+
+        List<Item> items = itemStorage.search("test", OffsetPageRequest.of(1, 2));
+
+        assertThat(items).extracting("id").containsExactly(anotherItem.getId());
+    }
+
+    @Test
+    void whenFindByIdInAndAvailableTrue_thenSkipUnavailable() {
+        List<Item> items = itemStorage.findByIdInAndAvailableTrue(List.of(item.getId(), anotherItem.getId()));
+        assertThat(items).extracting("id").containsExactly(item.getId());
+    }
+
+    @Test
+    void whenSuggestNames_thenReturnAvailableNamesByPrefixMostPopularFirst() {
+        anotherItem.setAvailable(true);
+        Item duplicate = new Item();
+        duplicate.setName("Another Test Item 2");
+        duplicate.setDescription("Second copy");
+        duplicate.setAvailable(true);
+        duplicate.setOwner(user);
+        entityManager.persist(duplicate);
+        entityManager.flush();
+
+        List<String> names = itemStorage.suggestNames("an", PageRequest.of(0, 10));
+        List<String> allNames = itemStorage.suggestNames("", PageRequest.of(0, 10));
+
+        assertThat(names).containsExactly("Another Test Item 2");
+        assertThat(allNames).containsExactly("Another Test Item 2", "Test Item 1");
+    }
+
+    @Test
+    void whenHoldForBookings_thenHoldOnlyAvailableItemsInUse() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Item itemInUse = persistItem("Item in use", true, false);
+        User booker = persistBooker();
+        persistApprovedBooking(itemInUse, booker, now.minusHours(1), now.plusHours(1));
+        persistApprovedBooking(item, booker, now.plusDays(1), now.plusDays(2));
+        persistApprovedBooking(anotherItem, booker, now.minusHours(1), now.plusHours(1));
+        entityManager.flush();
+
+        List<Integer> inUse = itemStorage.findItemIdsInUseAfter(now, 0, PageRequest.of(0, 10));
+        Set<Integer> held = itemStorage.holdForBookings(List.of(item.getId(), anotherItem.getId(), itemInUse.getId()),
+                now);
+        entityManager.clear();
+
+        assertThat(inUse).containsExactly(anotherItem.getId(), itemInUse.getId());
+        assertThat(held).containsExactly(itemInUse.getId());
+        assertThat(itemStorage.findById(itemInUse.getId())).get()
+                .extracting(Item::getAvailable, Item::isBookingHold).containsExactly(false, true);
+        assertThat(itemStorage.findById(item.getId())).get()
+                .extracting(Item::getAvailable, Item::isBookingHold).containsExactly(true, false);
+        assertThat(itemStorage.findById(anotherItem.getId())).get()
+                .extracting(Item::getAvailable, Item::isBookingHold).containsExactly(false, false);
+    }
+
+    @Test
+    void whenRestoreAvailability_thenRestoreOnlyHeldItemsNotInUse() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Item heldItem = persistItem("Held item", false, true);
+        Item itemInUse = persistItem("Item in use", false, true);
+        User booker = persistBooker();
+        persistApprovedBooking(heldItem, booker, now.minusHours(3), now.minusHours(2));
+        persistApprovedBooking(itemInUse, booker, now.minusHours(1), now.plusHours(1));
+        entityManager.flush();
+
+        List<HeldItemView> candidates = itemStorage.findHeldItemsAfter(now, 0, PageRequest.of(0, 10));
+        Set<Integer> restored = itemStorage.restoreAvailability(
+                List.of(heldItem.getId(), itemInUse.getId(), anotherItem.getId()), now);
+        entityManager.clear();
+
+        assertThat(candidates).extracting(HeldItemView::getId).containsExactly(heldItem.getId());
+        assertThat(candidates.get(0).getLastEnd()).isEqualTo(now.minusHours(2));
+        assertThat(restored).containsExactly(heldItem.getId());
+        assertThat(itemStorage.findById(heldItem.getId())).get()
+                .extracting(Item::getAvailable, Item::isBookingHold).containsExactly(true, false);
+        assertThat(itemStorage.findById(itemInUse.getId())).get().extracting(Item::getAvailable).isEqualTo(false);
+        assertThat(itemStorage.findById(anotherItem.getId())).get().extracting(Item::getAvailable).isEqualTo(false);
+    }
+
+    @Test
+    void whenFindItemsByRequestIds_thenCapItemsPerRequest() {
+        ItemRequest request = new ItemRequest();
+        request.setDescription("Need a ladder");
+        request.setRequestor(user);
+        request.setCreated(LocalDateTime.now());
+        entityManager.persist(request);
+        item.setRequest(request);
+        anotherItem.setRequest(request);
+        Item thirdAnswer = new Item();
+        thirdAnswer.setName("Third ladder");
+        thirdAnswer.setDescription("One answer too many");
+        thirdAnswer.setAvailable(true);
+        thirdAnswer.setOwner(user);
+        thirdAnswer.setRequest(request);
+        entityManager.persist(thirdAnswer);
+        entityManager.flush();
+
+        List<Item> items = itemStorage.findItemsByRequestIds(List.of(request.getId()), 2);
+
+        assertThat(items).extracting(Item::getId).containsExactly(item.getId(), anotherItem.getId());
+    }
+
+    private Item persistItem(String name, boolean available, boolean bookingHold) {
+        Item persisted = new Item();
+        persisted.setName(name);
+        persisted.setDescription(name + " description");
+        persisted.setAvailable(available);
+        persisted.setBookingHold(bookingHold);
+        persisted.setOwner(user);
+        return entityManager.persist(persisted);
+    }
+
+    private User persistBooker() {
+        User booker = new User();
+        booker.setName("Booker");
+        booker.setEmail("booker@example.com");
+        return entityManager.persist(booker);
+    }
+
+    private void persistApprovedBooking(Item bookedItem, User booker, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setItem(bookedItem);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setBookingStatus(BookingStatus.APPROVED);
+        entityManager.persist(booking);
+    }
+}
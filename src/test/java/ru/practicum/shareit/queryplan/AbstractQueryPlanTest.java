@@ -0,0 +1,498 @@
+package ru.practicum.shareit.queryplan;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.storage.ItemRequestStorage;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seeds a synthetic catalog, calls every query method of the booking, item, comment and request
+ * repositories, explains the SQL they issued and fails when a plan falls back to a full scan of a large
+ * table, misses its expected index or reads more rows than allowed.
+ * Subclasses choose the database: {@link H2QueryPlanTest} always runs, {@link PostgresQueryPlanTest}
+ * runs when a local Postgres is configured.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class AbstractQueryPlanTest {
+    static final int USERS = 200;
+    static final int REQUESTS = 2_000;
+    static final int ITEMS = 2_000;
+    static final int BOOKINGS = 40_000;
+    static final int ARCHIVED_BOOKINGS = 10_000;
+    static final int COMMENTS = 10_000;
+    static final int SUGGESTIONS = 10_000;
+
+    private static final Set<String> LARGE_TABLES = Set.of("BOOKINGS", "BOOKINGS_ARCHIVE", "ITEMS", "COMMENTS",
+            "REQUESTS", "REQUEST_SUGGESTIONS");
+    // Функции и процедуры из закомментированной части schema.sql в базе не создаются, объяснять нечего
+    private static final Set<String> NOT_EXPLAINED = Set.of("ItemStorage.searchItemsByName",
+            "ItemStorage.addCommentToItem");
+
+    private static final String[] BOOKER = {"IDX_BOOKINGS_BOOKER", "FK_BOOKING_BOOKER"};
+    private static final String[] ITEM_BOOKINGS = {"IDX_BOOKINGS_ITEM", "FK_BOOKING_ITEM"};
+    private static final String[] ARCHIVE_BOOKER = {"IDX_BOOKINGS_ARCHIVE_BOOKER", "FK_BOOKING_ARCHIVE_BOOKER"};
+    private static final String[] ARCHIVE_ITEM = {"IDX_BOOKINGS_ARCHIVE_ITEM", "FK_BOOKING_ARCHIVE_ITEM"};
+    private static final String[] APPROVED_BY_END = {"IDX_BOOKINGS_END"};
+    private static final String[] WAITING_BOOKINGS = {"IDX_BOOKINGS_WAITING"};
+    private static final String[] ANY_BOOKINGS = {"IDX_BOOKINGS_", "FK_BOOKING_"};
+    private static final String[] OWNER = {"IDX_ITEMS_OWNER", "FK_ITEM_OWNER"};
+    private static final String[] PRIMARY_KEY = {"PRIMARY_KEY", "PK_"};
+    private static final String[] ITEM_REQUEST = {"IDX_ITEMS_REQUEST", "FK_ITEM_REQUEST"};
+    private static final String[] BOOKING_HOLD = {"IDX_ITEMS_BOOKING_HOLD"};
+    private static final String[] REQUESTOR = {"IDX_REQUESTS_REQUESTOR", "FK_REQUEST_REQUESTOR"};
+    private static final String[] REQUESTS_CREATED = {"IDX_REQUESTS_CREATED"};
+    private static final String[] COMMENT_ITEM = {"IDX_COMMENTS_ITEM", "FK_COMMENT_ITEM"};
+
+    // Запросы, которые H2 планирует иначе, чем Postgres: на H2 проверяется только то, что они объясняются
+    private static final String H2_OWNER_JOIN = "H2 drives the entity graph's left joins from bookings, " +
+            "not from the owner's items";
+    private static final String H2_WAITING_FIRST = "H2 seeks idx_bookings_waiting by status instead of the primary key";
+    private static final String H2_DATE_FIRST = "H2 applies the date range before the item id list";
+    private static final String H2_PARENT_JOIN = "H2 walks the parent table joined by the derived query";
+
+    private static final int USER_ID = 17;
+    private static final int ITEM_ID = 42;
+    // Одобренное бронирование предмета ITEM_ID: условный UPDATE по нему ничего не меняет
+    private static final int BOOKING_ID = 42;
+    private static final int REQUEST_ID = 7;
+    private static final List<Integer> ITEM_IDS = IntStream.rangeClosed(1, 20).boxed().collect(Collectors.toList());
+    private static final List<BookingStatus> BLOCKING = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final LocalDateTime FIRST_PAGE_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+    private QueryPlan.Dialect dialect;
+
+    @Autowired
+    private RecordingDataSourcePostProcessor recording;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestStorage itemRequestStorage;
+
+    @BeforeAll
+    void seed() {
+        JdbcTemplate jdbc = new JdbcTemplate(recording.getRecorder().getTarget());
+        dialect = jdbc.execute((ConnectionCallback<QueryPlan.Dialect>) connection ->
+                connection.getMetaData().getDatabaseProductName().startsWith("H2")
+                        ? QueryPlan.Dialect.H2 : QueryPlan.Dialect.POSTGRES);
+        for (String table : List.of("comments", "request_suggestions", "bookings_archive", "bookings", "items",
+                "requests", "users")) {
+            jdbc.update("DELETE FROM " + table);
+        }
+        jdbc.batchUpdate("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+                rows(USERS, i -> new Object[]{i, "User " + i, "user" + i + "@example.com"}));
+        jdbc.batchUpdate("INSERT INTO requests (id, description, requestor_id, created) VALUES (?, ?, ?, ?)",
+                rows(REQUESTS, i -> new Object[]{i, "Need item " + i, i % USERS + 1,
+                        Timestamp.valueOf(now.minusMinutes(i))}));
+        jdbc.batchUpdate("INSERT INTO items (id, name, description, is_available, owner_id, request_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                rows(ITEMS, i -> new Object[]{i, "Item " + i, "Description of item " + i, i % 5 != 0,
+                        ownerOf(i), i % 2 == 0 ? (i / 2 - 1) % REQUESTS + 1 : null}));
+        jdbc.batchUpdate("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                rows(BOOKINGS, i -> {
+                    int itemId = (i - 1) % ITEMS + 1;
+                    int bookerId = i * 7 % USERS + 1;
+                    if (bookerId == ownerOf(itemId)) {
+                        bookerId = bookerId % USERS + 1;
+                    }
+                    LocalDateTime start = now.minusHours(1_000).plusHours(i * 37L % 2_000);
+                    String status = i % 10 == 0 ? "WAITING" : i % 10 == 1 ? "REJECTED" : "APPROVED";
+                    return new Object[]{i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1 + i % 48)),
+                            itemId, bookerId, status};
+                }));
+        jdbc.batchUpdate("INSERT INTO bookings_archive (id, start_date, end_date, item_id, booker_id, status) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                rows(ARCHIVED_BOOKINGS, i -> {
+                    LocalDateTime start = now.minusYears(2).plusHours(i);
+                    return new Object[]{BOOKINGS + i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(2)),
+                            (i - 1) % ITEMS + 1, i * 11 % USERS + 1, i % 10 == 1 ? "REJECTED" : "APPROVED"};
+                }));
+        jdbc.batchUpdate("INSERT INTO comments (id, text, item_id, author_id) VALUES (?, ?, ?, ?)",
+                rows(COMMENTS, i -> new Object[]{i, "Comment " + i, (i - 1) % ITEMS + 1, i * 3 % USERS + 1}));
+        // Каждая заявка получает SUGGESTIONS / REQUESTS разных предметов
+        jdbc.batchUpdate("INSERT INTO request_suggestions (request_id, item_id, score, created) VALUES (?, ?, ?, ?)",
+                rows(SUGGESTIONS, i -> new Object[]{(i - 1) % REQUESTS + 1, ((i - 1) / REQUESTS * 397 + i) % ITEMS + 1,
+                        1 + i % 3, Timestamp.valueOf(now)}));
+        jdbc.execute("ANALYZE");
+    }
+
+    @TestFactory
+    Stream<DynamicTest> everyRepositoryQueryShouldKeepItsPlan() {
+        return cases().stream().map(planCase -> DynamicTest.dynamicTest(planCase.getMethod(), () -> verify(planCase)));
+    }
+
+    @Test
+    void everyRepositoryQueryShouldHavePlanExpectation() {
+        Set<String> declared = Stream.of(BookingRepository.class, ArchivedBookingRepository.class, ItemStorage.class,
+                        CommentRepository.class, ItemRequestStorage.class)
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods())
+                        .filter(method -> !method.isDefault() && !method.isSynthetic()
+                                && !Modifier.isStatic(method.getModifiers()))
+                        .map(Method::getName)
+                        .map(name -> repository.getSimpleName() + "." + name))
+                .filter(name -> !NOT_EXPLAINED.contains(name))
+                .collect(Collectors.toSet());
+        Set<String> covered = cases().stream().map(QueryPlanCase::getMethod).collect(Collectors.toSet());
+
+        assertThat(covered).containsExactlyInAnyOrderElementsOf(declared);
+    }
+
+    private void verify(QueryPlanCase planCase) throws SQLException {
+        List<RecordedStatement> statements = recording.getRecorder().record(planCase.getInvocation());
+        assertThat(statements).as("SQL issued by %s", planCase.getMethod()).isNotEmpty();
+
+        List<QueryPlan> plans = new ArrayList<>();
+        try (Connection connection = recording.getRecorder().getTarget().getConnection()) {
+            for (RecordedStatement statement : statements) {
+                plans.add(QueryPlan.explain(dialect, connection, statement));
+            }
+        }
+        if (planCase.getScanReason(dialect) != null) {
+            return;
+        }
+        for (QueryPlan plan : plans) {
+            assertThat(plan.getScannedTables()).as("tables fully scanned by %s:%n%s", planCase.getMethod(), plan)
+                    .doesNotContainAnyElementsOf(LARGE_TABLES);
+            assertThat(plan.getMaxRows()).as("rows read from one table by %s:%n%s", planCase.getMethod(), plan)
+                    .isLessThanOrEqualTo(planCase.getMaxRows());
+        }
+        for (List<String> anyOf : planCase.getIndexes()) {
+            assertThat(plans).as("%s uses one of %s:%n%s", planCase.getMethod(), anyOf, plans)
+                    .anyMatch(plan -> anyOf.stream().anyMatch(plan::usesIndexStartingWith));
+        }
+    }
+
+    private List<QueryPlanCase> cases() {
+        return List.of(
+                booking("findBookingByIdWithItemAndBookerEagerly",
+                        () -> bookingRepository.findBookingByIdWithItemAndBookerEagerly(BOOKING_ID))
+                        .usesIndex(PRIMARY_KEY),
+                booking("findAllBookingsWithItemAndBookerSortedByStartDateDesc",
+                        () -> bookingRepository.findAllBookingsWithItemAndBookerSortedByStartDateDesc(USER_ID, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findBookerCurrentBookings",
+                        () -> bookingRepository.findBookerCurrentBookings(USER_ID, now, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findBookerPastBookings",
+                        () -> bookingRepository.findBookerPastBookings(USER_ID, now, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findBookerFutureBookings",
+                        () -> bookingRepository.findBookerFutureBookings(USER_ID, now, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findBookerWaitingBookings",
+                        () -> bookingRepository.findBookerWaitingBookings(USER_ID, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findOwnerCurrentBookings",
+                        () -> bookingRepository.findOwnerCurrentBookings(USER_ID, now, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findOwnerPastBookings",
+                        () -> bookingRepository.findOwnerPastBookings(USER_ID, now, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findOwnerFutureBookings",
+                        () -> bookingRepository.findOwnerFutureBookings(USER_ID, now, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findOwnerWaitingBookings",
+                        () -> bookingRepository.findOwnerWaitingBookings(USER_ID, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findRejectedBookingsSortedByStartDateDesc",
+                        () -> bookingRepository.findRejectedBookingsSortedByStartDateDesc(USER_ID, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findRejectedBookingsByOwnerSortedByStartDateDesc",
+                        () -> bookingRepository.findRejectedBookingsByOwnerSortedByStartDateDesc(USER_ID, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findByItem_Owner_IdOrderByStartDesc",
+                        () -> bookingRepository.findByItem_Owner_IdOrderByStartDesc(USER_ID, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findLastBookingByItemIdExcludingRejected",
+                        () -> bookingRepository.findLastBookingByItemIdExcludingRejected(ITEM_ID,
+                                PageRequest.of(0, 1)))
+                        .usesIndex(ITEM_BOOKINGS),
+                booking("findNextBookingByItemIdExcludingRejected",
+                        () -> bookingRepository.findNextBookingByItemIdExcludingRejected(ITEM_ID,
+                                PageRequest.of(0, 1)))
+                        .usesIndex(ITEM_BOOKINGS),
+                booking("findBookingsByUserId",
+                        () -> bookingRepository.findBookingsByUserId(USER_ID, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findBookerBookingsBefore",
+                        () -> bookingRepository.findBookerBookingsBefore(USER_ID, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findBookerCurrentBookingsBefore",
+                        () -> bookingRepository.findBookerCurrentBookingsBefore(USER_ID, now, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findBookerPastBookingsBefore",
+                        () -> bookingRepository.findBookerPastBookingsBefore(USER_ID, now, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findBookerFutureBookingsBefore",
+                        () -> bookingRepository.findBookerFutureBookingsBefore(USER_ID, now, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findBookerWaitingBookingsBefore",
+                        () -> bookingRepository.findBookerWaitingBookingsBefore(USER_ID, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findBookerRejectedBookingsBefore",
+                        () -> bookingRepository.findBookerRejectedBookingsBefore(USER_ID, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(BOOKER),
+                booking("findOwnerBookingsBefore",
+                        () -> bookingRepository.findOwnerBookingsBefore(USER_ID, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findOwnerCurrentBookingsBefore",
+                        () -> bookingRepository.findOwnerCurrentBookingsBefore(USER_ID, now, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findOwnerPastBookingsBefore",
+                        () -> bookingRepository.findOwnerPastBookingsBefore(USER_ID, now, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findOwnerFutureBookingsBefore",
+                        () -> bookingRepository.findOwnerFutureBookingsBefore(USER_ID, now, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findOwnerWaitingBookingsBefore",
+                        () -> bookingRepository.findOwnerWaitingBookingsBefore(USER_ID, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("findOwnerRejectedBookingsBefore",
+                        () -> bookingRepository.findOwnerRejectedBookingsBefore(USER_ID, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                booking("decideWaitingBooking",
+                        () -> bookingRepository.decideWaitingBooking(BOOKING_ID, ownerOf(ITEM_ID),
+                                BookingStatus.APPROVED))
+                        .usesIndex(PRIMARY_KEY)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_WAITING_FIRST),
+                // Те же 20 чисел служат id бронирований: важно только, что список короткий
+                booking("findOwnershipByIdIn", () -> bookingRepository.findOwnershipByIdIn(ITEM_IDS))
+                        .usesIndex(PRIMARY_KEY),
+                booking("countBookerBookingsByState", () -> bookingRepository.countBookerBookingsByState(USER_ID, now))
+                        .usesIndex(BOOKER),
+                booking("countOwnerBookingsByState", () -> bookingRepository.countOwnerBookingsByState(USER_ID, now))
+                        .usesIndex(OWNER).usesIndex(ITEM_BOOKINGS),
+                booking("findWaitingBookingsAfter",
+                        () -> bookingRepository.findWaitingBookingsAfter(0, PageRequest.of(0, 100)))
+                        .usesIndex(WAITING_BOOKINGS),
+                booking("existsByItem_IdAndBooker_IdAndEndBefore",
+                        () -> bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(ITEM_ID, USER_ID, now))
+                        .usesIndex(ANY_BOOKINGS),
+                booking("findByItem_IdAndBookingStatusInAndEndAfter",
+                        () -> bookingRepository.findByItem_IdAndBookingStatusInAndEndAfter(ITEM_ID, BLOCKING, now))
+                        .usesIndex(ITEM_BOOKINGS),
+                booking("findByItem_IdInAndBookingStatusInAndEndAfter",
+                        () -> bookingRepository.findByItem_IdInAndBookingStatusInAndEndAfter(ITEM_IDS, BLOCKING,
+                                now))
+                        .usesIndex(ITEM_BOOKINGS),
+                booking("findLastAndNextBookingsByItemIds",
+                        () -> bookingRepository.findLastAndNextBookingsByItemIds(ITEM_IDS, now, now))
+                        .usesIndex(ITEM_BOOKINGS).usesIndex(ARCHIVE_ITEM)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_DATE_FIRST),
+
+                item("findById", () -> itemStorage.findById(ITEM_ID))
+                        .usesIndex(PRIMARY_KEY),
+                archived("findBookerBookings", () -> archivedBookingRepository.findBookerBookings(USER_ID, PAGE))
+                        .usesIndex(ARCHIVE_BOOKER),
+                archived("findOwnerBookings", () -> archivedBookingRepository.findOwnerBookings(USER_ID, PAGE))
+                        .usesIndex(OWNER).usesIndex(ARCHIVE_ITEM)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                archived("findBookerBookingsBefore",
+                        () -> archivedBookingRepository.findBookerBookingsBefore(USER_ID, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(ARCHIVE_BOOKER),
+                archived("findOwnerBookingsBefore",
+                        () -> archivedBookingRepository.findOwnerBookingsBefore(USER_ID, FIRST_PAGE_START,
+                                Integer.MAX_VALUE, PAGE))
+                        .usesIndex(OWNER).usesIndex(ARCHIVE_ITEM)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                archived("findBookerBookingsByStatus",
+                        () -> archivedBookingRepository.findBookerBookingsByStatus(USER_ID, BookingStatus.REJECTED,
+                                PAGE))
+                        .usesIndex(ARCHIVE_BOOKER),
+                archived("findOwnerBookingsByStatus",
+                        () -> archivedBookingRepository.findOwnerBookingsByStatus(USER_ID, BookingStatus.REJECTED,
+                                PAGE))
+                        .usesIndex(OWNER).usesIndex(ARCHIVE_ITEM)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                archived("findBookerBookingsByStatusBefore",
+                        () -> archivedBookingRepository.findBookerBookingsByStatusBefore(USER_ID,
+                                BookingStatus.REJECTED, FIRST_PAGE_START, Integer.MAX_VALUE, PAGE))
+                        .usesIndex(ARCHIVE_BOOKER),
+                archived("findOwnerBookingsByStatusBefore",
+                        () -> archivedBookingRepository.findOwnerBookingsByStatusBefore(USER_ID,
+                                BookingStatus.REJECTED, FIRST_PAGE_START, Integer.MAX_VALUE, PAGE))
+                        .usesIndex(OWNER).usesIndex(ARCHIVE_ITEM)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_OWNER_JOIN),
+                archived("existsByItem_IdAndBooker_Id",
+                        () -> archivedBookingRepository.existsByItem_IdAndBooker_Id(ITEM_ID, USER_ID))
+                        .usesIndex(ARCHIVE_ITEM),
+                archived("countBookerBookings", () -> archivedBookingRepository.countBookerBookings(USER_ID))
+                        .usesIndex(ARCHIVE_BOOKER),
+                archived("countOwnerBookings", () -> archivedBookingRepository.countOwnerBookings(USER_ID))
+                        .usesIndex(OWNER).usesIndex(ARCHIVE_ITEM),
+
+                item("findByOwnerIdAndIdGreaterThanOrderByIdAsc",
+                        () -> itemStorage.findByOwnerIdAndIdGreaterThanOrderByIdAsc(USER_ID, 0, PAGE))
+                        .usesIndex(OWNER),
+                item("search", () -> itemStorage.search("item 4", PAGE))
+                        .allowsScan("substring match, served by the trigram indexes of schema-postgresql.sql"),
+                item("findByIdInAndAvailableTrue", () -> itemStorage.findByIdInAndAvailableTrue(ITEM_IDS))
+                        .usesIndex(PRIMARY_KEY),
+                item("countByIdIn", () -> itemStorage.countByIdIn(ITEM_IDS))
+                        .usesIndex(PRIMARY_KEY),
+                item("suggestNames", () -> itemStorage.suggestNames("ite", PAGE))
+                        .allowsScan("case-insensitive prefix match cannot use a b-tree index"),
+                item("findByIdGreaterThanOrderByIdAsc",
+                        () -> itemStorage.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 100)))
+                        .usesIndex(PRIMARY_KEY)
+                        .maxRows(ITEMS),
+                item("findItemById", () -> itemStorage.findItemById(ITEM_ID))
+                        .usesIndex(PRIMARY_KEY),
+                item("findItemByRequestId", () -> itemStorage.findItemByRequestId(REQUEST_ID))
+                        .usesIndex(ITEM_REQUEST)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_PARENT_JOIN),
+                item("findItemsByRequestIds", () -> itemStorage.findItemsByRequestIds(ITEM_IDS, 10))
+                        .usesIndex(ITEM_REQUEST).usesIndex(PRIMARY_KEY),
+                item("findSuggestedItems", () -> itemStorage.findSuggestedItems(REQUEST_ID, PAGE))
+                        .usesIndex(PRIMARY_KEY),
+                // Начало и конец не сужают один диапазон b-tree: читаются все ещё не закончившиеся одобренные
+                item("findItemIdsInUseAfter",
+                        () -> itemStorage.findItemIdsInUseAfter(now, 0, PageRequest.of(0, 100)))
+                        .usesIndex(APPROVED_BY_END)
+                        .maxRows(BOOKINGS),
+                item("findHeldItemsAfter", () -> itemStorage.findHeldItemsAfter(now, 0, PageRequest.of(0, 100)))
+                        .usesIndex(BOOKING_HOLD).usesIndex(ITEM_BOOKINGS),
+
+                QueryPlanCase.of("CommentRepository.findLatestByItemIds",
+                                () -> commentRepository.findLatestByItemIds(ITEM_IDS, 10))
+                        .usesIndex(COMMENT_ITEM).usesIndex(PRIMARY_KEY),
+                QueryPlanCase.of("CommentRepository.findByItem_IdAndIdLessThanOrderByIdDesc",
+                                () -> commentRepository.findByItem_IdAndIdLessThanOrderByIdDesc(ITEM_ID,
+                                        Integer.MAX_VALUE, PAGE))
+                        .usesIndex(COMMENT_ITEM)
+                        .allowsScanOn(QueryPlan.Dialect.H2, H2_PARENT_JOIN),
+
+                QueryPlanCase.of("ItemRequestStorage.findRequestorRequestsAfter",
+                                () -> itemRequestStorage.findRequestorRequestsAfter(USER_ID,
+                                        LocalDateTime.of(1, 1, 1, 0, 0), 0, PAGE))
+                        .usesIndex(REQUESTOR),
+                QueryPlanCase.of("ItemRequestStorage.findByIdGreaterThanAndCreatedAfterOrderByIdAsc",
+                                () -> itemRequestStorage.findByIdGreaterThanAndCreatedAfterOrderByIdAsc(0,
+                                        now.minusDays(30), PageRequest.of(0, 1000)))
+                        .usesIndex(PRIMARY_KEY)
+                        .maxRows(REQUESTS),
+                QueryPlanCase.of("ItemRequestStorage.findAllItemRequestsSortedByCreatedDesc",
+                                () -> itemRequestStorage.findAllItemRequestsSortedByCreatedDesc(PAGE, USER_ID))
+                        .allowsScan("excludes a single requestor, so nearly every request matches"),
+                QueryPlanCase.of("ItemRequestStorage.findOtherRequestsBefore",
+                                () -> itemRequestStorage.findOtherRequestsBefore(USER_ID,
+                                        LocalDateTime.of(9999, 12, 31, 23, 59, 59), Integer.MAX_VALUE, PAGE))
+                        .usesIndex(REQUESTS_CREATED)
+        );
+    }
+
+    private static QueryPlanCase booking(String method, Runnable invocation) {
+        return QueryPlanCase.of("BookingRepository." + method, invocation);
+    }
+
+    private static QueryPlanCase archived(String method, Runnable invocation) {
+        return QueryPlanCase.of("ArchivedBookingRepository." + method, invocation);
+    }
+
+    private static QueryPlanCase item(String method, Runnable invocation) {
+        return QueryPlanCase.of("ItemStorage." + method, invocation);
+    }
+
+    private static int ownerOf(int itemId) {
+        return (itemId - 1) % USERS + 1;
+    }
+
+    private static List<Object[]> rows(int count, IntFunction<Object[]> row) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            rows.add(row.apply(i));
+        }
+        return rows;
+    }
+
+    @TestConfiguration
+    static class QueryPlanConfiguration {
+        @Bean
+        static RecordingDataSourcePostProcessor recordingDataSourcePostProcessor() {
+            return new RecordingDataSourcePostProcessor();
+        }
+    }
+
+    static class RecordingDataSourcePostProcessor implements BeanPostProcessor {
+        private StatementRecorder recorder;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && recorder == null) {
+                recorder = new StatementRecorder((DataSource) bean);
+                return recorder.getWrapped();
+            }
+            return bean;
+        }
+
+        StatementRecorder getRecorder() {
+            return recorder;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.queryplan;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Query plans on the bundled H2 database, kept apart from the database of the other integration tests.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit-query-plan",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "shareit.search.index.enabled=false",
+        "shareit.item.availability.enabled=false",
+        "shareit.request.matching.enabled=false"
+})
+@Import(AbstractQueryPlanTest.QueryPlanConfiguration.class)
+class H2QueryPlanTest extends AbstractQueryPlanTest {
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.queryplan;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Query plans on a local Postgres, for example
+ * {@code mvn test -Dtest=PostgresQueryPlanTest -Dshareit.query-plan.postgres-url=jdbc:postgresql://localhost:5432/scratch}.
+ * The database is wiped and reseeded, so point it at a scratch database only.
+ * User and password default to {@code shareit} and are set with
+ * {@code -Dshareit.query-plan.postgres-user} and {@code -Dshareit.query-plan.postgres-password}.
+ */
+@EnabledIfSystemProperty(named = "shareit.query-plan.postgres-url", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "shareit.search.index.enabled=false",
+        "shareit.item.availability.enabled=false",
+        "shareit.request.matching.enabled=false"
+})
+@Import(AbstractQueryPlanTest.QueryPlanConfiguration.class)
+class PostgresQueryPlanTest extends AbstractQueryPlanTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.url", () -> System.getProperty("shareit.query-plan.postgres-url"));
+        registry.add("spring.datasource.username",
+                () -> System.getProperty("shareit.query-plan.postgres-user", "shareit"));
+        registry.add("spring.datasource.password",
+                () -> System.getProperty("shareit.query-plan.postgres-password", "shareit"));
+        registry.add("spring.sql.init.schema-locations",
+                () -> "classpath:schema.sql,classpath:schema-postgresql-bookings.sql,classpath:schema-postgresql.sql");
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.queryplan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Indexes, full table scans and the largest per-table row count of one query plan.
+ * On H2 the rows are the ones actually read by {@code EXPLAIN ANALYZE},
+ * on Postgres they are the planner's estimate from {@code EXPLAIN (FORMAT JSON)}.
+ */
+final class QueryPlan {
+    private static final Pattern H2_ACCESS = Pattern.compile("/\\* \"?PUBLIC\"?\\.\"?(\\w+)\"?(\\.tableScan)?");
+    private static final Pattern H2_SCAN_COUNT = Pattern.compile("/\\* scanCount: (\\d+) \\*/");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String text;
+    private final Set<String> indexes = new HashSet<>();
+    private final Set<String> scannedTables = new HashSet<>();
+    private long maxRows;
+
+    private QueryPlan(String text) {
+        this.text = text;
+    }
+
+    static QueryPlan explain(Dialect dialect, Connection connection, RecordedStatement query) throws SQLException {
+        // ANALYZE выполняет запрос, поэтому изменяющие запросы на H2 только объясняются, без счётчиков строк
+        boolean read = query.getSql().trim().toLowerCase(Locale.ROOT).startsWith("select");
+        String prefix = dialect == Dialect.POSTGRES ? "EXPLAIN (FORMAT JSON) " : read ? "EXPLAIN ANALYZE " : "EXPLAIN ";
+        try (PreparedStatement statement = connection.prepareStatement(prefix + query.getSql())) {
+            query.bindTo(statement);
+            StringBuilder output = new StringBuilder();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    output.append(rows.getString(1)).append('\n');
+                }
+            }
+            return dialect == Dialect.H2 ? parseH2(output.toString()) : parsePostgres(output.toString());
+        }
+    }
+
+    private static QueryPlan parseH2(String text) {
+        QueryPlan plan = new QueryPlan(text);
+        Matcher access = H2_ACCESS.matcher(text);
+        while (access.find()) {
+            String name = access.group(1).toUpperCase(Locale.ROOT);
+            if (access.group(2) != null) {
+                plan.scannedTables.add(name);
+            } else {
+                plan.indexes.add(name);
+            }
+        }
+        Matcher scanCount = H2_SCAN_COUNT.matcher(text);
+        while (scanCount.find()) {
+            plan.maxRows = Math.max(plan.maxRows, Long.parseLong(scanCount.group(1)));
+        }
+        return plan;
+    }
+
+    private static QueryPlan parsePostgres(String text) {
+        QueryPlan plan = new QueryPlan(text);
+        try {
+            plan.visitPostgres(JSON.readTree(text).get(0).get("Plan"));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable plan: " + text, e);
+        }
+        return plan;
+    }
+
+    private void visitPostgres(JsonNode node) {
+        if (node.has("Index Name")) {
+            indexes.add(node.get("Index Name").asText().toUpperCase(Locale.ROOT));
+        }
+        if (node.has("Relation Name")) {
+            if ("Seq Scan".equals(node.get("Node Type").asText())) {
+                scannedTables.add(node.get("Relation Name").asText().toUpperCase(Locale.ROOT));
+            }
+            maxRows = Math.max(maxRows, node.get("Plan Rows").asLong());
+        }
+        if (node.has("Plans")) {
+            for (JsonNode child : node.get("Plans")) {
+                visitPostgres(child);
+            }
+        }
+    }
+
+    boolean usesIndexStartingWith(String prefix) {
+        String expected = prefix.toUpperCase(Locale.ROOT);
+        return indexes.stream().anyMatch(index -> index.startsWith(expected));
+    }
+
+    Set<String> getScannedTables() {
+        return scannedTables;
+    }
+
+    long getMaxRows() {
+        return maxRows;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    enum Dialect {
+        H2, POSTGRES
+    }
+}
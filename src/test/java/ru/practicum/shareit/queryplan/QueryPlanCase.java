@@ -0,0 +1,80 @@
+package ru.practicum.shareit.queryplan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expected plan of one repository method: the indexes it has to use, the most rows it may read
+ * from one table and, for queries that cannot be served by an index, why a full scan is accepted.
+ * A query that one database is known to plan differently from the other is checked on the other one only.
+ */
+final class QueryPlanCase {
+    static final long DEFAULT_MAX_ROWS = 1_000;
+
+    private final String method;
+    private final Runnable invocation;
+    private final List<List<String>> indexes = new ArrayList<>();
+    private long maxRows = DEFAULT_MAX_ROWS;
+    private String scanReason;
+    private final Map<QueryPlan.Dialect, String> dialectScanReasons = new EnumMap<>(QueryPlan.Dialect.class);
+
+    private QueryPlanCase(String method, Runnable invocation) {
+        this.method = method;
+        this.invocation = invocation;
+    }
+
+    static QueryPlanCase of(String method, Runnable invocation) {
+        return new QueryPlanCase(method, invocation);
+    }
+
+    /**
+     * Requires an index whose name starts with one of the prefixes. Several prefixes cover indexes
+     * that H2 creates for foreign keys on its own next to the ones declared in schema.sql.
+     */
+    QueryPlanCase usesIndex(String... anyOf) {
+        indexes.add(Arrays.asList(anyOf));
+        return this;
+    }
+
+    QueryPlanCase maxRows(long maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    QueryPlanCase allowsScan(String reason) {
+        this.scanReason = reason;
+        return this;
+    }
+
+    /**
+     * Accepts any plan on one database, whose planner does not pick the plan the expectations describe;
+     * the expectations still hold on the other database.
+     */
+    QueryPlanCase allowsScanOn(QueryPlan.Dialect dialect, String reason) {
+        dialectScanReasons.put(dialect, reason);
+        return this;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    Runnable getInvocation() {
+        return invocation;
+    }
+
+    List<List<String>> getIndexes() {
+        return indexes;
+    }
+
+    long getMaxRows() {
+        return maxRows;
+    }
+
+    String getScanReason(QueryPlan.Dialect dialect) {
+        return scanReason != null ? scanReason : dialectScanReasons.get(dialect);
+    }
+}
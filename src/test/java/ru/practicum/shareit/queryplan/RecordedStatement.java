@@ -0,0 +1,69 @@
+package ru.practicum.shareit.queryplan;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SQL of one executed query together with the setter calls that bound its parameters,
+ * so the query can be prepared again with exactly the same values.
+ */
+final class RecordedStatement {
+    private final String sql;
+    private final Map<Integer, Binding> parameters = new TreeMap<>();
+
+    RecordedStatement(String sql) {
+        this.sql = sql;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    void bind(Method setter, Object[] args) {
+        parameters.put((Integer) args[0], new Binding(setter, args.clone()));
+    }
+
+    void clear() {
+        parameters.clear();
+    }
+
+    RecordedStatement copy() {
+        RecordedStatement copy = new RecordedStatement(sql);
+        copy.parameters.putAll(parameters);
+        return copy;
+    }
+
+    void bindTo(PreparedStatement statement) throws SQLException {
+        for (Binding binding : parameters.values()) {
+            try {
+                binding.setter.invoke(statement, binding.args);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    private static final class Binding {
+        private final Method setter;
+        private final Object[] args;
+
+        private Binding(Method setter, Object[] args) {
+            this.setter = setter;
+            this.args = args;
+        }
+    }
+}
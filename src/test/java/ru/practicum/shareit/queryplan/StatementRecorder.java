@@ -0,0 +1,89 @@
+package ru.practicum.shareit.queryplan;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Wraps the application data source and keeps every query executed inside {@link #record(Runnable)}.
+ * Only prepared statements are tracked, which is all Hibernate issues for queries and bulk updates.
+ */
+final class StatementRecorder {
+    private final DataSource target;
+    private final DataSource wrapped;
+    private final List<RecordedStatement> recorded = new CopyOnWriteArrayList<>();
+    private volatile boolean recording;
+
+    StatementRecorder(DataSource target) {
+        this.target = target;
+        this.wrapped = proxy(DataSource.class, target, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection ? connection((Connection) result) : result;
+        });
+    }
+
+    DataSource getTarget() {
+        return target;
+    }
+
+    DataSource getWrapped() {
+        return wrapped;
+    }
+
+    List<RecordedStatement> record(Runnable action) {
+        recorded.clear();
+        recording = true;
+        try {
+            action.run();
+        } finally {
+            recording = false;
+        }
+        return new ArrayList<>(recorded);
+    }
+
+    private Connection connection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement) {
+                return statement((PreparedStatement) result, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement statement(PreparedStatement statement, String sql) {
+        RecordedStatement parameters = new RecordedStatement(sql);
+        return proxy(PreparedStatement.class, statement, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.bind(method, args);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (recording && (name.equals("executeQuery") || name.equals("executeUpdate"))
+                    && (args == null || args.length == 0)) {
+                recorded.add(parameters.copy());
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), new Class<?>[]{type},
+                handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
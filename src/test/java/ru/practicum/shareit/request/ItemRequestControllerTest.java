@@ -8,6 +8,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.RequestDtoResponse;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -17,9 +19,13 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -69,7 +75,8 @@ class ItemRequestControllerTest {
 
     @Test
     void getRequestsForRequesterShouldReturnListRequestDtoResponse() throws Exception {
-        when(itemRequestService.getRequestsForRequester(anyInt())).thenReturn(List.of(requestDtoResponse));
+        when(itemRequestService.getRequestsForRequester(anyInt(), isNull(), eq(20)))
+                .thenReturn(new CursorPage<>(List.of(requestDtoResponse), null));
 
         mockMvc.perform(get("/requests")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -107,4 +114,69 @@ class ItemRequestControllerTest {
                 .andExpect(jsonPath("$[0].description").value(requestDtoResponse.getDescription()))
                 .andExpect(jsonPath("$[0].created").exists());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getRequestsForRequesterShouldReturnNextCursorHeader() throws Exception {
+        when(itemRequestService.getRequestsForRequester(1, "cursor", 1))
+                .thenReturn(new CursorPage<>(List.of(requestDtoResponse), "next"));
+
+        mockMvc.perform(get("/requests")
+                        .param("cursor", "cursor")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id").value(requestDtoResponse.getId()));
+    }
+
+    @Test
+    void getRequestsForRequesterShouldRejectZeroSize() throws Exception {
+        mockMvc.perform(get("/requests")
+                        .param("size", "0")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getRequestsWithCursorShouldReturnNextCursorHeader() throws Exception {
+        when(itemRequestService.getRequestPage("", 1, 1))
+                .thenReturn(new CursorPage<>(List.of(requestDtoResponse), "next"));
+
+        mockMvc.perform(get("/requests/all")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id").value(requestDtoResponse.getId()));
+    }
+
+    @Test
+    void getRequestsWithCursorShouldRejectSizeOutOfBounds() throws Exception {
+        for (String size : List.of("0", "501")) {
+            mockMvc.perform(get("/requests/all")
+                            .param("cursor", "")
+                            .param("size", size)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(itemRequestService);
+    }
+
+    @Test
+    void getSuggestionsShouldReturnSuggestedItems() throws Exception {
+        ItemDto suggested = ItemDto.builder()
+                .id(5)
+                .name("Дрель")
+                .description("Ударная дрель")
+                .available(true)
+                .build();
+        when(itemRequestService.getSuggestions(1, 2, 20)).thenReturn(List.of(suggested));
+
+        mockMvc.perform(get("/requests/{requestId}/suggestions", 1)
+                        .header("X-Sharer-User-Id", 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(5))
+                .andExpect(jsonPath("$[0].name").value("Дрель"));
+    }
+}
@@ -0,0 +1,214 @@
+package ru.practicum.shareit.request.matching;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestStorage;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RequestMatcherTest {
+    private static final int REQUESTOR_ID = 1;
+    private static final int OWNER_ID = 2;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private ItemRequestStorage itemRequestStorage;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RequestMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        matcher = matcher(true, 10);
+    }
+
+    @Test
+    void drainShouldRecordRequestsSharingWordsBestFirst() {
+        matcher.register(request(1, "Нужна ударная дрель", now.minusDays(1)));
+        matcher.register(request(2, "Ищу дрель и ударная отвертка", now.minusDays(1)));
+        matcher.register(request(3, "Нужен велосипед", now.minusDays(1)));
+        matcher.submit(item(10, OWNER_ID, true, "Дрель", "Ударная, почти новая"));
+
+        assertThat(matcher.drain(now)).isEqualTo(2);
+
+        verify(itemRequestStorage).replaceSuggestions(Set.of(10),
+                List.of(new RequestMatch(1, 10, 2), new RequestMatch(2, 10, 2)), now);
+        assertThat(meterRegistry.counter("shareit.request.matching.items").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("shareit.request.matching.suggestions").count()).isEqualTo(2);
+    }
+
+    @Test
+    void drainShouldNotSuggestItemsToTheirOwnerOrWhenUnavailable() {
+        matcher.register(request(1, "Нужна дрель", now.minusDays(1)));
+        matcher.submit(item(10, REQUESTOR_ID, true, "Дрель", "Своя дрель"));
+        matcher.submit(item(11, OWNER_ID, false, "Дрель", "Сейчас занята"));
+
+        assertThat(matcher.drain(now)).isZero();
+
+        verify(itemRequestStorage).replaceSuggestions(Set.of(10, 11), List.of(), now);
+    }
+
+    @Test
+    void drainShouldMatchLatestSnapshotOfItemOnce() {
+        matcher.register(request(1, "Нужна дрель", now.minusDays(1)));
+        matcher.submit(item(10, OWNER_ID, true, "Пила", "Ручная пила"));
+        matcher.submit(item(10, OWNER_ID, true, "Дрель", "Переименована"));
+
+        assertThat(matcher.drain(now)).isEqualTo(1);
+
+        verify(itemRequestStorage).replaceSuggestions(Set.of(10), List.of(new RequestMatch(1, 10, 1)), now);
+    }
+
+    @Test
+    void drainShouldCloseRequestsOlderThanOpenDays() {
+        matcher.register(request(1, "Нужна дрель", now.minusDays(31)));
+        matcher.register(request(2, "Нужна дрель", now.minusDays(29)));
+        matcher.submit(item(10, OWNER_ID, true, "Дрель", "Аккумуляторная"));
+
+        matcher.drain(now);
+
+        verify(itemRequestStorage).replaceSuggestions(Set.of(10), List.of(new RequestMatch(2, 10, 1)), now);
+        assertThat(matcher.openRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void drainShouldDoNothingWhenQueueIsEmpty() {
+        assertThat(matcher.drain(now)).isZero();
+
+        verifyNoInteractions(itemRequestStorage, transactionManager);
+    }
+
+    @Test
+    void drainShouldKeepGoingWhenBatchFailsAndRetryItNextTime() {
+        matcher = matcher(true, 1);
+        matcher.register(request(1, "Нужна дрель", now.minusDays(1)));
+        doThrow(new IllegalStateException("db is down")).doNothing()
+                .when(itemRequestStorage).replaceSuggestions(any(), any(), eq(now));
+        matcher.submit(item(10, OWNER_ID, true, "Дрель", "Первая"));
+        matcher.submit(item(11, OWNER_ID, true, "Дрель", "Вторая"));
+
+        assertThat(matcher.drain(now)).isEqualTo(1);
+
+        verify(itemRequestStorage).replaceSuggestions(Set.of(11), List.of(new RequestMatch(1, 11, 1)), now);
+        assertThat(meterRegistry.counter("shareit.request.matching.items").count()).isEqualTo(1);
+
+        assertThat(matcher.drain(now)).isEqualTo(1);
+
+        verify(itemRequestStorage, times(2)).replaceSuggestions(Set.of(10), List.of(new RequestMatch(1, 10, 1)), now);
+        assertThat(meterRegistry.counter("shareit.request.matching.items").count()).isEqualTo(2);
+    }
+
+    @Test
+    void drainShouldDropItemAfterMaxAttempts() {
+        matcher.register(request(1, "Нужна дрель", now.minusDays(1)));
+        doThrow(new IllegalStateException("db is down"))
+                .when(itemRequestStorage).replaceSuggestions(any(), any(), eq(now));
+        matcher.submit(item(10, OWNER_ID, true, "Дрель", "Аккумуляторная"));
+
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            assertThat(matcher.drain(now)).isZero();
+        }
+
+        verify(itemRequestStorage, times(MAX_ATTEMPTS)).replaceSuggestions(any(), any(), eq(now));
+        assertThat(matcher.drain(now)).isZero();
+        assertThat(meterRegistry.counter("shareit.request.matching.failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void drainShouldNotLetRetriedSnapshotOverrideNewerOne() {
+        matcher.register(request(1, "Нужна дрель", now.minusDays(1)));
+        doThrow(new IllegalStateException("db is down")).doNothing()
+                .when(itemRequestStorage).replaceSuggestions(any(), any(), eq(now));
+        matcher.submit(item(10, OWNER_ID, true, "Пила", "Ручная пила"));
+        matcher.drain(now);
+        matcher.submit(item(10, OWNER_ID, true, "Дрель", "Переименована"));
+
+        assertThat(matcher.drain(now)).isEqualTo(1);
+
+        verify(itemRequestStorage).replaceSuggestions(Set.of(10), List.of(new RequestMatch(1, 10, 1)), now);
+    }
+
+    @Test
+    void submitShouldDropItemsWhenQueueIsFull() {
+        RequestMatcher small = new RequestMatcher(itemRequestStorage, transactionManager, meterRegistry, true, 1, 10,
+                30, 1, MAX_ATTEMPTS);
+        small.submit(item(10, OWNER_ID, true, "Дрель", "Первая"));
+        small.submit(item(11, OWNER_ID, true, "Дрель", "Вторая"));
+
+        assertThat(meterRegistry.counter("shareit.request.matching.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void loadShouldIndexOpenRequests() {
+        when(itemRequestStorage.findByIdGreaterThanAndCreatedAfterOrderByIdAsc(eq(0), any(), any()))
+                .thenReturn(List.of(request(1, "Нужна дрель", now.minusDays(1))));
+
+        matcher.load();
+
+        assertThat(matcher.openRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDoNothingWhenDisabled() {
+        RequestMatcher disabled = matcher(false, 10);
+        disabled.load();
+        disabled.register(request(1, "Нужна дрель", now.minusDays(1)));
+        disabled.submit(item(10, OWNER_ID, true, "Дрель", "Аккумуляторная"));
+
+        assertThat(disabled.drain(now)).isZero();
+
+        verifyNoInteractions(itemRequestStorage, transactionManager);
+    }
+
+    private RequestMatcher matcher(boolean enabled, int batchSize) {
+        return new RequestMatcher(itemRequestStorage, transactionManager, meterRegistry, enabled, 100, batchSize,
+                30, 1, MAX_ATTEMPTS);
+    }
+
+    private static ItemRequest request(int id, String description, LocalDateTime created) {
+        User requestor = new User();
+        requestor.setId(REQUESTOR_ID);
+        return ItemRequest.builder()
+                .id(id)
+                .description(description)
+                .requestor(requestor)
+                .created(created)
+                .build();
+    }
+
+    private static Item item(int id, int ownerId, boolean available, String name, String description) {
+        User owner = new User();
+        owner.setId(ownerId);
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .available(available)
+                .owner(owner)
+                .build();
+    }
+}
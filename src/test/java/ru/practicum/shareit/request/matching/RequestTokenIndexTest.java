@@ -0,0 +1,43 @@
+package ru.practicum.shareit.request.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestTokenIndexTest {
+    private final RequestTokenIndex index = new RequestTokenIndex();
+
+    @Test
+    void sharedTokensShouldCountDistinctWordsPerRequest() {
+        index.put(1, List.of("drill", "hammer", "drill"));
+        index.put(2, List.of("hammer", "saw"));
+
+        Map<Integer, Integer> shared = index.sharedTokens(List.of("drill", "hammer", "hammer", "ladder"));
+
+        assertThat(shared).containsOnly(Map.entry(1, 2), Map.entry(2, 1));
+    }
+
+    @Test
+    void putShouldReplacePreviousWordsOfRequest() {
+        index.put(1, List.of("drill"));
+        index.put(1, List.of("saw"));
+
+        assertThat(index.sharedTokens(List.of("drill"))).isEmpty();
+        assertThat(index.sharedTokens(List.of("saw"))).containsOnly(Map.entry(1, 1));
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removeShouldForgetRequest() {
+        index.put(1, List.of("drill"));
+        index.put(2, List.of("drill"));
+
+        index.remove(1);
+
+        assertThat(index.sharedTokens(List.of("drill"))).containsOnly(Map.entry(2, 1));
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
@@ -56,7 +56,8 @@ public class ItemRequestServiceIntegrationTest {
         requestDto.setCreated(LocalDateTime.now());
         itemRequestService.createItemRequest(requestDto, user.getId());
 
-        List<RequestDtoResponse> requests = itemRequestService.getRequestsForRequester(user.getId());
+        List<RequestDtoResponse> requests = itemRequestService.getRequestsForRequester(user.getId(), null, 20)
+                .getContent();
 
         assertFalse(requests.isEmpty());
         assertEquals(1, requests.size());
@@ -10,9 +10,11 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.InvalidCursorException;
 import ru.practicum.shareit.exception.RequestNotExistsException;
 import ru.practicum.shareit.exception.UserNotExistsException;
 import ru.practicum.shareit.item.dto.CommentOutputDto;
@@ -21,9 +23,12 @@ import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.RequestDtoResponse;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.matching.RequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
 import ru.practicum.shareit.user.model.User;
@@ -55,6 +60,9 @@ class ItemRequestServiceTest {
     @Mock
     private ItemRequestStorage itemRequestStorage;
 
+    @Mock
+    private RequestMatcher requestMatcher;
+
     @InjectMocks
     private ItemRequestService itemRequestService;
 
@@ -170,6 +178,7 @@ class ItemRequestServiceTest {
         assertNotNull(itemRequest);
         assertEquals(itemRequestDto.getId(), itemRequest.getId());
         verify(itemRequestStorage, times(1)).save(request);
+        verify(requestMatcher, times(1)).register(request);
     }
 
     @Test
@@ -183,22 +192,57 @@ class ItemRequestServiceTest {
     void getRequestsForRequesterWhenUserExistThenThrowException() {
         when(userStorage.existsById(anyInt())).thenReturn(false);
 
-        assertThrows(UserNotExistsException.class, () -> itemRequestService.getRequestsForRequester(999));
+        assertThrows(UserNotExistsException.class, () -> itemRequestService.getRequestsForRequester(999, null, 20));
     }
 
     @Test
     void getRequestsForRequesterWhenUserExistsThenReturnListRequestDtoResponse() {
         when(userStorage.existsById(anyInt())).thenReturn(true);
-        when(itemStorage.findByRequest_Requestor_Id(bookerId)).thenReturn(List.of(item));
-        when(itemRequestStorage.findByRequestor_Id(bookerId)).thenReturn(List.of(request));
+        when(itemRequestStorage.findRequestorRequestsAfter(eq(bookerId), any(LocalDateTime.class), eq(0),
+                eq(PageRequest.of(0, 20)))).thenReturn(new SliceImpl<>(List.of(request)));
+        when(itemStorage.findItemsByRequestIds(List.of(requestId), ItemRequestService.ITEMS_PER_REQUEST))
+                .thenReturn(List.of(item));
         when(itemMapper.toItemDto(item)).thenReturn(itemDtoResponse);
         when(itemRequestMapper.toRequestDtoResponse(request)).thenReturn(requestDtoResponse);
 
-        List<RequestDtoResponse> requestsForOwner = itemRequestService.getRequestsForRequester(bookerId);
+        CursorPage<RequestDtoResponse> requestsForOwner = itemRequestService.getRequestsForRequester(bookerId, null,
+                20);
 
         assertNotNull(requestsForOwner);
-        assertEquals(requestsForOwner.get(0).getId(), requestDtoResponse.getId());
-        verify(itemRequestStorage, times(1)).findByRequestor_Id(bookerId);
+        assertEquals(requestsForOwner.getContent().get(0).getId(), requestDtoResponse.getId());
+        assertNull(requestsForOwner.getNextCursor());
+    }
+
+    @Test
+    void getRequestsForRequesterWhenMoreRequestsThenContinueAfterCursor() {
+        when(userStorage.existsById(anyInt())).thenReturn(true);
+        when(itemRequestStorage.findRequestorRequestsAfter(eq(bookerId), any(LocalDateTime.class), eq(0),
+                eq(PageRequest.of(0, 1)))).thenReturn(new SliceImpl<>(List.of(request), PageRequest.of(0, 1), true));
+        when(itemStorage.findItemsByRequestIds(List.of(requestId), ItemRequestService.ITEMS_PER_REQUEST))
+                .thenReturn(List.of());
+        when(itemRequestMapper.toRequestDtoResponse(request)).thenReturn(requestDtoResponse);
+
+        String nextCursor = itemRequestService.getRequestsForRequester(bookerId, null, 1).getNextCursor();
+
+        assertEquals(Cursors.encode(request.getCreated(), request.getId()), nextCursor);
+
+        when(itemRequestStorage.findRequestorRequestsAfter(bookerId, request.getCreated(), request.getId(),
+                PageRequest.of(0, 1))).thenReturn(new SliceImpl<>(List.of()));
+
+        CursorPage<RequestDtoResponse> lastPage = itemRequestService.getRequestsForRequester(bookerId, nextCursor, 1);
+
+        assertTrue(lastPage.getContent().isEmpty());
+        assertNull(lastPage.getNextCursor());
+        // Ответы читаются только для непустой первой страницы
+        verify(itemStorage, times(1)).findItemsByRequestIds(anyList(), anyInt());
+    }
+
+    @Test
+    void getRequestsForRequesterWhenCursorMalformedThenThrowException() {
+        when(userStorage.existsById(anyInt())).thenReturn(true);
+
+        assertThrows(InvalidCursorException.class,
+                () -> itemRequestService.getRequestsForRequester(bookerId, Cursors.encode("yesterday", 1), 20));
     }
 
     @Test
@@ -264,4 +308,63 @@ class ItemRequestServiceTest {
         verify(itemRequestStorage).findAllItemRequestsSortedByCreatedDesc(pageable, bookerId);
         verify(itemRequestMapper, never()).toRequestDtoResponse(any(ItemRequest.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getRequestsWhenFromIsOffsetThenRequestPageContainingIt() {
+        Pageable pageable = PageRequest.of(2, 10);
+        when(itemRequestStorage.findAllItemRequestsSortedByCreatedDesc(pageable, bookerId))
+                .thenReturn(new PageImpl<>(Collections.emptyList()));
+
+        itemRequestService.getRequests(25, 10, bookerId);
+
+        verify(itemRequestStorage).findAllItemRequestsSortedByCreatedDesc(pageable, bookerId);
+    }
+
+    @Test
+    void getRequestPageWhenMoreRequestsThenReturnCursorOfLastRequest() {
+        when(itemRequestStorage.findOtherRequestsBefore(eq(ownerId), any(LocalDateTime.class), eq(Integer.MAX_VALUE),
+                eq(PageRequest.of(0, 1)))).thenReturn(new SliceImpl<>(List.of(request), PageRequest.of(0, 1), true));
+        when(itemStorage.findItemsByRequestIds(List.of(requestId), ItemRequestService.ITEMS_PER_REQUEST))
+                .thenReturn(List.of(item));
+        when(itemMapper.toItemDto(item)).thenReturn(itemDtoResponse);
+        when(itemRequestMapper.toRequestDtoResponse(request)).thenReturn(requestDtoResponse);
+
+        CursorPage<RequestDtoResponse> page = itemRequestService.getRequestPage("", 1, ownerId);
+
+        assertEquals(List.of(requestDtoResponse), page.getContent());
+        assertEquals(Cursors.encode(request.getCreated(), request.getId()), page.getNextCursor());
+    }
+
+    @Test
+    void getRequestPageWhenCursorGivenThenContinueBeforeIt() {
+        String cursor = Cursors.encode(request.getCreated(), request.getId());
+        when(itemRequestStorage.findOtherRequestsBefore(ownerId, request.getCreated(), request.getId(),
+                PageRequest.of(0, 10))).thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        CursorPage<RequestDtoResponse> page = itemRequestService.getRequestPage(cursor, 10, ownerId);
+
+        assertTrue(page.getContent().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getSuggestionsWhenRequestExistsThenReturnSuggestedItems() {
+        when(userStorage.existsById(ownerId)).thenReturn(true);
+        when(itemRequestStorage.existsById(requestId)).thenReturn(true);
+        when(itemStorage.findSuggestedItems(requestId, PageRequest.of(0, 5))).thenReturn(List.of(item));
+        when(itemMapper.toItemDto(item)).thenReturn(itemDtoResponse);
+
+        List<ItemDto> suggestions = itemRequestService.getSuggestions(requestId, ownerId, 5);
+
+        assertEquals(List.of(itemDtoResponse), suggestions);
+    }
+
+    @Test
+    void getSuggestionsWhenRequestNotExistThenThrowException() {
+        when(userStorage.existsById(ownerId)).thenReturn(true);
+        when(itemRequestStorage.existsById(999)).thenReturn(false);
+
+        assertThrows(RequestNotExistsException.class, () -> itemRequestService.getSuggestions(999, ownerId, 5));
+        verify(itemStorage, never()).findSuggestedItems(anyInt(), any());
+    }
+}
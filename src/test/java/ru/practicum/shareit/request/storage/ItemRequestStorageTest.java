@@ -9,10 +9,14 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.matching.RequestMatch;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -27,6 +31,9 @@ public class ItemRequestStorageTest {
     @Autowired
     private ItemRequestStorage itemRequestStorage;
 
+    @Autowired
+    private ItemStorage itemStorage;
+
     private User user, anotherUser;
     private ItemRequest request, someRequest;
 
@@ -45,23 +52,44 @@ public class ItemRequestStorageTest {
         request = new ItemRequest();
         request.setDescription("Request 1");
         request.setRequestor(user);
-        request.setCreated(LocalDateTime.now().minusDays(1));
+        // Время усекается до микросекунд, с которыми его хранит H2, чтобы курсор из сущности совпадал со строкой
+        request.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS).minusDays(1));
         entityManager.persist(request);
 
         someRequest = new ItemRequest();
         someRequest.setDescription("Request 2");
         someRequest.setRequestor(anotherUser);
-        someRequest.setCreated(LocalDateTime.now());
+        someRequest.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         entityManager.persist(someRequest);
     }
 
     @Test
-    void whenFindByRequestor_Id_thenSuccess() {
-        List<ItemRequest> requests = itemRequestStorage.findByRequestor_Id(user.getId());
-        assertThat(requests).hasSize(1).extracting("id")
+    void whenFindRequestorRequestsAfter_thenSuccess() {
+        Slice<ItemRequest> requests = itemRequestStorage.findRequestorRequestsAfter(user.getId(),
+                LocalDateTime.of(1, 1, 1, 0, 0), 0, PageRequest.of(0, 10));
+        assertThat(requests.getContent()).hasSize(1).extracting("id")
                 .containsExactly(request.getId());
     }
 
+    @Test
+    void whenFindRequestorRequestsAfter_thenPageOldestFirst() {
+        ItemRequest laterRequest = new ItemRequest();
+        laterRequest.setDescription("Request 3");
+        laterRequest.setRequestor(user);
+        laterRequest.setCreated(request.getCreated().plusHours(1));
+        entityManager.persist(laterRequest);
+
+        Slice<ItemRequest> firstPage = itemRequestStorage.findRequestorRequestsAfter(user.getId(),
+                LocalDateTime.of(1, 1, 1, 0, 0), 0, PageRequest.of(0, 1));
+        assertThat(firstPage.getContent()).extracting("id").containsExactly(request.getId());
+        assertThat(firstPage.hasNext()).isTrue();
+
+        Slice<ItemRequest> secondPage = itemRequestStorage.findRequestorRequestsAfter(user.getId(),
+                request.getCreated(), request.getId(), PageRequest.of(0, 1));
+        assertThat(secondPage.getContent()).extracting("id").containsExactly(laterRequest.getId());
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
     @Test
     void whenFindAllItemRequestsSortedByCreatedDesc_thenSuccess() {
         Pageable pageable = PageRequest.of(0, 10);
@@ -69,4 +97,57 @@ public class ItemRequestStorageTest {
         assertThat(requests.getContent()).hasSize(1).extracting("id")
                 .containsExactly(someRequest.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenFindOtherRequestsBefore_thenPageNewestFirstSkippingOwnRequests() {
+        ItemRequest olderRequest = new ItemRequest();
+        olderRequest.setDescription("Request 3");
+        olderRequest.setRequestor(anotherUser);
+        olderRequest.setCreated(someRequest.getCreated().minusHours(1));
+        entityManager.persist(olderRequest);
+
+        Slice<ItemRequest> firstPage = itemRequestStorage.findOtherRequestsBefore(user.getId(),
+                LocalDateTime.of(9999, 12, 31, 23, 59, 59), Integer.MAX_VALUE, PageRequest.of(0, 1));
+        assertThat(firstPage.getContent()).extracting("id").containsExactly(someRequest.getId());
+        assertThat(firstPage.hasNext()).isTrue();
+
+        Slice<ItemRequest> secondPage = itemRequestStorage.findOtherRequestsBefore(user.getId(),
+                someRequest.getCreated(), someRequest.getId(), PageRequest.of(0, 1));
+        assertThat(secondPage.getContent()).extracting("id").containsExactly(olderRequest.getId());
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @Test
+    void whenReplaceSuggestions_thenDropPreviousSuggestionsOfItems() {
+        Item drill = item("Drill");
+        Item saw = item("Saw");
+        ItemRequest otherRequest = new ItemRequest();
+        otherRequest.setDescription("Request 3");
+        otherRequest.setRequestor(user);
+        otherRequest.setCreated(LocalDateTime.now());
+        entityManager.persist(otherRequest);
+        entityManager.flush();
+        LocalDateTime now = LocalDateTime.now();
+
+        itemRequestStorage.replaceSuggestions(List.of(drill.getId(), saw.getId()), List.of(
+                new RequestMatch(request.getId(), drill.getId(), 1),
+                new RequestMatch(request.getId(), saw.getId(), 3),
+                new RequestMatch(otherRequest.getId(), drill.getId(), 1)), now);
+        itemRequestStorage.replaceSuggestions(List.of(drill.getId()), List.of(
+                new RequestMatch(otherRequest.getId(), drill.getId(), 2)), now);
+
+        assertThat(itemStorage.findSuggestedItems(request.getId(), PageRequest.of(0, 10)))
+                .extracting(Item::getId).containsExactly(saw.getId());
+        assertThat(itemStorage.findSuggestedItems(otherRequest.getId(), PageRequest.of(0, 10)))
+                .extracting(Item::getId).containsExactly(drill.getId());
+    }
+
+    private Item item(String name) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(name + " for rent");
+        item.setAvailable(true);
+        item.setOwner(anotherUser);
+        return entityManager.persist(item);
+    }
+}